@@ -3,6 +3,7 @@ import { SignOutButton, useUser } from "@clerk/clerk-react";
 
 // Define interface for GroceryItem
 interface GroceryItem {
+  id: number;
   name: string;
   checked: boolean;
 }
@@ -108,6 +109,7 @@ const GroceryList: React.FC = () => {
         `http://localhost:8080/api/users/${userId}/grocery`
       );
       const formatted = (data.groceries || []).map((item: any) => ({
+        id: item.id,
         name: item.name,
         checked: item.checked ?? false,
       }));
@@ -172,7 +174,7 @@ const GroceryList: React.FC = () => {
     // Optimistically update UI
     setGroceries((prev) =>
       prev.map((grocery) =>
-        grocery.name === item.name
+        grocery.id === item.id
           ? { ...grocery, checked: newCheckedStatus }
           : grocery
       )
@@ -187,36 +189,27 @@ const GroceryList: React.FC = () => {
           "POST",
           {
             userId,
-            ingredientName: item.name,
+            itemId: item.id,
             checked: true,
           }
         );
 
-        // 2. Add to pantry
+        // 2. Move checked items into the pantry and off the grocery list
         await fetchFromAPI(
-          "http://localhost:8080/api/pantry/add-ingredient",
+          "http://localhost:8080/api/grocery/move-checked-to-pantry",
           "POST",
           {
             userId,
-            ingredientName: item.name,
           }
         );
 
-        // 3. Remove from grocery list
-        await fetchFromAPI(
-          "http://localhost:8080/api/grocery/delete-ingredient",
-          "POST",
-          {
-            userId,
-            ingredientName: item.name,
-          }
-        );
-
-        // Remove item from UI since it's now in pantry
-        setGroceries((prev) => prev.filter((g) => g.name !== item.name));
+        // The server moves every checked item, not just this one, so drop them all from
+        // the UI, then refetch to pick up items checked on other devices
+        setGroceries((prev) => prev.filter((g) => !g.checked));
+        await fetchGroceryItems();
 
         console.log(
-          `${item.name} moved to pantry and removed from grocery list`
+          `${item.name} and any other checked items moved to pantry`
         );
       } else {
         // When unchecking an item (just uncheck it)
@@ -225,7 +218,7 @@ const GroceryList: React.FC = () => {
           "POST",
           {
             userId,
-            ingredientName: item.name,
+            itemId: item.id,
             checked: false,
           }
         );
@@ -237,7 +230,7 @@ const GroceryList: React.FC = () => {
       // Rollback the optimistic update
       setGroceries((prev) =>
         prev.map((grocery) =>
-          grocery.name === item.name
+          grocery.id === item.id
             ? { ...grocery, checked: item.checked }
             : grocery
         )
@@ -346,8 +339,8 @@ const GroceryList: React.FC = () => {
             (nothing to buy!)
           </li>
         ) : (
-          sortedGroceries.map((item, index) => (
-            <li key={`${item.name}-${index}`} style={itemStyle}>
+          sortedGroceries.map((item) => (
+            <li key={item.id} style={itemStyle}>
               <label
                 style={{
                   display: "flex",
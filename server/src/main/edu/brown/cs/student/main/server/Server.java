@@ -1,26 +1,45 @@
 package main.edu.brown.cs.student.main.server;
 
+import main.edu.brown.cs.student.main.server.cache.ResponseCache;
+import main.edu.brown.cs.student.main.server.cache.SearchResultCache;
 import main.edu.brown.cs.student.main.server.config.AppConfig;
+import main.edu.brown.cs.student.main.server.events.GroceryEventBus;
 import main.edu.brown.cs.student.main.server.handlers.AddAllergenHandler;
 import main.edu.brown.cs.student.main.server.handlers.AddGroceryIngredientHandler;
 import main.edu.brown.cs.student.main.server.handlers.AddPantryIngredientHandler;
 import main.edu.brown.cs.student.main.server.handlers.AddRecipeToGroceryHandler;
 import main.edu.brown.cs.student.main.server.handlers.AllergenHandler;
+import main.edu.brown.cs.student.main.server.handlers.BatchHandler;
+import main.edu.brown.cs.student.main.server.handlers.CacheStatsHandler;
 import main.edu.brown.cs.student.main.server.handlers.CheckGroceryItemHandler;
+import main.edu.brown.cs.student.main.server.handlers.CookNowHandler;
 import main.edu.brown.cs.student.main.server.handlers.DeleteGroceryIngredientHandler; 
 import main.edu.brown.cs.student.main.server.handlers.ClearGroceryListHandler; 
+import main.edu.brown.cs.student.main.server.handlers.GroceryChangesHandler;
+import main.edu.brown.cs.student.main.server.handlers.GroceryEventsHandler;
 import main.edu.brown.cs.student.main.server.handlers.GroceryListHandler;
+import main.edu.brown.cs.student.main.server.handlers.MoveCheckedToPantryHandler;
+import main.edu.brown.cs.student.main.server.handlers.PantryChangesHandler;
 import main.edu.brown.cs.student.main.server.handlers.PantryCompareHandler;
 import main.edu.brown.cs.student.main.server.handlers.PantryHandler;
 import main.edu.brown.cs.student.main.server.handlers.RecipeDetailHandler;
 import main.edu.brown.cs.student.main.server.handlers.RecipeHandler;
 import main.edu.brown.cs.student.main.server.handlers.RemoveAllergenHandler;
-import main.edu.brown.cs.student.main.server.model.User;
+import main.edu.brown.cs.student.main.server.repository.FileUserRepository;
+import main.edu.brown.cs.student.main.server.repository.InMemoryUserRepository;
+import main.edu.brown.cs.student.main.server.repository.UserRepository;
+import main.edu.brown.cs.student.main.server.service.CachingSpoonacularService;
+import main.edu.brown.cs.student.main.server.service.RecipeSearchIndex;
 import main.edu.brown.cs.student.main.server.service.SpoonacularService;
+import main.edu.brown.cs.student.main.server.store.RecipeStore;
 import main.edu.brown.cs.student.main.server.handlers.RemovePantryIngredientHandler;
 import main.edu.brown.cs.student.main.server.handlers.ClearPantryHandler;
-import java.util.HashMap;
-import java.util.Map;
+import spark.embeddedserver.EmbeddedServers;
+import spark.embeddedserver.jetty.EmbeddedJettyFactory;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.Duration;
 
 import static spark.Spark.*;
 
@@ -29,6 +48,21 @@ public class Server {
     // Initialize configuration
     AppConfig config = AppConfig.getInstance();
 
+    // Choose how requests are scheduled; this must happen before the first route is mapped
+    VirtualThreadPool virtualThreadPool = null;
+    if (config.isVirtualThreadsEnabled()) {
+      virtualThreadPool = VirtualThreadPool.create(config.getServerPlatformThreads());
+      if (virtualThreadPool != null) {
+        EmbeddedServers.add(EmbeddedServers.defaultIdentifier(),
+            new EmbeddedJettyFactory().withThreadPool(virtualThreadPool));
+      } else {
+        System.err.println("Virtual threads need JDK 21+; falling back to platform threads");
+      }
+    }
+    if (virtualThreadPool == null) {
+      threadPool(config.getServerPlatformThreads());
+    }
+
     // Set up port
     port(config.getServerPort());
 
@@ -54,30 +88,92 @@ public class Server {
       return "OK";
     });
 
-    // Initialize shared user store (in-memory for demo purposes)
-    Map<String, User> users = new HashMap<>();
+    // Initialize shared user store
+    UserRepository users = openUserRepository(config);
+
+    // Pushes grocery list changes to clients streaming them. Each open stream holds a request
+    // thread, so on the bounded platform pool streams may take at most half of it.
+    int maxEventSubscribers = config.getGroceryEventsMaxSubscribers();
+    if (virtualThreadPool == null) {
+      maxEventSubscribers = Math.min(maxEventSubscribers, config.getServerPlatformThreads() / 2);
+    }
+    GroceryEventBus groceryEvents = new GroceryEventBus(
+        config.getGroceryEventsBufferSize(), maxEventSubscribers);
+
+    // Open the persistent recipe store; without it recipes are only cached in memory
+    RecipeStore recipeStore = null;
+    if (config.isRecipeStoreEnabled()) {
+      try {
+        recipeStore = new RecipeStore(Paths.get(config.getRecipeStorePath()));
+        System.out.println("Recipe store loaded " + recipeStore.size() + " recipes");
+        RecipeStore store = recipeStore;
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+          try {
+            store.close();
+          } catch (IOException e) {
+            System.err.println("Failed to close recipe store: " + e.getMessage());
+          }
+        }));
+      } catch (IOException e) {
+        System.err.println("Failed to open recipe store: " + e.getMessage());
+      }
+    }
 
     // Initialize services
-    SpoonacularService spoonacularService = new SpoonacularService(config.getSpoonacularApiKey());
+    // All recipe lookups share one cache so a recipe page view costs at most one upstream call
+    CachingSpoonacularService spoonacularService = new CachingSpoonacularService(
+        new SpoonacularService(
+            config.getSpoonacularApiKey(),
+            Duration.ofMillis(config.getSpoonacularTimeoutMillis()),
+            SpoonacularService.newExecutor(config.getSpoonacularExecutorThreads())),
+        config.getRecipeCacheMaxEntries(),
+        config.getRecipeCacheMaxBytes(),
+        config.getRecipeCacheTtlSeconds() * 1000,
+        recipeStore,
+        config.isSearchIndexEnabled() ? new RecipeSearchIndex(config.getSearchIndexMaxRecipes()) : null,
+        new SearchResultCache(
+            config.getSearchCacheMaxEntries(),
+            config.getSearchCacheMaxBytes(),
+            config.getSearchCacheTtlSeconds() * 1000,
+            config.getSearchCacheEmptyTtlSeconds() * 1000,
+            CachingSpoonacularService::estimateSize));
+
+    // Serialized pantry and grocery list responses, reused until the list changes
+    ResponseCache responses = new ResponseCache(
+        config.getResponseCacheMaxEntries(),
+        config.getResponseCacheMaxBytes(),
+        config.getResponseCacheTtlSeconds() * 1000);
 
     // Set up API routes
 
     // Recipe routes
     get("/api/recipes/search", new RecipeHandler(spoonacularService, users));
+    // Before /:id, which would otherwise take "cook-now" as a recipe id
+    get("/api/recipes/cook-now", new CookNowHandler(spoonacularService.getSearchIndex(), users));
     get("/api/recipes/:id", new RecipeDetailHandler(spoonacularService, users));
 
     // Grocery list routes
-    get("/api/users/:userId/grocery", new GroceryListHandler(spoonacularService, users));
-    post("/api/grocery/add-recipe", new AddRecipeToGroceryHandler(spoonacularService, users));
-    post("/api/grocery/add-ingredient", new AddGroceryIngredientHandler(users));
-    post("/api/grocery/clear", new ClearGroceryListHandler(users));
-    post("/api/grocery/delete-ingredient", new DeleteGroceryIngredientHandler(users));
+    get("/api/users/:userId/grocery", new GroceryListHandler(spoonacularService, users, responses));
+    get("/api/users/:userId/grocery/changes", new GroceryChangesHandler(users));
+    get("/api/users/:userId/grocery/events", new GroceryEventsHandler(users, groceryEvents,
+        config.getGroceryEventsHeartbeatSeconds() * 1000));
+    post("/api/grocery/add-recipe",
+        new AddRecipeToGroceryHandler(spoonacularService, users, groceryEvents));
+    post("/api/grocery/add-ingredient", new AddGroceryIngredientHandler(users, groceryEvents));
+    post("/api/grocery/clear", new ClearGroceryListHandler(users, groceryEvents));
+    post("/api/grocery/delete-ingredient", new DeleteGroceryIngredientHandler(users, groceryEvents));
     
-     post("/api/grocery/check-item", new CheckGroceryItemHandler(users));
+     post("/api/grocery/check-item", new CheckGroceryItemHandler(users, groceryEvents));
+    post("/api/grocery/move-checked-to-pantry",
+        new MoveCheckedToPantryHandler(users, groceryEvents));
+
 
+    // Batched grocery list and pantry operations
+    post("/api/batch", new BatchHandler(users, groceryEvents));
 
     // Pantry routes
-    get("/api/users/:userId/pantry", new PantryHandler(spoonacularService, users));
+    get("/api/users/:userId/pantry", new PantryHandler(spoonacularService, users, responses));
+    get("/api/users/:userId/pantry/changes", new PantryChangesHandler(users));
     post("/api/pantry/add-ingredient", new AddPantryIngredientHandler(users));
     get("/api/pantry/compare", new PantryCompareHandler(spoonacularService, users));
     delete("/api/pantry/remove-ingredient", new RemovePantryIngredientHandler(users));
@@ -89,6 +185,9 @@ public class Server {
     post("/api/allergens/add", new AddAllergenHandler(users));
     delete("/api/users/:userId/allergens/:allergen", new RemoveAllergenHandler(users));
 
+    // Cache statistics route
+    get("/api/cache/stats", new CacheStatsHandler(spoonacularService, responses));
+
     // Health check route
     get("/api/health", (req, res) -> {
       res.type("application/json");
@@ -108,6 +207,39 @@ public class Server {
       res.body("{\"result\":\"error\",\"message\":\"" + e.getMessage() + "\"}");
     });
 
-    System.out.println("Server started on port " + port());
+    awaitInitialization();
+    if (virtualThreadPool != null) {
+      // Jetty's acceptors and selectors are running on platform threads; requests go virtual from here
+      virtualThreadPool.startVirtualDispatch();
+    }
+
+    System.out.println("Server started on port " + port()
+        + (virtualThreadPool != null ? " (virtual threads)" : ""));
+  }
+
+  /**
+   * Open the file-backed user store, falling back to memory if it is disabled or can't be opened
+   */
+  private static UserRepository openUserRepository(AppConfig config) {
+    if (config.isUserStoreFileBacked()) {
+      try {
+        FileUserRepository repository = new FileUserRepository(
+            Paths.get(config.getUserStorePath()),
+            config.getUserStoreSnapshotEvery(),
+            config.isUserStoreSyncWrites());
+        System.out.println("User store loaded " + repository.size() + " users");
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+          try {
+            repository.close();
+          } catch (IOException e) {
+            System.err.println("Failed to snapshot user store: " + e.getMessage());
+          }
+        }));
+        return repository;
+      } catch (IOException e) {
+        System.err.println("Failed to open user store, keeping users in memory: " + e.getMessage());
+      }
+    }
+    return new InMemoryUserRepository();
   }
-}
\ No newline at end of file
+}
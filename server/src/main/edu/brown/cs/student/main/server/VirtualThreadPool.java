@@ -0,0 +1,88 @@
+package main.edu.brown.cs.student.main.server;
+
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jetty thread pool that runs each request on its own virtual thread (JDK 21+).
+ *
+ * Jetty's acceptor and selector loops block for the lifetime of the server, and Selector.select
+ * pins a virtual thread to its carrier, so those stay on the small platform pool inherited from
+ * QueuedThreadPool. They are all submitted while the server starts; once startVirtualDispatch()
+ * is called (after Spark finishes initializing), every task Jetty executes, which is to say every
+ * request, gets a fresh virtual thread instead.
+ */
+public class VirtualThreadPool extends QueuedThreadPool {
+  private final ExecutorService virtualExecutor;
+  private volatile boolean virtualDispatch;
+
+  private VirtualThreadPool(ExecutorService virtualExecutor, int platformThreads) {
+    super(platformThreads, Math.min(8, platformThreads));
+    this.virtualExecutor = virtualExecutor;
+    setName("jetty-platform");
+  }
+
+  /**
+   * Create the pool, or return null when the running JDK has no virtual threads
+   */
+  public static VirtualThreadPool create(int platformThreads) {
+    ExecutorService virtualExecutor = newVirtualThreadPerTaskExecutor();
+    return virtualExecutor == null ? null : new VirtualThreadPool(virtualExecutor, platformThreads);
+  }
+
+  /**
+   * Whether the running JDK supports virtual threads
+   */
+  public static boolean isSupported() {
+    try {
+      Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      return true;
+    } catch (NoSuchMethodException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Route all subsequently executed tasks to virtual threads
+   */
+  public void startVirtualDispatch() {
+    virtualDispatch = true;
+  }
+
+  @Override
+  public void execute(Runnable job) {
+    if (virtualDispatch && isRunning()) {
+      virtualExecutor.execute(job);
+    } else {
+      super.execute(job);
+    }
+  }
+
+  @Override
+  public boolean tryExecute(Runnable task) {
+    // Refusing makes Jetty hand blocking work to execute() instead of a reserved platform thread
+    return !virtualDispatch && super.tryExecute(task);
+  }
+
+  @Override
+  protected void doStop() throws Exception {
+    virtualDispatch = false;
+    virtualExecutor.shutdown();
+    virtualExecutor.awaitTermination(getStopTimeout(), TimeUnit.MILLISECONDS);
+    super.doStop();
+  }
+
+  // Looked up reflectively so the server still compiles and runs on JDK 17
+  private static ExecutorService newVirtualThreadPerTaskExecutor() {
+    try {
+      Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      return (ExecutorService) factory.invoke(null);
+    } catch (ReflectiveOperationException e) {
+      return null;
+    }
+  }
+}
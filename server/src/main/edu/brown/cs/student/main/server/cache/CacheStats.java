@@ -0,0 +1,63 @@
+package main.edu.brown.cs.student.main.server.cache;
+
+/**
+ * Immutable point-in-time view of a cache's counters
+ */
+public class CacheStats {
+  private final long hits;
+  private final long misses;
+  private final long evictions;
+  private final long expirations;
+  private final int size;
+  private final long weight;
+
+  public CacheStats(long hits, long misses, long evictions, long expirations, int size, long weight) {
+    this.hits = hits;
+    this.misses = misses;
+    this.evictions = evictions;
+    this.expirations = expirations;
+    this.size = size;
+    this.weight = weight;
+  }
+
+  public long getHits() {
+    return hits;
+  }
+
+  public long getMisses() {
+    return misses;
+  }
+
+  public long getEvictions() {
+    return evictions;
+  }
+
+  public long getExpirations() {
+    return expirations;
+  }
+
+  public int getSize() {
+    return size;
+  }
+
+  public long getWeight() {
+    return weight;
+  }
+
+  public double getHitRate() {
+    long requests = hits + misses;
+    return requests == 0 ? 0.0 : (double) hits / requests;
+  }
+
+  @Override
+  public String toString() {
+    return "CacheStats{" +
+        "hits=" + hits +
+        ", misses=" + misses +
+        ", evictions=" + evictions +
+        ", expirations=" + expirations +
+        ", size=" + size +
+        ", weight=" + weight +
+        '}';
+  }
+}
@@ -0,0 +1,42 @@
+package main.edu.brown.cs.student.main.server.cache;
+
+/**
+ * A serialized JSON response body and its entity tag. The body is shared; don't modify it.
+ */
+public class CachedResponse {
+  private final byte[] body;
+  private final String etag;
+
+  CachedResponse(byte[] body, String etag) {
+    this.body = body;
+    this.etag = etag;
+  }
+
+  public byte[] getBody() {
+    return body;
+  }
+
+  public String getEtag() {
+    return etag;
+  }
+
+  /**
+   * Check whether an If-None-Match header names this response, so the client's copy is current
+   */
+  public boolean matches(String ifNoneMatch) {
+    if (ifNoneMatch == null) {
+      return false;
+    }
+    for (String candidate : ifNoneMatch.split(",")) {
+      String tag = candidate.trim();
+      // Weak comparison, as If-None-Match requires
+      if (tag.startsWith("W/")) {
+        tag = tag.substring(2);
+      }
+      if (tag.equals("*") || tag.equals(etag)) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,147 @@
+package main.edu.brown.cs.student.main.server.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * Bounded in-memory cache with least-recently-used eviction and a time-to-live per entry.
+ *
+ * The cache is bounded both by entry count and by total weight, where each entry's weight
+ * comes from the supplied weigher (e.g. an estimated size in bytes). All operations are
+ * synchronized; they only touch the backing LinkedHashMap so the critical sections are short.
+ */
+public class LruTtlCache<K, V> {
+  private final int maxEntries;
+  private final long maxWeight;
+  private final long defaultTtlMillis;
+  private final ToIntFunction<V> weigher;
+  private final LongSupplier clock;
+
+  // Access-ordered, so iteration starts at the least recently used entry
+  private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private long totalWeight;
+
+  private long hits;
+  private long misses;
+  private long evictions;
+  private long expirations;
+
+  public LruTtlCache(int maxEntries, long maxWeight, long defaultTtlMillis, ToIntFunction<V> weigher) {
+    this(maxEntries, maxWeight, defaultTtlMillis, weigher, System::currentTimeMillis);
+  }
+
+  public LruTtlCache(int maxEntries, long maxWeight, long defaultTtlMillis, ToIntFunction<V> weigher,
+      LongSupplier clock) {
+    if (maxEntries <= 0 || maxWeight <= 0 || defaultTtlMillis <= 0) {
+      throw new IllegalArgumentException("Cache bounds and TTL must be positive");
+    }
+    this.maxEntries = maxEntries;
+    this.maxWeight = maxWeight;
+    this.defaultTtlMillis = defaultTtlMillis;
+    this.weigher = weigher;
+    this.clock = clock;
+  }
+
+  /**
+   * Get a live entry, or null if it is absent or has expired
+   */
+  public synchronized V get(K key) {
+    Entry<V> entry = entries.get(key);
+    if (entry == null) {
+      misses++;
+      return null;
+    }
+
+    if (entry.expiresAt <= clock.getAsLong()) {
+      entries.remove(key);
+      totalWeight -= entry.weight;
+      expirations++;
+      misses++;
+      return null;
+    }
+
+    hits++;
+    return entry.value;
+  }
+
+  /**
+   * Insert or replace an entry using the default TTL
+   */
+  public void put(K key, V value) {
+    put(key, value, defaultTtlMillis);
+  }
+
+  /**
+   * Insert or replace an entry that expires after the given number of milliseconds
+   */
+  public synchronized void put(K key, V value, long ttlMillis) {
+    int weight = Math.max(1, weigher.applyAsInt(value));
+    if (weight > maxWeight) {
+      // Never cache something that would flush the whole cache on its own
+      invalidate(key);
+      return;
+    }
+
+    Entry<V> previous = entries.put(key, new Entry<>(value, weight, clock.getAsLong() + ttlMillis));
+    if (previous != null) {
+      totalWeight -= previous.weight;
+    }
+    totalWeight += weight;
+
+    evictIfNeeded();
+  }
+
+  public synchronized void invalidate(K key) {
+    Entry<V> removed = entries.remove(key);
+    if (removed != null) {
+      totalWeight -= removed.weight;
+    }
+  }
+
+  public synchronized void invalidateAll() {
+    entries.clear();
+    totalWeight = 0;
+  }
+
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  public synchronized long weight() {
+    return totalWeight;
+  }
+
+  public synchronized CacheStats stats() {
+    return new CacheStats(hits, misses, evictions, expirations, entries.size(), totalWeight);
+  }
+
+  private void evictIfNeeded() {
+    long now = clock.getAsLong();
+    Iterator<Map.Entry<K, Entry<V>>> iterator = entries.entrySet().iterator();
+    while ((entries.size() > maxEntries || totalWeight > maxWeight) && iterator.hasNext()) {
+      Entry<V> eldest = iterator.next().getValue();
+      iterator.remove();
+      totalWeight -= eldest.weight;
+      if (eldest.expiresAt <= now) {
+        expirations++;
+      } else {
+        evictions++;
+      }
+    }
+  }
+
+  private static class Entry<V> {
+    private final V value;
+    private final int weight;
+    private final long expiresAt;
+
+    private Entry(V value, int weight, long expiresAt) {
+      this.value = value;
+      this.weight = weight;
+      this.expiresAt = expiresAt;
+    }
+  }
+}
@@ -0,0 +1,73 @@
+package main.edu.brown.cs.student.main.server.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.function.Supplier;
+
+/**
+ * Serialized JSON responses, each kept together with the immutable object it was rendered from.
+ *
+ * An entry is only reused while the caller still passes that same object, e.g. a user's current
+ * pantry snapshot, so a mutation that publishes a new snapshot invalidates the entry without any
+ * explicit call. Entries live in an LruTtlCache weighted by body size.
+ */
+public class ResponseCache {
+  private final LruTtlCache<String, Entry> entries;
+
+  public ResponseCache(int maxEntries, long maxBytes, long ttlMillis) {
+    this.entries = new LruTtlCache<>(maxEntries, maxBytes, ttlMillis,
+        entry -> entry.response.getBody().length);
+  }
+
+  /**
+   * Get the response rendered from source, rendering and caching it if the cached one, if any,
+   * came from a different source
+   */
+  public CachedResponse get(String key, Object source, Supplier<String> render) {
+    Entry entry = entries.get(key);
+    if (entry != null && entry.source == source) {
+      return entry.response;
+    }
+
+    // Racing misses may both render; either result is correct for this source
+    byte[] body = render.get().getBytes(StandardCharsets.UTF_8);
+    CachedResponse response = new CachedResponse(body, etagOf(body));
+    entries.put(key, new Entry(source, response));
+    return response;
+  }
+
+  public void invalidate(String key) {
+    entries.invalidate(key);
+  }
+
+  public CacheStats stats() {
+    return entries.stats();
+  }
+
+  // A strong validator derived from the bytes, so it stays correct across restarts and versions
+  private static String etagOf(byte[] body) {
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+      StringBuilder etag = new StringBuilder("\"");
+      for (int i = 0; i < 16; i++) {
+        etag.append(Character.forDigit((digest[i] >> 4) & 0xf, 16));
+        etag.append(Character.forDigit(digest[i] & 0xf, 16));
+      }
+      return etag.append('"').toString();
+    } catch (NoSuchAlgorithmException e) {
+      // Every JVM is required to provide SHA-256
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static class Entry {
+    private final Object source;
+    private final CachedResponse response;
+
+    private Entry(Object source, CachedResponse response) {
+      this.source = source;
+      this.response = response;
+    }
+  }
+}
@@ -0,0 +1,132 @@
+package main.edu.brown.cs.student.main.server.cache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.LongSupplier;
+import java.util.function.ToIntFunction;
+import main.edu.brown.cs.student.main.server.model.Recipe;
+
+/**
+ * Recent upstream search results, keyed by canonical query.
+ *
+ * Logically identical searches share one entry however their parameters are ordered, cased or
+ * repeated, e.g. a user's allergies merged into intolerances the request already named. Entries
+ * hold their own copies of the recipes, since search results carry only the ingredients the
+ * search returned and so can't be shared with the recipe detail cache. Each entry has its own
+ * TTL: empty results expire sooner, since they are the likeliest to change.
+ */
+public class SearchResultCache {
+  // Parameters whose values are comma-separated lists, where order and repeats don't matter
+  private static final Set<String> LIST_PARAMS = Set.of("cuisine", "excludeCuisine", "diet",
+      "intolerances", "equipment", "includeIngredients", "excludeIngredients", "type");
+
+  private final LruTtlCache<String, List<Recipe>> entries;
+  private final long emptyTtlMillis;
+
+  /**
+   * @param recipeWeigher rough retained size of one recipe in bytes, to bound the cache by memory
+   */
+  public SearchResultCache(int maxEntries, long maxWeightBytes, long ttlMillis, long emptyTtlMillis,
+      ToIntFunction<Recipe> recipeWeigher) {
+    this(maxEntries, maxWeightBytes, ttlMillis, emptyTtlMillis, recipeWeigher,
+        System::currentTimeMillis);
+  }
+
+  public SearchResultCache(int maxEntries, long maxWeightBytes, long ttlMillis, long emptyTtlMillis,
+      ToIntFunction<Recipe> recipeWeigher, LongSupplier clock) {
+    this.entries = new LruTtlCache<>(maxEntries, maxWeightBytes, ttlMillis, recipes -> {
+      int weight = 16;
+      for (Recipe recipe : recipes) {
+        weight += 8 + recipeWeigher.applyAsInt(recipe);
+      }
+      return weight;
+    }, clock);
+    this.emptyTtlMillis = emptyTtlMillis;
+  }
+
+  /**
+   * Fresh copies of the results cached for a canonical key, which the caller may modify, or null
+   */
+  public List<Recipe> get(String key) {
+    List<Recipe> cached = entries.get(key);
+    return cached != null ? copyOf(cached) : null;
+  }
+
+  /**
+   * Cache results under a canonical key; the entry keeps its own copies of the recipes
+   */
+  public void put(String key, List<Recipe> recipes) {
+    List<Recipe> copies = Collections.unmodifiableList(copyOf(recipes));
+    if (copies.isEmpty()) {
+      entries.put(key, copies, emptyTtlMillis);
+    } else {
+      entries.put(key, copies);
+    }
+  }
+
+  public void invalidate(String key) {
+    entries.invalidate(key);
+  }
+
+  public CacheStats stats() {
+    return entries.stats();
+  }
+
+  /**
+   * Canonical form of a search: keys sorted, blank values dropped, values trimmed and lowercased,
+   * and list values deduplicated and sorted (diet's pipe-separated alternatives too)
+   */
+  public static String canonicalKey(Map<String, String> searchParams) {
+    Map<String, String> sorted = new TreeMap<>();
+    for (Map.Entry<String, String> param : searchParams.entrySet()) {
+      String value = param.getValue() == null ? "" : canonicalValue(param.getValue());
+      if (!value.isEmpty() && LIST_PARAMS.contains(param.getKey())) {
+        value = canonicalList(value);
+      }
+      if (!value.isEmpty()) {
+        sorted.put(param.getKey(), value);
+      }
+    }
+
+    StringJoiner key = new StringJoiner("&");
+    for (Map.Entry<String, String> param : sorted.entrySet()) {
+      key.add(param.getKey() + "=" + param.getValue());
+    }
+    return key.toString();
+  }
+
+  private static List<Recipe> copyOf(List<Recipe> recipes) {
+    List<Recipe> copies = new ArrayList<>(recipes.size());
+    for (Recipe recipe : recipes) {
+      copies.add(recipe.copy());
+    }
+    return copies;
+  }
+
+  private static String canonicalValue(String value) {
+    return value.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+  }
+
+  private static String canonicalList(String value) {
+    Set<String> items = new TreeSet<>();
+    for (String item : value.split(",")) {
+      Set<String> alternatives = new TreeSet<>();
+      for (String alternative : item.split("\\|")) {
+        if (!alternative.isBlank()) {
+          alternatives.add(alternative.trim());
+        }
+      }
+      if (!alternatives.isEmpty()) {
+        items.add(String.join("|", alternatives));
+      }
+    }
+    return String.join(",", items);
+  }
+}
@@ -0,0 +1,70 @@
+package main.edu.brown.cs.student.main.server.codec;
+
+import java.util.List;
+
+/**
+ * Body of the batch route: a user and the operations to apply to their lists, in order.
+ * Absent fields are null.
+ */
+public final class BatchRequest {
+  private final String userId;
+  private final List<Operation> operations;
+
+  BatchRequest(String userId, List<Operation> operations) {
+    this.userId = userId;
+    this.operations = operations;
+  }
+
+  public String getUserId() {
+    return userId;
+  }
+
+  /**
+   * The operations in order, or null if the body had none; an entry is null if it wasn't an object
+   */
+  public List<Operation> getOperations() {
+    return operations;
+  }
+
+  /**
+   * One grocery list or pantry operation
+   */
+  public static final class Operation {
+    private final String op;
+    private final String list;
+    private final String ingredientName;
+    private final Long itemId;
+    private final Boolean checked;
+
+    Operation(String op, String list, String ingredientName, Long itemId, Boolean checked) {
+      this.op = op;
+      this.list = list;
+      this.ingredientName = ingredientName;
+      this.itemId = itemId;
+      this.checked = checked;
+    }
+
+    public String getOp() {
+      return op;
+    }
+
+    public String getList() {
+      return list;
+    }
+
+    public String getIngredientName() {
+      return ingredientName;
+    }
+
+    /**
+     * The grocery item id, or null if the client addressed the item by its text
+     */
+    public Long getItemId() {
+      return itemId;
+    }
+
+    public Boolean getChecked() {
+      return checked;
+    }
+  }
+}
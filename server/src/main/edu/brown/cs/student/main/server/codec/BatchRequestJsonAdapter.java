@@ -0,0 +1,145 @@
+package main.edu.brown.cs.student.main.server.codec;
+
+import com.squareup.moshi.JsonAdapter;
+import com.squareup.moshi.JsonReader;
+import com.squareup.moshi.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming adapter for BatchRequest. Unknown fields are skipped and null fields are not written.
+ * An operation that isn't an object is read as null, so the batch can fail just that operation;
+ * a field of the wrong type fails the whole body.
+ */
+final class BatchRequestJsonAdapter extends JsonAdapter<BatchRequest> {
+  private static final JsonReader.Options NAMES = JsonReader.Options.of("userId", "operations");
+  private static final JsonReader.Options OPERATION_NAMES = JsonReader.Options.of(
+      "op", "list", "ingredientName", "itemId", "checked");
+
+  @Override
+  public BatchRequest fromJson(JsonReader reader) throws IOException {
+    if (reader.peek() == JsonReader.Token.NULL) {
+      return reader.nextNull();
+    }
+
+    String userId = null;
+    List<BatchRequest.Operation> operations = null;
+
+    reader.beginObject();
+    while (reader.hasNext()) {
+      int field = reader.selectName(NAMES);
+      if (field == -1) {
+        reader.skipName();
+        reader.skipValue();
+        continue;
+      }
+      if (JsonCodec.skipNull(reader)) {
+        continue;
+      }
+      if (field == 0) {
+        userId = JsonCodec.nextUserId(reader);
+      } else {
+        operations = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+          operations.add(readOperation(reader));
+        }
+        reader.endArray();
+      }
+    }
+    reader.endObject();
+    return new BatchRequest(userId, operations);
+  }
+
+  private static BatchRequest.Operation readOperation(JsonReader reader) throws IOException {
+    if (reader.peek() != JsonReader.Token.BEGIN_OBJECT) {
+      reader.skipValue();
+      return null;
+    }
+
+    String op = null;
+    String list = null;
+    String ingredientName = null;
+    Long itemId = null;
+    Boolean checked = null;
+
+    reader.beginObject();
+    while (reader.hasNext()) {
+      int field = reader.selectName(OPERATION_NAMES);
+      if (field == -1) {
+        reader.skipName();
+        reader.skipValue();
+        continue;
+      }
+      if (JsonCodec.skipNull(reader)) {
+        continue;
+      }
+      switch (field) {
+        case 0:
+          op = reader.nextString();
+          break;
+        case 1:
+          list = reader.nextString();
+          break;
+        case 2:
+          ingredientName = reader.nextString();
+          break;
+        case 3:
+          itemId = reader.nextLong();
+          break;
+        default:
+          checked = reader.nextBoolean();
+          break;
+      }
+    }
+    reader.endObject();
+    return new BatchRequest.Operation(op, list, ingredientName, itemId, checked);
+  }
+
+  @Override
+  public void toJson(JsonWriter writer, BatchRequest request) throws IOException {
+    if (request == null) {
+      writer.nullValue();
+      return;
+    }
+    writer.beginObject();
+    if (request.getUserId() != null) {
+      writer.name("userId").value(request.getUserId());
+    }
+    if (request.getOperations() != null) {
+      writer.name("operations").beginArray();
+      for (BatchRequest.Operation operation : request.getOperations()) {
+        writeOperation(writer, operation);
+      }
+      writer.endArray();
+    }
+    writer.endObject();
+  }
+
+  private static void writeOperation(JsonWriter writer, BatchRequest.Operation operation)
+      throws IOException {
+    if (operation == null) {
+      writer.nullValue();
+      return;
+    }
+    writer.beginObject();
+    if (operation.getOp() != null) {
+      writer.name("op").value(operation.getOp());
+    }
+    if (operation.getList() != null) {
+      writer.name("list").value(operation.getList());
+    }
+    if (operation.getIngredientName() != null) {
+      writer.name("ingredientName").value(operation.getIngredientName());
+    }
+    if (operation.getItemId() != null) {
+      writer.name("itemId").value(operation.getItemId());
+    }
+    if (operation.getChecked() != null) {
+      writer.name("checked").value(operation.getChecked());
+    }
+    writer.endObject();
+  }
+}
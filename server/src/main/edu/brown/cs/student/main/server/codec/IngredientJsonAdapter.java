@@ -0,0 +1,106 @@
+package main.edu.brown.cs.student.main.server.codec;
+
+import com.squareup.moshi.JsonAdapter;
+import com.squareup.moshi.JsonReader;
+import com.squareup.moshi.JsonWriter;
+import main.edu.brown.cs.student.main.server.model.Ingredient;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming adapter for Ingredient, producing the same JSON as Moshi's reflective one
+ */
+final class IngredientJsonAdapter extends JsonAdapter<Ingredient> {
+  static final IngredientJsonAdapter INSTANCE = new IngredientJsonAdapter();
+
+  private static final JsonReader.Options NAMES = JsonReader.Options.of(
+      "id", "name", "aisle", "amount", "unit", "originalString", "containsAllergen",
+      "possibleAllergens");
+
+  private IngredientJsonAdapter() {
+  }
+
+  @Override
+  public Ingredient fromJson(JsonReader reader) throws IOException {
+    if (reader.peek() == JsonReader.Token.NULL) {
+      return reader.nextNull();
+    }
+
+    Ingredient ingredient = new Ingredient();
+    reader.beginObject();
+    while (reader.hasNext()) {
+      int field = reader.selectName(NAMES);
+      if (field == -1) {
+        reader.skipName();
+        reader.skipValue();
+        continue;
+      }
+      if (JsonCodec.skipNull(reader)) {
+        continue;
+      }
+      switch (field) {
+        case 0:
+          ingredient.setId(reader.nextInt());
+          break;
+        case 1:
+          ingredient.setName(reader.nextString());
+          break;
+        case 2:
+          ingredient.setAisle(reader.nextString());
+          break;
+        case 3:
+          ingredient.setAmount(reader.nextDouble());
+          break;
+        case 4:
+          ingredient.setUnit(reader.nextString());
+          break;
+        case 5:
+          ingredient.setOriginalString(reader.nextString());
+          break;
+        case 6:
+          ingredient.setContainsAllergen(reader.nextBoolean());
+          break;
+        default:
+          List<String> allergens = new ArrayList<>();
+          reader.beginArray();
+          while (reader.hasNext()) {
+            allergens.add(JsonCodec.nextStringOrNull(reader));
+          }
+          reader.endArray();
+          ingredient.setPossibleAllergens(allergens.toArray(new String[0]));
+          break;
+      }
+    }
+    reader.endObject();
+    return ingredient;
+  }
+
+  @Override
+  public void toJson(JsonWriter writer, Ingredient ingredient) throws IOException {
+    if (ingredient == null) {
+      writer.nullValue();
+      return;
+    }
+
+    // Null strings drop their names, as the reflective adapter does
+    writer.beginObject();
+    writer.name("id").value(ingredient.getId());
+    writer.name("name").value(ingredient.getName());
+    writer.name("aisle").value(ingredient.getAisle());
+    writer.name("amount").value(ingredient.getAmount());
+    writer.name("unit").value(ingredient.getUnit());
+    writer.name("originalString").value(ingredient.getOriginalString());
+    writer.name("containsAllergen").value(ingredient.isContainsAllergen());
+    String[] allergens = ingredient.getPossibleAllergens();
+    if (allergens != null) {
+      writer.name("possibleAllergens").beginArray();
+      for (String allergen : allergens) {
+        writer.value(allergen);
+      }
+      writer.endArray();
+    }
+    writer.endObject();
+  }
+}
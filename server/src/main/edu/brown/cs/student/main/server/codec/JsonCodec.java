@@ -0,0 +1,93 @@
+package main.edu.brown.cs.student.main.server.codec;
+
+import com.squareup.moshi.JsonAdapter;
+import com.squareup.moshi.JsonDataException;
+import com.squareup.moshi.JsonReader;
+import com.squareup.moshi.Moshi;
+import com.squareup.moshi.Types;
+import main.edu.brown.cs.student.main.server.model.Ingredient;
+import main.edu.brown.cs.student.main.server.model.Recipe;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * The one Moshi instance and the adapters every route shares.
+ *
+ * Ingredients and recipes, the bulk of most responses, are written and read by hand-written
+ * streaming adapters rather than by reflection, as are request bodies. Adapters are thread-safe
+ * and built once here, so handlers don't construct their own.
+ */
+public final class JsonCodec {
+  public static final Moshi MOSHI = new Moshi.Builder()
+      .add(Ingredient.class, IngredientJsonAdapter.INSTANCE)
+      .add(Recipe.class, new RecipeJsonAdapter(IngredientJsonAdapter.INSTANCE))
+      .add(UserRequest.class, new UserRequestJsonAdapter())
+      .add(BatchRequest.class, new BatchRequestJsonAdapter())
+      .build();
+
+  /**
+   * Response envelopes: "result", "message" and the route's payload
+   */
+  public static final JsonAdapter<Map<String, Object>> MAP_ADAPTER =
+      MOSHI.adapter(Types.newParameterizedType(Map.class, String.class, Object.class));
+
+  private static final JsonAdapter<UserRequest> REQUEST_ADAPTER = MOSHI.adapter(UserRequest.class);
+  private static final JsonAdapter<BatchRequest> BATCH_ADAPTER = MOSHI.adapter(BatchRequest.class);
+
+  private JsonCodec() {
+  }
+
+  /**
+   * Parse a request body, or return null if it is missing, not JSON, or has fields of the wrong
+   * type, so handlers answer all of those as a bad request
+   */
+  public static UserRequest readRequest(String body) {
+    if (body == null || body.isEmpty()) {
+      return null;
+    }
+    try {
+      return REQUEST_ADAPTER.fromJson(body);
+    } catch (IOException | JsonDataException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Parse a batch request body, or return null under the same conditions as readRequest
+   */
+  public static BatchRequest readBatchRequest(String body) {
+    if (body == null || body.isEmpty()) {
+      return null;
+    }
+    try {
+      return BATCH_ADAPTER.fromJson(body);
+    } catch (IOException | JsonDataException e) {
+      return null;
+    }
+  }
+
+  // Moshi would read a number as a string; a user id must be sent as one
+  static String nextUserId(JsonReader reader) throws IOException {
+    if (reader.peek() != JsonReader.Token.STRING) {
+      throw new JsonDataException("Expected a string user id at " + reader.getPath());
+    }
+    return reader.nextString();
+  }
+
+  static String nextStringOrNull(JsonReader reader) throws IOException {
+    if (reader.peek() == JsonReader.Token.NULL) {
+      return reader.nextNull();
+    }
+    return reader.nextString();
+  }
+
+  // Absent and null mean the same thing for primitive fields: leave the default
+  static boolean skipNull(JsonReader reader) throws IOException {
+    if (reader.peek() == JsonReader.Token.NULL) {
+      reader.nextNull();
+      return true;
+    }
+    return false;
+  }
+}
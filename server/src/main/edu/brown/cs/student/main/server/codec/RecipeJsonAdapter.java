@@ -0,0 +1,183 @@
+package main.edu.brown.cs.student.main.server.codec;
+
+import com.squareup.moshi.JsonAdapter;
+import com.squareup.moshi.JsonReader;
+import com.squareup.moshi.JsonWriter;
+import main.edu.brown.cs.student.main.server.model.Ingredient;
+import main.edu.brown.cs.student.main.server.model.Recipe;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming adapter for Recipe, producing the same JSON as Moshi's reflective one
+ */
+final class RecipeJsonAdapter extends JsonAdapter<Recipe> {
+  private static final JsonReader.Options NAMES = JsonReader.Options.of(
+      "id", "title", "image", "readyInMinutes", "servings", "sourceUrl", "ingredients",
+      "instructions", "cuisine", "diets", "vegetarian", "vegan", "glutenFree", "dairyFree",
+      "availableIngredients", "totalIngredients", "missingIngredients", "allergens", "dishTypes");
+
+  private final JsonAdapter<Ingredient> ingredientAdapter;
+
+  RecipeJsonAdapter(JsonAdapter<Ingredient> ingredientAdapter) {
+    this.ingredientAdapter = ingredientAdapter;
+  }
+
+  @Override
+  public Recipe fromJson(JsonReader reader) throws IOException {
+    if (reader.peek() == JsonReader.Token.NULL) {
+      return reader.nextNull();
+    }
+
+    Recipe recipe = new Recipe();
+    reader.beginObject();
+    while (reader.hasNext()) {
+      int field = reader.selectName(NAMES);
+      if (field == -1) {
+        reader.skipName();
+        reader.skipValue();
+        continue;
+      }
+      if (JsonCodec.skipNull(reader)) {
+        continue;
+      }
+      switch (field) {
+        case 0:
+          recipe.setId(reader.nextInt());
+          break;
+        case 1:
+          recipe.setTitle(reader.nextString());
+          break;
+        case 2:
+          recipe.setImage(reader.nextString());
+          break;
+        case 3:
+          recipe.setReadyInMinutes(reader.nextInt());
+          break;
+        case 4:
+          recipe.setServings(reader.nextInt());
+          break;
+        case 5:
+          recipe.setSourceUrl(reader.nextString());
+          break;
+        case 6:
+          recipe.setIngredients(readIngredients(reader));
+          break;
+        case 7:
+          recipe.setInstructions(readStrings(reader));
+          break;
+        case 8:
+          recipe.setCuisine(reader.nextString());
+          break;
+        case 9:
+          recipe.setDiets(readStrings(reader));
+          break;
+        case 10:
+          recipe.setVegetarian(reader.nextBoolean());
+          break;
+        case 11:
+          recipe.setVegan(reader.nextBoolean());
+          break;
+        case 12:
+          recipe.setGlutenFree(reader.nextBoolean());
+          break;
+        case 13:
+          recipe.setDairyFree(reader.nextBoolean());
+          break;
+        case 14:
+          recipe.setAvailableIngredients(reader.nextInt());
+          break;
+        case 15:
+          recipe.setTotalIngredients(reader.nextInt());
+          break;
+        case 16:
+          recipe.setMissingIngredients(readIngredients(reader));
+          break;
+        case 17:
+          recipe.setAllergens(readStrings(reader));
+          break;
+        default:
+          recipe.setDishTypes(readStrings(reader));
+          break;
+      }
+    }
+    reader.endObject();
+    return recipe;
+  }
+
+  @Override
+  public void toJson(JsonWriter writer, Recipe recipe) throws IOException {
+    if (recipe == null) {
+      writer.nullValue();
+      return;
+    }
+
+    writer.beginObject();
+    writer.name("id").value(recipe.getId());
+    writer.name("title").value(recipe.getTitle());
+    writer.name("image").value(recipe.getImage());
+    writer.name("readyInMinutes").value(recipe.getReadyInMinutes());
+    writer.name("servings").value(recipe.getServings());
+    writer.name("sourceUrl").value(recipe.getSourceUrl());
+    writeIngredients(writer.name("ingredients"), recipe.getIngredients());
+    writeStrings(writer.name("instructions"), recipe.getInstructions());
+    writer.name("cuisine").value(recipe.getCuisine());
+    writeStrings(writer.name("diets"), recipe.getDiets());
+    writeStrings(writer.name("dishTypes"), recipe.getDishTypes());
+    writer.name("vegetarian").value(recipe.isVegetarian());
+    writer.name("vegan").value(recipe.isVegan());
+    writer.name("glutenFree").value(recipe.isGlutenFree());
+    writer.name("dairyFree").value(recipe.isDairyFree());
+    writer.name("availableIngredients").value(recipe.getAvailableIngredients());
+    writer.name("totalIngredients").value(recipe.getTotalIngredients());
+    writeIngredients(writer.name("missingIngredients"), recipe.getMissingIngredients());
+    writeStrings(writer.name("allergens"), recipe.getAllergens());
+    writer.endObject();
+  }
+
+  private List<Ingredient> readIngredients(JsonReader reader) throws IOException {
+    List<Ingredient> ingredients = new ArrayList<>();
+    reader.beginArray();
+    while (reader.hasNext()) {
+      ingredients.add(ingredientAdapter.fromJson(reader));
+    }
+    reader.endArray();
+    return ingredients;
+  }
+
+  private void writeIngredients(JsonWriter writer, List<Ingredient> ingredients) throws IOException {
+    if (ingredients == null) {
+      writer.nullValue();
+      return;
+    }
+    writer.beginArray();
+    for (Ingredient ingredient : ingredients) {
+      ingredientAdapter.toJson(writer, ingredient);
+    }
+    writer.endArray();
+  }
+
+  private static List<String> readStrings(JsonReader reader) throws IOException {
+    List<String> strings = new ArrayList<>();
+    reader.beginArray();
+    while (reader.hasNext()) {
+      strings.add(JsonCodec.nextStringOrNull(reader));
+    }
+    reader.endArray();
+    return strings;
+  }
+
+  private static void writeStrings(JsonWriter writer, List<String> strings) throws IOException {
+    if (strings == null) {
+      writer.nullValue();
+      return;
+    }
+    writer.beginArray();
+    for (String string : strings) {
+      writer.value(string);
+    }
+    writer.endArray();
+  }
+}
@@ -0,0 +1,51 @@
+package main.edu.brown.cs.student.main.server.codec;
+
+/**
+ * Body of the POST and DELETE routes that act on one user's grocery list, pantry or allergens.
+ * Each route reads the fields it needs; absent fields are null.
+ */
+public final class UserRequest {
+  private final String userId;
+  private final String ingredientName;
+  private final Long itemId;
+  private final Boolean checked;
+  private final Integer recipeId;
+  private final String allergen;
+
+  UserRequest(String userId, String ingredientName, Long itemId, Boolean checked, Integer recipeId,
+      String allergen) {
+    this.userId = userId;
+    this.ingredientName = ingredientName;
+    this.itemId = itemId;
+    this.checked = checked;
+    this.recipeId = recipeId;
+    this.allergen = allergen;
+  }
+
+  public String getUserId() {
+    return userId;
+  }
+
+  public String getIngredientName() {
+    return ingredientName;
+  }
+
+  /**
+   * The grocery item id, or null if the client addressed the item by its text
+   */
+  public Long getItemId() {
+    return itemId;
+  }
+
+  public Boolean getChecked() {
+    return checked;
+  }
+
+  public Integer getRecipeId() {
+    return recipeId;
+  }
+
+  public String getAllergen() {
+    return allergen;
+  }
+}
@@ -0,0 +1,95 @@
+package main.edu.brown.cs.student.main.server.codec;
+
+import com.squareup.moshi.JsonAdapter;
+import com.squareup.moshi.JsonReader;
+import com.squareup.moshi.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Streaming adapter for UserRequest. Numbers are read straight into longs and ints, and unknown
+ * fields are skipped; null fields are not written.
+ */
+final class UserRequestJsonAdapter extends JsonAdapter<UserRequest> {
+  private static final JsonReader.Options NAMES = JsonReader.Options.of(
+      "userId", "ingredientName", "itemId", "checked", "recipeId", "allergen");
+
+  @Override
+  public UserRequest fromJson(JsonReader reader) throws IOException {
+    if (reader.peek() == JsonReader.Token.NULL) {
+      return reader.nextNull();
+    }
+
+    String userId = null;
+    String ingredientName = null;
+    Long itemId = null;
+    Boolean checked = null;
+    Integer recipeId = null;
+    String allergen = null;
+
+    reader.beginObject();
+    while (reader.hasNext()) {
+      int field = reader.selectName(NAMES);
+      if (field == -1) {
+        reader.skipName();
+        reader.skipValue();
+        continue;
+      }
+      if (JsonCodec.skipNull(reader)) {
+        continue;
+      }
+      switch (field) {
+        case 0:
+          userId = JsonCodec.nextUserId(reader);
+          break;
+        case 1:
+          ingredientName = reader.nextString();
+          break;
+        case 2:
+          itemId = reader.nextLong();
+          break;
+        case 3:
+          checked = reader.nextBoolean();
+          break;
+        case 4:
+          recipeId = reader.nextInt();
+          break;
+        default:
+          allergen = reader.nextString();
+          break;
+      }
+    }
+    reader.endObject();
+    return new UserRequest(userId, ingredientName, itemId, checked, recipeId, allergen);
+  }
+
+  // Absent fields are left out, so what this writes reads back as the same request
+  @Override
+  public void toJson(JsonWriter writer, UserRequest request) throws IOException {
+    if (request == null) {
+      writer.nullValue();
+      return;
+    }
+    writer.beginObject();
+    writeIfPresent(writer, "userId", request.getUserId());
+    writeIfPresent(writer, "ingredientName", request.getIngredientName());
+    if (request.getItemId() != null) {
+      writer.name("itemId").value(request.getItemId());
+    }
+    if (request.getChecked() != null) {
+      writer.name("checked").value(request.getChecked());
+    }
+    if (request.getRecipeId() != null) {
+      writer.name("recipeId").value(request.getRecipeId());
+    }
+    writeIfPresent(writer, "allergen", request.getAllergen());
+    writer.endObject();
+  }
+
+  private static void writeIfPresent(JsonWriter writer, String name, String value)
+      throws IOException {
+    if (value != null) {
+      writer.name(name).value(value);
+    }
+  }
+}
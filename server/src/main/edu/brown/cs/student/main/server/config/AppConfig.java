@@ -57,6 +57,25 @@ public class AppConfig {
     return port != null ? Integer.parseInt(port) : 8080;
   }
 
+  /**
+   * Check if requests should be served on virtual threads instead of Jetty's bounded pool
+   * @return true if server.threads is set to "virtual"
+   */
+  public boolean isVirtualThreadsEnabled() {
+    String mode = getProperty("server.threads");
+    return mode != null && mode.trim().equalsIgnoreCase("virtual");
+  }
+
+  /**
+   * Get the size of the platform thread pool (all requests in platform mode, Jetty internals in
+   * virtual mode)
+   * @return the maximum number of platform threads
+   */
+  public int getServerPlatformThreads() {
+    String threads = getProperty("server.platform.threads");
+    return threads != null ? Integer.parseInt(threads) : 200;
+  }
+
   /**
    * Check if CORS is enabled
    * @return true if CORS is enabled, false otherwise
@@ -73,4 +92,212 @@ public class AppConfig {
   public String getCorsAllowedOrigins() {
     return getProperty("cors.allowed.origins");
   }
+
+  /**
+   * Get the maximum number of recipe details kept in memory
+   * @return the maximum entry count
+   */
+  public int getRecipeCacheMaxEntries() {
+    String maxEntries = getProperty("cache.recipe.max.entries");
+    return maxEntries != null ? Integer.parseInt(maxEntries) : 1000;
+  }
+
+  /**
+   * Get the approximate memory budget for cached recipe details
+   * @return the budget in bytes
+   */
+  public long getRecipeCacheMaxBytes() {
+    String maxBytes = getProperty("cache.recipe.max.bytes");
+    return maxBytes != null ? Long.parseLong(maxBytes) : 32L * 1024 * 1024;
+  }
+
+  /**
+   * Get how long a cached recipe detail stays fresh
+   * @return the time-to-live in seconds
+   */
+  public long getRecipeCacheTtlSeconds() {
+    String ttl = getProperty("cache.recipe.ttl.seconds");
+    return ttl != null ? Long.parseLong(ttl) : 3600;
+  }
+
+  /**
+   * Get the maximum number of serialized pantry and grocery list responses kept in memory
+   * @return the maximum entry count
+   */
+  public int getResponseCacheMaxEntries() {
+    String maxEntries = getProperty("cache.response.max.entries");
+    return maxEntries != null ? Integer.parseInt(maxEntries) : 10000;
+  }
+
+  /**
+   * Get the memory budget for serialized pantry and grocery list responses
+   * @return the budget in bytes
+   */
+  public long getResponseCacheMaxBytes() {
+    String maxBytes = getProperty("cache.response.max.bytes");
+    return maxBytes != null ? Long.parseLong(maxBytes) : 16L * 1024 * 1024;
+  }
+
+  /**
+   * Get how long an unread serialized response is kept
+   * @return the time-to-live in seconds
+   */
+  public long getResponseCacheTtlSeconds() {
+    String ttl = getProperty("cache.response.ttl.seconds");
+    return ttl != null ? Long.parseLong(ttl) : 3600;
+  }
+
+  /**
+   * Get the maximum number of searches whose upstream results are remembered
+   * @return the maximum entry count
+   */
+  public int getSearchCacheMaxEntries() {
+    String maxEntries = getProperty("cache.search.max.entries");
+    return maxEntries != null ? Integer.parseInt(maxEntries) : 5000;
+  }
+
+  /**
+   * Get the approximate memory budget for cached search results
+   * @return the budget in bytes
+   */
+  public long getSearchCacheMaxBytes() {
+    String maxBytes = getProperty("cache.search.max.bytes");
+    return maxBytes != null ? Long.parseLong(maxBytes) : 16L * 1024 * 1024;
+  }
+
+  /**
+   * Get how long a search's upstream results are reused
+   * @return the time-to-live in seconds
+   */
+  public long getSearchCacheTtlSeconds() {
+    String ttl = getProperty("cache.search.ttl.seconds");
+    return ttl != null ? Long.parseLong(ttl) : 600;
+  }
+
+  /**
+   * Get how long a search that found nothing is remembered
+   * @return the time-to-live in seconds
+   */
+  public long getSearchCacheEmptyTtlSeconds() {
+    String ttl = getProperty("cache.search.empty.ttl.seconds");
+    return ttl != null ? Long.parseLong(ttl) : 60;
+  }
+
+  /**
+   * Check if recipe searches should be answered from the local index when it can
+   * @return true if the search index is enabled
+   */
+  public boolean isSearchIndexEnabled() {
+    String enabled = getProperty("search.index.enabled");
+    return enabled == null || Boolean.parseBoolean(enabled);
+  }
+
+  /**
+   * Get the maximum number of recipes held in the local search index
+   * @return the maximum recipe count
+   */
+  public int getSearchIndexMaxRecipes() {
+    String maxRecipes = getProperty("search.index.max.recipes");
+    return maxRecipes != null ? Integer.parseInt(maxRecipes) : 20000;
+  }
+
+  /**
+   * Get the timeout for a single Spoonacular call
+   * @return the timeout in milliseconds
+   */
+  public long getSpoonacularTimeoutMillis() {
+    String timeout = getProperty("spoonacular.timeout.ms");
+    return timeout != null ? Long.parseLong(timeout) : 10000;
+  }
+
+  /**
+   * Get the number of threads dedicated to Spoonacular I/O callbacks and parsing
+   * @return the thread count
+   */
+  public int getSpoonacularExecutorThreads() {
+    String threads = getProperty("spoonacular.executor.threads");
+    return threads != null ? Integer.parseInt(threads) : 4;
+  }
+
+  /**
+   * Check if fetched recipes should be persisted to the local recipe store
+   * @return true if the recipe store is enabled
+   */
+  public boolean isRecipeStoreEnabled() {
+    String enabled = getProperty("store.recipe.enabled");
+    return enabled == null || Boolean.parseBoolean(enabled);
+  }
+
+  /**
+   * Get the file the recipe store appends to
+   * @return the recipe store path
+   */
+  public String getRecipeStorePath() {
+    String path = getProperty("store.recipe.path");
+    return path != null ? path : "data/recipes.db";
+  }
+
+  /**
+   * Check if users should be persisted to disk rather than kept only in memory
+   * @return true if store.users.type is "file"
+   */
+  public boolean isUserStoreFileBacked() {
+    String type = getProperty("store.users.type");
+    return type == null || type.trim().equalsIgnoreCase("file");
+  }
+
+  /**
+   * Get the directory holding the user snapshot and write-ahead log
+   * @return the user store directory
+   */
+  public String getUserStorePath() {
+    String path = getProperty("store.users.path");
+    return path != null ? path : "data/users";
+  }
+
+  /**
+   * Get the number of user saves between snapshots
+   * @return the snapshot interval
+   */
+  public int getUserStoreSnapshotEvery() {
+    String every = getProperty("store.users.snapshot.every");
+    return every != null ? Integer.parseInt(every) : 1000;
+  }
+
+  /**
+   * Check if every user save should be fsynced before the request completes
+   * @return true if store.users.sync is enabled
+   */
+  public boolean isUserStoreSyncWrites() {
+    String sync = getProperty("store.users.sync");
+    return sync != null && Boolean.parseBoolean(sync);
+  }
+
+  /**
+   * Get how many grocery events may queue up for one subscriber before it is told to resync
+   * @return the per-subscriber event buffer size
+   */
+  public int getGroceryEventsBufferSize() {
+    String size = getProperty("events.grocery.buffer.size");
+    return size != null ? Integer.parseInt(size) : 64;
+  }
+
+  /**
+   * Get the maximum number of open grocery event streams. Each one holds a request thread, so with
+   * platform threads the server lowers this to half of server.platform.threads.
+   * @return the subscriber limit
+   */
+  public int getGroceryEventsMaxSubscribers() {
+    String max = getProperty("events.grocery.max.subscribers");
+    return max != null ? Integer.parseInt(max) : 100;
+  }
+
+  /**
+   * Get the interval between keep-alive comments on an idle event stream
+   * @return the heartbeat interval in seconds
+   */
+  public long getGroceryEventsHeartbeatSeconds() {
+    String heartbeat = getProperty("events.grocery.heartbeat.seconds");
+    return heartbeat != null ? Long.parseLong(heartbeat) : 15;
+  }
 }
@@ -0,0 +1,153 @@
+package main.edu.brown.cs.student.main.server.events;
+
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fans grocery list events out to the clients streaming a user's list.
+ *
+ * Each subscriber has a bounded queue of ready-to-send frames. Publishing never blocks: if a
+ * subscriber's queue is full (a slow or stalled client), its queued frames are dropped and it is
+ * flagged to resync, so one slow reader can neither hold up the request that made the change nor
+ * make the server buffer without limit. The number of open subscriptions is capped as well, since
+ * each one holds a request thread.
+ *
+ * Versioned events reach each subscriber in increasing version order, at most once: one that is not
+ * newer than the last it queued, or than the version it started from, is dropped.
+ */
+public class GroceryEventBus {
+  private final int bufferSize;
+  private final int maxSubscribers;
+  private final ConcurrentHashMap<String, Set<Subscription>> subscribers = new ConcurrentHashMap<>();
+  private final AtomicInteger subscriberCount = new AtomicInteger();
+
+  public GroceryEventBus(int bufferSize, int maxSubscribers) {
+    this.bufferSize = bufferSize;
+    this.maxSubscribers = maxSubscribers;
+  }
+
+  /**
+   * Start receiving a user's events, or return null if too many streams are already open
+   */
+  public Subscription subscribe(String userId) {
+    if (subscriberCount.incrementAndGet() > maxSubscribers) {
+      subscriberCount.decrementAndGet();
+      return null;
+    }
+    Subscription subscription = new Subscription(userId, bufferSize);
+    // Add inside compute so a concurrent unsubscribe can't drop the set we are adding to
+    subscribers.compute(userId, (id, userSubscribers) -> {
+      Set<Subscription> updated = userSubscribers != null ? userSubscribers : new CopyOnWriteArraySet<>();
+      updated.add(subscription);
+      return updated;
+    });
+    return subscription;
+  }
+
+  /**
+   * Queue a frame for every subscriber of the user, without waiting on any of them
+   */
+  public void publish(String userId, String frame) {
+    Set<Subscription> userSubscribers = subscribers.get(userId);
+    if (userSubscribers == null) {
+      return;
+    }
+    for (Subscription subscription : userSubscribers) {
+      subscription.offer(frame);
+    }
+  }
+
+  /**
+   * Queue the frame for one version of the user's list, for every subscriber that hasn't had it
+   */
+  public void publish(String userId, long version, String frame) {
+    Set<Subscription> userSubscribers = subscribers.get(userId);
+    if (userSubscribers == null) {
+      return;
+    }
+    for (Subscription subscription : userSubscribers) {
+      subscription.offer(version, frame);
+    }
+  }
+
+  public boolean hasSubscribers(String userId) {
+    Set<Subscription> userSubscribers = subscribers.get(userId);
+    return userSubscribers != null && !userSubscribers.isEmpty();
+  }
+
+  public int getSubscriberCount() {
+    return subscriberCount.get();
+  }
+
+  private void unsubscribe(Subscription subscription) {
+    subscribers.computeIfPresent(subscription.userId, (id, userSubscribers) -> {
+      if (userSubscribers.remove(subscription)) {
+        subscriberCount.decrementAndGet();
+      }
+      return userSubscribers.isEmpty() ? null : userSubscribers;
+    });
+  }
+
+  /**
+   * One client's stream of a user's events
+   */
+  public final class Subscription implements AutoCloseable {
+    private final String userId;
+    private final BlockingQueue<String> frames;
+    private final AtomicBoolean overflowed = new AtomicBoolean();
+    // The newest version queued or already known to the client; guarded by this subscription
+    private long lastVersion = Long.MIN_VALUE;
+
+    private Subscription(String userId, int bufferSize) {
+      this.userId = userId;
+      this.frames = new ArrayBlockingQueue<>(bufferSize);
+    }
+
+    private synchronized void offer(long version, String frame) {
+      if (version > lastVersion) {
+        lastVersion = version;
+        offer(frame);
+      }
+    }
+
+    /**
+     * Drop versioned events at or below this version, which the client already has
+     */
+    public synchronized void skipThrough(long version) {
+      lastVersion = Math.max(lastVersion, version);
+    }
+
+    private void offer(String frame) {
+      if (!frames.offer(frame)) {
+        // The client has fallen behind: drop what it hasn't read and have it resync instead
+        frames.clear();
+        overflowed.set(true);
+      }
+    }
+
+    /**
+     * Wait for the next frame, returning null if none arrived in time
+     */
+    public String poll(long timeout, TimeUnit unit) throws InterruptedException {
+      return frames.poll(timeout, unit);
+    }
+
+    /**
+     * Whether frames were dropped since the last call; the client must refetch to catch up
+     */
+    public boolean takeOverflow() {
+      return overflowed.getAndSet(false);
+    }
+
+    @Override
+    public void close() {
+      unsubscribe(this);
+    }
+  }
+}
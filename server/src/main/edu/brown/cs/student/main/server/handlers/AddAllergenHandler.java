@@ -1,19 +1,19 @@
 package main.edu.brown.cs.student.main.server.handlers;
 
 import com.squareup.moshi.JsonAdapter;
-import com.squareup.moshi.Moshi;
-import com.squareup.moshi.Types;
+import main.edu.brown.cs.student.main.server.codec.JsonCodec;
+import main.edu.brown.cs.student.main.server.codec.UserRequest;
 import main.edu.brown.cs.student.main.server.model.User;
+import main.edu.brown.cs.student.main.server.repository.UserRepository;
 import spark.Request;
 import spark.Response;
 import spark.Route;
 
-import java.lang.reflect.Type;
 import java.util.*;
 
 public class AddAllergenHandler implements Route {
   private final JsonAdapter<Map<String, Object>> adapter;
-  private final Map<String, User> users;
+  private final UserRepository users;
 
   // Supported allergens list
   private final List<String> supportedAllergens = Arrays.asList(
@@ -21,12 +21,10 @@ public class AddAllergenHandler implements Route {
       "sesame", "shellfish", "soy", "sulfite", "tree nut", "wheat"
   );
 
-  public AddAllergenHandler(Map<String, User> users) {
+  public AddAllergenHandler(UserRepository users) {
     this.users = users;
 
-    Moshi moshi = new Moshi.Builder().build();
-    Type type = Types.newParameterizedType(Map.class, String.class, Object.class);
-    this.adapter = moshi.adapter(type);
+    this.adapter = JsonCodec.MAP_ADAPTER;
   }
 
   @Override
@@ -36,10 +34,9 @@ public class AddAllergenHandler implements Route {
 
     try {
       // Parse request body
-      String body = request.body();
-      Map<String, Object> requestMap = adapter.fromJson(body);
+      UserRequest userRequest = JsonCodec.readRequest(request.body());
 
-      if (requestMap == null) {
+      if (userRequest == null) {
         responseMap.put("result", "error_bad_request");
         responseMap.put("message", "Invalid JSON body");
         response.status(400);
@@ -47,8 +44,8 @@ public class AddAllergenHandler implements Route {
       }
 
       // Extract userId and allergen
-      String userId = (String) requestMap.get("userId");
-      String allergen = (String) requestMap.get("allergen");
+      String userId = userRequest.getUserId();
+      String allergen = userRequest.getAllergen();
 
       if (userId == null || allergen == null) {
         responseMap.put("result", "error_bad_request");
@@ -66,19 +63,16 @@ public class AddAllergenHandler implements Route {
         return adapter.toJson(responseMap);
       }
 
-      // Check if user exists
-      if (!users.containsKey(userId)) {
-        // Create a new user if not exists
-        users.put(userId, new User(userId, "", ""));
+      // Get the user, creating it if needed
+      User user = users.getOrCreate(userId);
+      synchronized (user) {
+        user.addAllergy(allergen);
+        users.save(user);
+        responseMap.put("allergens", new ArrayList<>(user.getAllergies()));
       }
 
-      // Add the allergen
-      User user = users.get(userId);
-      user.addAllergy(allergen);
-
       responseMap.put("result", "success");
       responseMap.put("message", "Allergen added successfully");
-      responseMap.put("allergens", user.getAllergies());
 
     } catch (Exception e) {
       responseMap.put("result", "error_processing");
@@ -1,28 +1,29 @@
 package main.edu.brown.cs.student.main.server.handlers;
 
 import com.squareup.moshi.JsonAdapter;
-import com.squareup.moshi.Moshi;
-import com.squareup.moshi.Types;
+import main.edu.brown.cs.student.main.server.codec.JsonCodec;
+import main.edu.brown.cs.student.main.server.codec.UserRequest;
+import main.edu.brown.cs.student.main.server.events.GroceryEventBus;
 import main.edu.brown.cs.student.main.server.model.Ingredient;
 import main.edu.brown.cs.student.main.server.model.User;
+import main.edu.brown.cs.student.main.server.repository.UserRepository;
 import spark.Request;
 import spark.Response;
 import spark.Route;
 
-import java.lang.reflect.Type;
 import java.util.HashMap;
 import java.util.Map;
 
 public class AddGroceryIngredientHandler implements Route {
   private final JsonAdapter<Map<String, Object>> adapter;
-  private final Map<String, User> users;
+  private final UserRepository users;
+  private final GroceryEventBus events;
 
-  public AddGroceryIngredientHandler(Map<String, User> users) {
+  public AddGroceryIngredientHandler(UserRepository users, GroceryEventBus events) {
     this.users = users;
+    this.events = events;
 
-    Moshi moshi = new Moshi.Builder().build();
-    Type type = Types.newParameterizedType(Map.class, String.class, Object.class);
-    this.adapter = moshi.adapter(type);
+    this.adapter = JsonCodec.MAP_ADAPTER;
   }
 
   @Override
@@ -32,10 +33,9 @@ public class AddGroceryIngredientHandler implements Route {
 
     try {
       // Parse request body
-      String body = request.body();
-      Map<String, Object> requestMap = adapter.fromJson(body);
+      UserRequest userRequest = JsonCodec.readRequest(request.body());
 
-      if (requestMap == null) {
+      if (userRequest == null) {
         responseMap.put("result", "error_bad_request");
         responseMap.put("message", "Invalid JSON body");
         response.status(400);
@@ -43,8 +43,8 @@ public class AddGroceryIngredientHandler implements Route {
       }
 
       // Extract userId and ingredientName
-      String userId = (String) requestMap.get("userId");
-      String ingredientName = (String) requestMap.get("ingredientName");
+      String userId = userRequest.getUserId();
+      String ingredientName = userRequest.getIngredientName();
 
       if (userId == null || ingredientName == null) {
         responseMap.put("result", "error_bad_request");
@@ -53,14 +53,8 @@ public class AddGroceryIngredientHandler implements Route {
         return adapter.toJson(responseMap);
       }
 
-      // Check if user exists
-      if (!users.containsKey(userId)) {
-        // Create a new user if not exists
-        users.put(userId, new User(userId, "", ""));
-      }
-
-      // Get the user
-      User user = users.get(userId);
+      // Get the user, creating it if needed
+      User user = users.getOrCreate(userId);
 
       // Create a new ingredient from the string
       Ingredient ingredient = new Ingredient();
@@ -71,7 +65,13 @@ public class AddGroceryIngredientHandler implements Route {
       ingredient.setUnit(""); // No unit for string-based items
 
       // Add to grocery list
-      user.getGroceryList().addIngredient(ingredient);
+      long version;
+      synchronized (user) {
+        version = user.getGroceryList().getVersion();
+        user.getGroceryList().addIngredient(ingredient);
+        users.save(user);
+        GroceryEventsHandler.publishChanges(events, userId, user.getGroceryList(), version);
+      }
 
       responseMap.put("result", "success");
       responseMap.put("message", "Ingredient added to grocery list");
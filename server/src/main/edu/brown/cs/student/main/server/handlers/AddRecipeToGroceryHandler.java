@@ -1,17 +1,18 @@
 package main.edu.brown.cs.student.main.server.handlers;
 
 import com.squareup.moshi.JsonAdapter;
-import com.squareup.moshi.Moshi;
-import com.squareup.moshi.Types;
+import main.edu.brown.cs.student.main.server.codec.JsonCodec;
+import main.edu.brown.cs.student.main.server.codec.UserRequest;
+import main.edu.brown.cs.student.main.server.events.GroceryEventBus;
 import main.edu.brown.cs.student.main.server.model.Ingredient;
 import main.edu.brown.cs.student.main.server.model.Recipe;
 import main.edu.brown.cs.student.main.server.model.User;
 import main.edu.brown.cs.student.main.server.service.SpoonacularService;
+import main.edu.brown.cs.student.main.server.repository.UserRepository;
 import spark.Request;
 import spark.Response;
 import spark.Route;
 
-import java.lang.reflect.Type;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -19,15 +20,16 @@ import java.util.Map;
 public class AddRecipeToGroceryHandler implements Route {
   private final SpoonacularService spoonacularService;
   private final JsonAdapter<Map<String, Object>> adapter;
-  private final Map<String, User> users;
+  private final UserRepository users;
+  private final GroceryEventBus events;
 
-  public AddRecipeToGroceryHandler(SpoonacularService spoonacularService, Map<String, User> users) {
+  public AddRecipeToGroceryHandler(SpoonacularService spoonacularService, UserRepository users,
+      GroceryEventBus events) {
     this.spoonacularService = spoonacularService;
     this.users = users;
+    this.events = events;
 
-    Moshi moshi = new Moshi.Builder().build();
-    Type type = Types.newParameterizedType(Map.class, String.class, Object.class);
-    this.adapter = moshi.adapter(type);
+    this.adapter = JsonCodec.MAP_ADAPTER;
   }
 
   @Override
@@ -37,10 +39,9 @@ public class AddRecipeToGroceryHandler implements Route {
 
     try {
       // Parse request body
-      String body = request.body();
-      Map<String, Object> requestMap = adapter.fromJson(body);
+      UserRequest userRequest = JsonCodec.readRequest(request.body());
 
-      if (requestMap == null) {
+      if (userRequest == null) {
         responseMap.put("result", "error_bad_request");
         responseMap.put("message", "Invalid JSON body");
         response.status(400);
@@ -48,36 +49,35 @@ public class AddRecipeToGroceryHandler implements Route {
       }
 
       // Extract userId and recipeId
-      String userId = (String) requestMap.get("userId");
-      Double recipeIdDouble = (Double) requestMap.get("recipeId");
+      String userId = userRequest.getUserId();
+      Integer recipeId = userRequest.getRecipeId();
 
-      if (userId == null || recipeIdDouble == null) {
+      if (userId == null || recipeId == null) {
         responseMap.put("result", "error_bad_request");
         responseMap.put("message", "User ID and recipe ID are required");
         response.status(400);
         return adapter.toJson(responseMap);
       }
 
-      int recipeId = recipeIdDouble.intValue();
+      // Get the user, creating it if needed
+      User user = users.getOrCreate(userId);
 
-      // Check if user exists
-      if (!users.containsKey(userId)) {
-        // Create a new user if not exists
-        users.put(userId, new User(userId, "", ""));
-      }
-
-      // Get the user
-      User user = users.get(userId);
-
-      // Get recipe details
+      // Get recipe details; fetched before taking the user's lock, which it doesn't need
       Recipe recipe = spoonacularService.getRecipeById(recipeId);
 
-      // Compare recipe with pantry to get missing ingredients
-      Map<String, Object> pantryComparison = user.getPantry().compareWithRecipe(recipe);
-      List<Ingredient> missingIngredients = (List<Ingredient>) pantryComparison.get("missingIngredients");
-
-      // Add missing ingredients to grocery list
-      user.getGroceryList().addIngredients(missingIngredients);
+      List<Ingredient> missingIngredients;
+      long version;
+      synchronized (user) {
+        // Compare recipe with pantry to get missing ingredients
+        Map<String, Object> pantryComparison = user.getPantry().compareWithRecipe(recipe);
+        missingIngredients = (List<Ingredient>) pantryComparison.get("missingIngredients");
+
+        // Add missing ingredients to grocery list
+        version = user.getGroceryList().getVersion();
+        user.getGroceryList().addIngredients(missingIngredients);
+        users.save(user);
+        GroceryEventsHandler.publishChanges(events, userId, user.getGroceryList(), version);
+      }
 
       responseMap.put("result", "success");
       responseMap.put("message", "Recipe ingredients added to grocery list");
@@ -1,21 +1,20 @@
 package main.edu.brown.cs.student.main.server.handlers;
 
 import com.squareup.moshi.JsonAdapter;
-import com.squareup.moshi.Moshi;
-import com.squareup.moshi.Types;
+import main.edu.brown.cs.student.main.server.codec.JsonCodec;
 import main.edu.brown.cs.student.main.server.model.User;
 import main.edu.brown.cs.student.main.server.service.SpoonacularService;
+import main.edu.brown.cs.student.main.server.repository.UserRepository;
 import spark.Request;
 import spark.Response;
 import spark.Route;
 
-import java.lang.reflect.Type;
 import java.util.*;
 
 public class AllergenHandler implements Route {
   private final SpoonacularService spoonacularService;
   private final JsonAdapter<Map<String, Object>> adapter;
-  private final Map<String, User> users;
+  private final UserRepository users;
 
   // Supported allergens list
   private final List<String> supportedAllergens = Arrays.asList(
@@ -23,13 +22,11 @@ public class AllergenHandler implements Route {
       "sesame", "shellfish", "soy", "sulfite", "tree nut", "wheat"
   );
 
-  public AllergenHandler(SpoonacularService spoonacularService, Map<String, User> users) {
+  public AllergenHandler(SpoonacularService spoonacularService, UserRepository users) {
     this.spoonacularService = spoonacularService;
     this.users = users;
 
-    Moshi moshi = new Moshi.Builder().build();
-    Type type = Types.newParameterizedType(Map.class, String.class, Object.class);
-    this.adapter = moshi.adapter(type);
+    this.adapter = JsonCodec.MAP_ADAPTER;
   }
 
   @Override
@@ -55,17 +52,14 @@ public class AllergenHandler implements Route {
           return adapter.toJson(responseMap);
         }
 
-        // Check if user exists
-        if (!users.containsKey(userId)) {
-          // Create a new user if not exists
-          users.put(userId, new User(userId, "", ""));
-        }
-
-        // Get user
-        User user = users.get(userId);
+        // Get the user, creating it if needed
+        User user = users.getOrCreate(userId);
 
         // Get user's allergens
-        List<String> allergens = user.getAllergies();
+        List<String> allergens;
+        synchronized (user) {
+          allergens = new ArrayList<>(user.getAllergies());
+        }
 
         responseMap.put("result", "success");
         responseMap.put("allergens", allergens);
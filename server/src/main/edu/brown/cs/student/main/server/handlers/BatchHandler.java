@@ -0,0 +1,227 @@
+package main.edu.brown.cs.student.main.server.handlers;
+
+import com.squareup.moshi.JsonAdapter;
+import main.edu.brown.cs.student.main.server.codec.BatchRequest;
+import main.edu.brown.cs.student.main.server.codec.JsonCodec;
+import main.edu.brown.cs.student.main.server.events.GroceryEventBus;
+import main.edu.brown.cs.student.main.server.model.GroceryItem;
+import main.edu.brown.cs.student.main.server.model.GroceryList;
+import main.edu.brown.cs.student.main.server.model.Ingredient;
+import main.edu.brown.cs.student.main.server.model.Pantry;
+import main.edu.brown.cs.student.main.server.model.User;
+import main.edu.brown.cs.student.main.server.repository.UserRepository;
+import spark.Request;
+import spark.Response;
+import spark.Route;
+
+import java.util.*;
+
+/**
+ * Applies an ordered list of grocery list and pantry operations for one user in a single request.
+ *
+ * Supported operations:
+ *   {"op": "add", "list": "grocery" | "pantry", "ingredientName": ...}
+ *   {"op": "delete", "list": "grocery", "itemId" | "ingredientName": ...}
+ *   {"op": "delete", "list": "pantry", "ingredientName": ...}
+ *   {"op": "check", "itemId" | "ingredientName": ..., "checked": true | false}
+ *   {"op": "move-to-pantry", "itemId" | "ingredientName": ...}
+ *
+ * Operations run in order while holding the user's lock, so no other request interleaves with the
+ * batch. Each one succeeds or fails on its own, even if it throws, and the response has one result
+ * per operation. The user is saved once at the end, with every operation that was applied.
+ */
+public class BatchHandler implements Route {
+  // Bounds the time the user's lock is held by a single request
+  private static final int MAX_OPERATIONS = 500;
+
+  private final JsonAdapter<Map<String, Object>> adapter;
+  private final UserRepository users;
+  private final GroceryEventBus events;
+
+  public BatchHandler(UserRepository users, GroceryEventBus events) {
+    this.users = users;
+    this.events = events;
+
+    this.adapter = JsonCodec.MAP_ADAPTER;
+  }
+
+  @Override
+  public Object handle(Request request, Response response) {
+    Map<String, Object> responseMap = new HashMap<>();
+    response.type("application/json");
+
+    try {
+      // Parse request body
+      BatchRequest batchRequest = JsonCodec.readBatchRequest(request.body());
+
+      if (batchRequest == null) {
+        responseMap.put("result", "error_bad_request");
+        responseMap.put("message", "Invalid JSON body");
+        response.status(400);
+        return adapter.toJson(responseMap);
+      }
+
+      // Extract userId and the operations
+      String userId = batchRequest.getUserId();
+      List<BatchRequest.Operation> operations = batchRequest.getOperations();
+
+      if (userId == null || operations == null) {
+        responseMap.put("result", "error_bad_request");
+        responseMap.put("message", "User ID and a list of operations are required");
+        response.status(400);
+        return adapter.toJson(responseMap);
+      }
+      if (operations.size() > MAX_OPERATIONS) {
+        responseMap.put("result", "error_bad_request");
+        responseMap.put("message", "At most " + MAX_OPERATIONS + " operations are allowed per batch");
+        response.status(400);
+        return adapter.toJson(responseMap);
+      }
+
+      // Get the user, creating it if needed
+      User user = users.getOrCreate(userId);
+
+      List<Map<String, Object>> results = new ArrayList<>(operations.size());
+      long groceryVersionBefore;
+      synchronized (user) {
+        groceryVersionBefore = user.getGroceryList().getVersion();
+        try {
+          for (BatchRequest.Operation operation : operations) {
+            results.add(applyOne(user, operation));
+          }
+        } finally {
+          // Keep whatever was applied, even if the batch stopped part-way
+          users.save(user);
+        }
+
+        responseMap.put("groceryVersion", user.getGroceryList().getVersion());
+        responseMap.put("pantryVersion", user.getPantry().getVersion());
+        GroceryEventsHandler.publishChanges(events, userId, user.getGroceryList(),
+            groceryVersionBefore);
+      }
+
+      responseMap.put("result", "success");
+      responseMap.put("results", results);
+
+    } catch (Exception e) {
+      responseMap.put("result", "error_processing");
+      responseMap.put("message", "Failed to apply batch: " + e.getMessage());
+      response.status(500);
+    }
+
+    return adapter.toJson(responseMap);
+  }
+
+  // Apply one operation, turning anything it throws into that operation's result
+  private Map<String, Object> applyOne(User user, BatchRequest.Operation operation) {
+    if (operation == null) {
+      return error("error_bad_request", "Operation must be an object");
+    }
+    try {
+      return apply(user, operation);
+    } catch (RuntimeException e) {
+      return error("error_processing", "Failed to apply operation: " + e.getMessage());
+    }
+  }
+
+  private Map<String, Object> apply(User user, BatchRequest.Operation operation) {
+    String op = String.valueOf(operation.getOp());
+    String list = operation.getList();
+    String ingredientName = operation.getIngredientName();
+
+    switch (op) {
+      case "add":
+        if (ingredientName == null) {
+          return error("error_bad_request", "Ingredient name is required");
+        }
+        if ("grocery".equals(list)) {
+          user.getGroceryList().addIngredient(manualIngredient(ingredientName));
+          return success("Ingredient added to grocery list");
+        } else if ("pantry".equals(list)) {
+          user.getPantry().addIngredient(manualIngredient(ingredientName));
+          return success("Ingredient added to pantry");
+        }
+        return error("error_bad_request", "List must be grocery or pantry");
+
+      case "delete":
+        if ("pantry".equals(list)) {
+          return deleteFromPantry(user.getPantry(), ingredientName);
+        } else if ("grocery".equals(list)) {
+          return applyToGroceryItem(user, "delete", operation);
+        }
+        return error("error_bad_request", "List must be grocery or pantry");
+
+      case "check":
+      case "move-to-pantry":
+        return applyToGroceryItem(user, op, operation);
+
+      default:
+        return error("error_bad_request", "Unknown operation: " + op);
+    }
+  }
+
+  private Map<String, Object> deleteFromPantry(Pantry pantry, String ingredientName) {
+    Ingredient ingredient = pantry.getIngredient(ingredientName);
+    if (ingredient == null) {
+      return error("error_not_found", "Ingredient not found in pantry");
+    }
+    pantry.removeIngredient(ingredient);
+    return success("Ingredient removed from pantry");
+  }
+
+  // Delete, check or move one grocery item, found by id or by its display text
+  private Map<String, Object> applyToGroceryItem(User user, String op,
+      BatchRequest.Operation operation) {
+    GroceryList groceryList = user.getGroceryList();
+    GroceryItem item = null;
+    if (operation.getItemId() != null) {
+      item = groceryList.getItem(operation.getItemId());
+    } else if (operation.getIngredientName() != null) {
+      item = groceryList.findItemByDisplayString(operation.getIngredientName());
+    }
+    if (item == null) {
+      return error("error_not_found", "Ingredient not found in grocery list");
+    }
+
+    Map<String, Object> result;
+    if ("delete".equals(op)) {
+      groceryList.removeItem(item.getId());
+      result = success("Ingredient removed from grocery list");
+    } else if ("check".equals(op)) {
+      boolean checked = !Boolean.FALSE.equals(operation.getChecked());
+      groceryList.setChecked(item.getId(), checked);
+      result = success(checked ? "Item checked" : "Item unchecked");
+    } else {
+      groceryList.removeItem(item.getId());
+      user.getPantry().addIngredient(new Ingredient(item.getIngredient()));
+      result = success("Ingredient moved to pantry");
+    }
+    result.put("itemId", item.getId());
+    return result;
+  }
+
+  // Ingredients added by name, as the single add-ingredient endpoints create them
+  private static Ingredient manualIngredient(String ingredientName) {
+    Ingredient ingredient = new Ingredient();
+    ingredient.setName(ingredientName);
+    ingredient.setOriginalString(ingredientName);
+    ingredient.setAisle("Other"); // Default aisle for manually added items
+    ingredient.setAmount(1.0); // Default amount
+    ingredient.setUnit(""); // No unit for string-based items
+    return ingredient;
+  }
+
+  private static Map<String, Object> success(String message) {
+    Map<String, Object> result = new HashMap<>();
+    result.put("result", "success");
+    result.put("message", message);
+    return result;
+  }
+
+  private static Map<String, Object> error(String code, String message) {
+    Map<String, Object> result = new HashMap<>();
+    result.put("result", code);
+    result.put("message", message);
+    return result;
+  }
+}
@@ -0,0 +1,63 @@
+package main.edu.brown.cs.student.main.server.handlers;
+
+import com.squareup.moshi.JsonAdapter;
+import main.edu.brown.cs.student.main.server.codec.JsonCodec;
+import main.edu.brown.cs.student.main.server.cache.ResponseCache;
+import main.edu.brown.cs.student.main.server.service.CachingSpoonacularService;
+import main.edu.brown.cs.student.main.server.store.RecipeStore;
+import spark.Request;
+import spark.Response;
+import spark.Route;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class CacheStatsHandler implements Route {
+  private final CachingSpoonacularService cachingService;
+  private final ResponseCache responses;
+  private final JsonAdapter<Map<String, Object>> adapter;
+
+  public CacheStatsHandler(CachingSpoonacularService cachingService, ResponseCache responses) {
+    this.cachingService = cachingService;
+    this.responses = responses;
+
+    this.adapter = JsonCodec.MAP_ADAPTER;
+  }
+
+  @Override
+  public Object handle(Request request, Response response) {
+    Map<String, Object> responseMap = new HashMap<>();
+    response.type("application/json");
+
+    try {
+      responseMap.put("result", "success");
+      responseMap.put("recipeCache", cachingService.getRecipeCacheStats());
+      responseMap.put("coalescedRequests", cachingService.getCoalescedRequests());
+      responseMap.put("responseCache", responses.stats());
+      if (cachingService.getSearchResults() != null) {
+        responseMap.put("searchCache", cachingService.getSearchResults().stats());
+      }
+      if (cachingService.getSearchIndex() != null) {
+        responseMap.put("searchIndex", cachingService.getSearchIndex().stats());
+      }
+
+      RecipeStore recipeStore = cachingService.getRecipeStore();
+      if (recipeStore != null) {
+        Map<String, Object> storeStats = new HashMap<>();
+        storeStats.put("recipes", recipeStore.size());
+        storeStats.put("bytes", recipeStore.sizeInBytes());
+        storeStats.put("failures", cachingService.getStoreFailures());
+        if (cachingService.getLastStoreFailure() != null) {
+          storeStats.put("lastFailure", cachingService.getLastStoreFailure());
+        }
+        responseMap.put("recipeStore", storeStats);
+      }
+    } catch (Exception e) {
+      responseMap.put("result", "error_processing");
+      responseMap.put("message", "Failed to read cache statistics: " + e.getMessage());
+      response.status(500);
+    }
+
+    return adapter.toJson(responseMap);
+  }
+}
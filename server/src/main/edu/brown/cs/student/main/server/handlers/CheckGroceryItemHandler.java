@@ -1,29 +1,30 @@
 package main.edu.brown.cs.student.main.server.handlers;
 
 import com.squareup.moshi.JsonAdapter;
-import com.squareup.moshi.Moshi;
-import com.squareup.moshi.Types;
-import main.edu.brown.cs.student.main.server.model.Ingredient;
+import main.edu.brown.cs.student.main.server.codec.JsonCodec;
+import main.edu.brown.cs.student.main.server.codec.UserRequest;
+import main.edu.brown.cs.student.main.server.events.GroceryEventBus;
+import main.edu.brown.cs.student.main.server.model.GroceryItem;
+import main.edu.brown.cs.student.main.server.model.GroceryList;
 import main.edu.brown.cs.student.main.server.model.User;
+import main.edu.brown.cs.student.main.server.repository.UserRepository;
 import spark.Request;
 import spark.Response;
 import spark.Route;
 
-import java.lang.reflect.Type;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 public class CheckGroceryItemHandler implements Route {
   private final JsonAdapter<Map<String, Object>> adapter;
-  private final Map<String, User> users;
+  private final UserRepository users;
+  private final GroceryEventBus events;
 
-  public CheckGroceryItemHandler(Map<String, User> users) {
+  public CheckGroceryItemHandler(UserRepository users, GroceryEventBus events) {
     this.users = users;
+    this.events = events;
 
-    Moshi moshi = new Moshi.Builder().build();
-    Type type = Types.newParameterizedType(Map.class, String.class, Object.class);
-    this.adapter = moshi.adapter(type);
+    this.adapter = JsonCodec.MAP_ADAPTER;
   }
 
   @Override
@@ -33,30 +34,31 @@ public class CheckGroceryItemHandler implements Route {
 
     try {
       // Parse request body
-      String body = request.body();
-      Map<String, Object> requestMap = adapter.fromJson(body);
+      UserRequest userRequest = JsonCodec.readRequest(request.body());
 
-      if (requestMap == null) {
+      if (userRequest == null) {
         responseMap.put("result", "error_bad_request");
         responseMap.put("message", "Invalid JSON body");
         response.status(400);
         return adapter.toJson(responseMap);
       }
 
-      // Extract userId, ingredientName, and checked status
-      String userId = (String) requestMap.get("userId");
-      String ingredientName = (String) requestMap.get("ingredientName");
-      Boolean isChecked = (Boolean) requestMap.get("checked");
+      // Extract userId, itemId or ingredientName, and checked status
+      String userId = userRequest.getUserId();
+      Long itemId = userRequest.getItemId();
+      String ingredientName = userRequest.getIngredientName();
+      Boolean isChecked = userRequest.getChecked();
 
-      if (userId == null || ingredientName == null || isChecked == null) {
+      if (userId == null || (itemId == null && ingredientName == null) || isChecked == null) {
         responseMap.put("result", "error_bad_request");
-        responseMap.put("message", "User ID, ingredient name, and checked status are required");
+        responseMap.put("message",
+            "User ID, item ID or ingredient name, and checked status are required");
         response.status(400);
         return adapter.toJson(responseMap);
       }
 
       // Check if user exists
-      if (!users.containsKey(userId)) {
+      if (!users.contains(userId)) {
         responseMap.put("result", "error_bad_request");
         responseMap.put("message", "User not found");
         response.status(404);
@@ -66,40 +68,35 @@ public class CheckGroceryItemHandler implements Route {
       // Get the user
       User user = users.get(userId);
 
-      // Find the ingredient in the grocery list
-      List<Ingredient> allIngredients = user.getGroceryList().getAllIngredients();
-      Ingredient targetIngredient = null;
-
-      for (Ingredient ingredient : allIngredients) {
-        String itemString = ingredient.getOriginalString() != null
-            ? ingredient.getOriginalString()
-            : (ingredient.getAmount() != 0 ? ingredient.getAmount() + " " : "") +
-                (ingredient.getUnit() != null ? ingredient.getUnit() + " " : "") +
-                ingredient.getName();
-
-        if (itemString.equals(ingredientName)) {
-          targetIngredient = ingredient;
-          break;
+      GroceryList groceryList = user.getGroceryList();
+      long version;
+      GroceryItem item;
+      String displayString;
+      synchronized (user) {
+        // Find the item by id, or by its display text for older clients
+        item = itemId != null
+            ? groceryList.getItem(itemId)
+            : groceryList.findItemByDisplayString(ingredientName);
+
+        if (item == null) {
+          responseMap.put("result", "error_bad_request");
+          responseMap.put("message", "Ingredient not found in grocery list");
+          response.status(404);
+          return adapter.toJson(responseMap);
         }
-      }
-
-      if (targetIngredient == null) {
-        responseMap.put("result", "error_bad_request");
-        responseMap.put("message", "Ingredient not found in grocery list");
-        response.status(404);
-        return adapter.toJson(responseMap);
-      }
 
-      // Check or uncheck the item
-      if (isChecked) {
-        user.getGroceryList().checkItem(targetIngredient);
-      } else {
-        user.getGroceryList().uncheckItem(targetIngredient);
+        // Check or uncheck the item
+        version = groceryList.getVersion();
+        groceryList.setChecked(item.getId(), isChecked);
+        users.save(user);
+        displayString = item.getDisplayString();
+        GroceryEventsHandler.publishChanges(events, userId, groceryList, version);
       }
 
       responseMap.put("result", "success");
       responseMap.put("message", isChecked ? "Item checked" : "Item unchecked");
-      responseMap.put("ingredient", ingredientName);
+      responseMap.put("itemId", item.getId());
+      responseMap.put("ingredient", displayString);
       responseMap.put("checked", isChecked);
 
     } catch (Exception e) {
@@ -1,27 +1,28 @@
 package main.edu.brown.cs.student.main.server.handlers;
 
 import com.squareup.moshi.JsonAdapter;
-import com.squareup.moshi.Moshi;
-import com.squareup.moshi.Types;
+import main.edu.brown.cs.student.main.server.codec.JsonCodec;
+import main.edu.brown.cs.student.main.server.codec.UserRequest;
+import main.edu.brown.cs.student.main.server.events.GroceryEventBus;
 import main.edu.brown.cs.student.main.server.model.User;
+import main.edu.brown.cs.student.main.server.repository.UserRepository;
 import spark.Request;
 import spark.Response;
 import spark.Route;
 
-import java.lang.reflect.Type;
 import java.util.HashMap;
 import java.util.Map;
 
 public class ClearGroceryListHandler implements Route {
   private final JsonAdapter<Map<String, Object>> adapter;
-  private final Map<String, User> users;
+  private final UserRepository users;
+  private final GroceryEventBus events;
 
-  public ClearGroceryListHandler(Map<String, User> users) {
+  public ClearGroceryListHandler(UserRepository users, GroceryEventBus events) {
     this.users = users;
+    this.events = events;
 
-    Moshi moshi = new Moshi.Builder().build();
-    Type type = Types.newParameterizedType(Map.class, String.class, Object.class);
-    this.adapter = moshi.adapter(type);
+    this.adapter = JsonCodec.MAP_ADAPTER;
   }
 
   @Override
@@ -31,10 +32,9 @@ public class ClearGroceryListHandler implements Route {
 
     try {
       // Parse request body
-      String body = request.body();
-      Map<String, Object> requestMap = adapter.fromJson(body);
+      UserRequest userRequest = JsonCodec.readRequest(request.body());
 
-      if (requestMap == null) {
+      if (userRequest == null) {
         responseMap.put("result", "error_bad_request");
         responseMap.put("message", "Invalid JSON body");
         response.status(400);
@@ -42,7 +42,7 @@ public class ClearGroceryListHandler implements Route {
       }
 
       // Extract userId
-      String userId = (String) requestMap.get("userId");
+      String userId = userRequest.getUserId();
 
       if (userId == null) {
         responseMap.put("result", "error_bad_request");
@@ -52,7 +52,7 @@ public class ClearGroceryListHandler implements Route {
       }
 
       // Check if user exists
-      if (!users.containsKey(userId)) {
+      if (!users.contains(userId)) {
         responseMap.put("result", "error_bad_request");
         responseMap.put("message", "User not found");
         response.status(404);
@@ -63,8 +63,13 @@ public class ClearGroceryListHandler implements Route {
       User user = users.get(userId);
 
       // Clear the grocery list
-      user.getGroceryList().getIngredientsByAisle().clear();
-      user.getGroceryList().getCheckedItems().clear();
+      long version;
+      synchronized (user) {
+        version = user.getGroceryList().getVersion();
+        user.getGroceryList().clearGroceryList();
+        users.save(user);
+        GroceryEventsHandler.publishChanges(events, userId, user.getGroceryList(), version);
+      }
 
       responseMap.put("result", "success");
       responseMap.put("message", "Grocery list cleared successfully");
@@ -1,27 +1,25 @@
 package main.edu.brown.cs.student.main.server.handlers;
 
 import com.squareup.moshi.JsonAdapter;
-import com.squareup.moshi.Moshi;
-import com.squareup.moshi.Types;
+import main.edu.brown.cs.student.main.server.codec.JsonCodec;
+import main.edu.brown.cs.student.main.server.codec.UserRequest;
 import main.edu.brown.cs.student.main.server.model.User;
+import main.edu.brown.cs.student.main.server.repository.UserRepository;
 import spark.Request;
 import spark.Response;
 import spark.Route;
 
-import java.lang.reflect.Type;
 import java.util.HashMap;
 import java.util.Map;
 
 public class ClearPantryHandler implements Route {
   private final JsonAdapter<Map<String, Object>> adapter;
-  private final Map<String, User> users;
+  private final UserRepository users;
 
-  public ClearPantryHandler(Map<String, User> users) {
+  public ClearPantryHandler(UserRepository users) {
     this.users = users;
 
-    Moshi moshi = new Moshi.Builder().build();
-    Type type = Types.newParameterizedType(Map.class, String.class, Object.class);
-    this.adapter = moshi.adapter(type);
+    this.adapter = JsonCodec.MAP_ADAPTER;
   }
 
   @Override
@@ -31,10 +29,9 @@ public class ClearPantryHandler implements Route {
 
     try {
       // Parse request body
-      String body = request.body();
-      Map<String, Object> requestMap = adapter.fromJson(body);
+      UserRequest userRequest = JsonCodec.readRequest(request.body());
 
-      if (requestMap == null) {
+      if (userRequest == null) {
         responseMap.put("result", "error_bad_request");
         responseMap.put("message", "Invalid JSON body");
         response.status(400);
@@ -42,7 +39,7 @@ public class ClearPantryHandler implements Route {
       }
 
       // Extract userId
-      String userId = (String) requestMap.get("userId");
+      String userId = userRequest.getUserId();
 
       if (userId == null) {
         responseMap.put("result", "error_bad_request");
@@ -52,7 +49,7 @@ public class ClearPantryHandler implements Route {
       }
 
       // Check if user exists
-      if (!users.containsKey(userId)) {
+      if (!users.contains(userId)) {
         responseMap.put("result", "error_bad_request");
         responseMap.put("message", "User not found");
         response.status(404);
@@ -63,7 +60,10 @@ public class ClearPantryHandler implements Route {
       User user = users.get(userId);
 
       // Clear the pantry
-      user.getPantry().getIngredientsByCategory().clear();
+      synchronized (user) {
+        user.getPantry().clear();
+        users.save(user);
+      }
 
       responseMap.put("result", "success");
       responseMap.put("message", "Pantry cleared successfully");
@@ -0,0 +1,102 @@
+package main.edu.brown.cs.student.main.server.handlers;
+
+import com.squareup.moshi.JsonAdapter;
+import main.edu.brown.cs.student.main.server.codec.JsonCodec;
+import main.edu.brown.cs.student.main.server.model.PantrySnapshot;
+import main.edu.brown.cs.student.main.server.model.PantryView;
+import main.edu.brown.cs.student.main.server.model.Recipe;
+import main.edu.brown.cs.student.main.server.model.User;
+import main.edu.brown.cs.student.main.server.repository.UserRepository;
+import main.edu.brown.cs.student.main.server.service.RecipeSearchIndex;
+import spark.Request;
+import spark.Response;
+import spark.Route;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * "What can I cook now": the locally indexed recipes that make the most of a user's pantry,
+ * ranked without any upstream call
+ */
+public class CookNowHandler implements Route {
+  private static final int DEFAULT_NUMBER = 10;
+  private static final int MAX_NUMBER = 100;
+
+  private final RecipeSearchIndex searchIndex;
+  private final JsonAdapter<Map<String, Object>> adapter;
+  private final UserRepository users;
+
+  /**
+   * @param searchIndex the recipe corpus to rank, or null if the index is disabled
+   */
+  public CookNowHandler(RecipeSearchIndex searchIndex, UserRepository users) {
+    this.searchIndex = searchIndex;
+    this.users = users;
+
+    this.adapter = JsonCodec.MAP_ADAPTER;
+  }
+
+  @Override
+  public Object handle(Request request, Response response) {
+    Map<String, Object> responseMap = new HashMap<>();
+    response.type("application/json");
+
+    try {
+      String userId = request.queryParams("userId");
+      if (userId == null) {
+        responseMap.put("result", "error_bad_request");
+        responseMap.put("message", "User ID is required");
+        response.status(400);
+        return adapter.toJson(responseMap);
+      }
+
+      String numberParam = request.queryParams("number");
+      int number = numberParam != null ? Integer.parseInt(numberParam) : DEFAULT_NUMBER;
+      if (number < 1 || number > MAX_NUMBER) {
+        responseMap.put("result", "error_bad_request");
+        responseMap.put("message", "Number must be between 1 and " + MAX_NUMBER);
+        response.status(400);
+        return adapter.toJson(responseMap);
+      }
+
+      if (!users.contains(userId)) {
+        responseMap.put("result", "error_not_found");
+        responseMap.put("message", "User not found");
+        response.status(404);
+        return adapter.toJson(responseMap);
+      }
+
+      if (searchIndex == null) {
+        responseMap.put("result", "error_unavailable");
+        responseMap.put("message", "The local recipe index is disabled");
+        response.status(503);
+        return adapter.toJson(responseMap);
+      }
+
+      // Rank and annotate against one snapshot, so both see the same pantry, with no lock
+      User user = users.get(userId);
+      PantrySnapshot pantry = user.getPantry().snapshot();
+      List<Recipe> recipes = searchIndex.cookNow(pantry.getIngredients(), number);
+      PantryView view = pantry.view();
+      for (Recipe recipe : recipes) {
+        view.match(recipe).applyTo(recipe);
+      }
+
+      responseMap.put("result", "success");
+      responseMap.put("recipes", recipes);
+
+    } catch (NumberFormatException e) {
+      responseMap.put("result", "error_bad_request");
+      responseMap.put("message", "Invalid number format");
+      response.status(400);
+    } catch (Exception e) {
+      responseMap.put("result", "error_processing");
+      responseMap.put("message", "Failed to rank recipes: " + e.getMessage());
+      response.status(500);
+    }
+
+    return adapter.toJson(responseMap);
+  }
+}
@@ -1,29 +1,30 @@
 package main.edu.brown.cs.student.main.server.handlers;
 
 import com.squareup.moshi.JsonAdapter;
-import com.squareup.moshi.Moshi;
-import com.squareup.moshi.Types;
-import main.edu.brown.cs.student.main.server.model.Ingredient;
+import main.edu.brown.cs.student.main.server.codec.JsonCodec;
+import main.edu.brown.cs.student.main.server.codec.UserRequest;
+import main.edu.brown.cs.student.main.server.events.GroceryEventBus;
+import main.edu.brown.cs.student.main.server.model.GroceryItem;
+import main.edu.brown.cs.student.main.server.model.GroceryList;
 import main.edu.brown.cs.student.main.server.model.User;
+import main.edu.brown.cs.student.main.server.repository.UserRepository;
 import spark.Request;
 import spark.Response;
 import spark.Route;
 
-import java.lang.reflect.Type;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 public class DeleteGroceryIngredientHandler implements Route {
   private final JsonAdapter<Map<String, Object>> adapter;
-  private final Map<String, User> users;
+  private final UserRepository users;
+  private final GroceryEventBus events;
 
-  public DeleteGroceryIngredientHandler(Map<String, User> users) {
+  public DeleteGroceryIngredientHandler(UserRepository users, GroceryEventBus events) {
     this.users = users;
+    this.events = events;
 
-    Moshi moshi = new Moshi.Builder().build();
-    Type type = Types.newParameterizedType(Map.class, String.class, Object.class);
-    this.adapter = moshi.adapter(type);
+    this.adapter = JsonCodec.MAP_ADAPTER;
   }
 
   @Override
@@ -33,29 +34,29 @@ public class DeleteGroceryIngredientHandler implements Route {
 
     try {
       // Parse request body
-      String body = request.body();
-      Map<String, Object> requestMap = adapter.fromJson(body);
+      UserRequest userRequest = JsonCodec.readRequest(request.body());
 
-      if (requestMap == null) {
+      if (userRequest == null) {
         responseMap.put("result", "error_bad_request");
         responseMap.put("message", "Invalid JSON body");
         response.status(400);
         return adapter.toJson(responseMap);
       }
 
-      // Extract userId and ingredientName
-      String userId = (String) requestMap.get("userId");
-      String ingredientName = (String) requestMap.get("ingredientName");
+      // Extract userId and itemId or ingredientName
+      String userId = userRequest.getUserId();
+      Long itemId = userRequest.getItemId();
+      String ingredientName = userRequest.getIngredientName();
 
-      if (userId == null || ingredientName == null) {
+      if (userId == null || (itemId == null && ingredientName == null)) {
         responseMap.put("result", "error_bad_request");
-        responseMap.put("message", "User ID and ingredient name are required");
+        responseMap.put("message", "User ID and item ID or ingredient name are required");
         response.status(400);
         return adapter.toJson(responseMap);
       }
 
       // Check if user exists
-      if (!users.containsKey(userId)) {
+      if (!users.contains(userId)) {
         responseMap.put("result", "error_bad_request");
         responseMap.put("message", "User not found");
         response.status(404);
@@ -65,37 +66,34 @@ public class DeleteGroceryIngredientHandler implements Route {
       // Get the user
       User user = users.get(userId);
 
-      // Find and remove the ingredient from the grocery list
-      List<Ingredient> allIngredients = user.getGroceryList().getAllIngredients();
-      Ingredient targetIngredient = null;
-
-      for (Ingredient ingredient : allIngredients) {
-        String itemString = ingredient.getOriginalString() != null
-            ? ingredient.getOriginalString()
-            : (ingredient.getAmount() != 0 ? ingredient.getAmount() + " " : "") +
-                (ingredient.getUnit() != null ? ingredient.getUnit() + " " : "") +
-                ingredient.getName();
-
-        if (itemString.equals(ingredientName)) {
-          targetIngredient = ingredient;
-          break;
+      GroceryList groceryList = user.getGroceryList();
+      long version;
+      GroceryItem item;
+      synchronized (user) {
+        // Find the item by id, or by its display text for older clients
+        item = itemId != null
+            ? groceryList.getItem(itemId)
+            : groceryList.findItemByDisplayString(ingredientName);
+
+        if (item == null) {
+          responseMap.put("result", "error_bad_request");
+          responseMap.put("message", "Ingredient not found in grocery list");
+          response.status(404);
+          return adapter.toJson(responseMap);
         }
-      }
 
-      if (targetIngredient == null) {
-        responseMap.put("result", "error_bad_request");
-        responseMap.put("message", "Ingredient not found in grocery list");
-        response.status(404);
-        return adapter.toJson(responseMap);
+        // Remove the item; its checked flag goes with it. Once off the list nothing changes it,
+        // so it can be read after the lock is released.
+        version = groceryList.getVersion();
+        groceryList.removeItem(item.getId());
+        users.save(user);
+        GroceryEventsHandler.publishChanges(events, userId, groceryList, version);
       }
 
-      // Remove from grocery list and checked items
-      user.getGroceryList().removeIngredient(targetIngredient);
-      user.getGroceryList().uncheckItem(targetIngredient);
-
       responseMap.put("result", "success");
       responseMap.put("message", "Ingredient removed from grocery list");
-      responseMap.put("ingredient", ingredientName);
+      responseMap.put("itemId", item.getId());
+      responseMap.put("ingredient", item.getDisplayString());
 
     } catch (Exception e) {
       responseMap.put("result", "error_processing");
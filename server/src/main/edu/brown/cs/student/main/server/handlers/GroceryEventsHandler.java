@@ -0,0 +1,135 @@
+package main.edu.brown.cs.student.main.server.handlers;
+
+import com.squareup.moshi.JsonAdapter;
+import main.edu.brown.cs.student.main.server.codec.JsonCodec;
+import main.edu.brown.cs.student.main.server.events.GroceryEventBus;
+import main.edu.brown.cs.student.main.server.model.ChangeLog;
+import main.edu.brown.cs.student.main.server.model.GroceryItem;
+import main.edu.brown.cs.student.main.server.model.GroceryList;
+import main.edu.brown.cs.student.main.server.model.User;
+import main.edu.brown.cs.student.main.server.repository.UserRepository;
+import spark.Request;
+import spark.Response;
+import spark.Route;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streams a user's grocery list changes as Server-Sent Events.
+ *
+ * Each event is one change from the list's change log: the SSE id is the list version, the event
+ * name is the change op (add, update, remove, clear) and the data is the item as
+ * GroceryListHandler returns it. Handlers publish while holding the user's lock, and the bus drops
+ * any event not newer than the last one sent, so ids only increase. A "resync" event means events
+ * were dropped because the client fell behind; it should catch up through
+ * /grocery/changes?since= with the last id it saw.
+ */
+public class GroceryEventsHandler implements Route {
+  private final JsonAdapter<Map<String, Object>> adapter;
+  private final UserRepository users;
+  private final GroceryEventBus events;
+  private final long heartbeatMillis;
+
+  public GroceryEventsHandler(UserRepository users, GroceryEventBus events, long heartbeatMillis) {
+    this.users = users;
+    this.events = events;
+    this.heartbeatMillis = heartbeatMillis;
+
+    this.adapter = JsonCodec.MAP_ADAPTER;
+  }
+
+  @Override
+  public Object handle(Request request, Response response) {
+    Map<String, Object> responseMap = new HashMap<>();
+
+    String userId = request.params(":userId");
+    if (userId == null) {
+      response.type("application/json");
+      responseMap.put("result", "error_bad_request");
+      responseMap.put("message", "User ID is required");
+      response.status(400);
+      return adapter.toJson(responseMap);
+    }
+
+    GroceryEventBus.Subscription subscription = events.subscribe(userId);
+    if (subscription == null) {
+      response.type("application/json");
+      responseMap.put("result", "error_unavailable");
+      responseMap.put("message", "Too many open event streams, poll /grocery/changes instead");
+      response.status(503);
+      return adapter.toJson(responseMap);
+    }
+
+    try (subscription) {
+      // Subscribe before reading the version, so no change falls between the two
+      User user = users.getOrCreate(userId);
+      long version = user.getGroceryList().getVersion();
+      // The client starts from this version, so changes up to it must not be sent again
+      subscription.skipThrough(version);
+
+      HttpServletResponse raw = response.raw();
+      raw.setStatus(200);
+      raw.setContentType("text/event-stream");
+      raw.setCharacterEncoding("UTF-8");
+      raw.setHeader("Cache-Control", "no-cache");
+      // The stream is committed before Spark's after-filters run, so set CORS here
+      raw.setHeader("Access-Control-Allow-Origin", "*");
+      OutputStream out = raw.getOutputStream();
+
+      write(out, frame(version, "version", Map.<String, Object>of("version", version)));
+      while (!Thread.currentThread().isInterrupted()) {
+        String frame = subscription.poll(heartbeatMillis, TimeUnit.MILLISECONDS);
+        if (subscription.takeOverflow()) {
+          write(out, "event: resync\ndata: {}\n\n");
+        }
+        // A comment on idle streams keeps proxies from timing out and finds closed connections
+        write(out, frame != null ? frame : ": keep-alive\n\n");
+      }
+    } catch (IOException e) {
+      // The client went away
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    return "";
+  }
+
+  /**
+   * Publish the changes a handler just made to the user's grocery list. Call it while still
+   * holding the user's lock, so events go out in the order the changes were made.
+   *
+   * @param sinceVersion the list version before the handler's changes
+   */
+  static void publishChanges(GroceryEventBus events, String userId, GroceryList groceryList,
+      long sinceVersion) {
+    if (events == null || !events.hasSubscribers(userId)) {
+      return;
+    }
+
+    List<ChangeLog.Change<GroceryItem>> changes = groceryList.getChangesSince(sinceVersion);
+    if (changes == null) {
+      events.publish(userId, "event: resync\ndata: {}\n\n");
+      return;
+    }
+    for (ChangeLog.Change<GroceryItem> change : changes) {
+      Map<String, Object> data = change.getValue() != null
+          ? GroceryListHandler.toItemMap(change.getValue())
+          : Map.<String, Object>of();
+      events.publish(userId, change.getVersion(), frame(change.getVersion(), change.getOp(), data));
+    }
+  }
+
+  private static String frame(long id, String event, Map<String, Object> data) {
+    return "id: " + id + "\nevent: " + event + "\ndata: " + JsonCodec.MAP_ADAPTER.toJson(data)
+        + "\n\n";
+  }
+
+  private static void write(OutputStream out, String frame) throws IOException {
+    out.write(frame.getBytes(StandardCharsets.UTF_8));
+    out.flush();
+  }
+}
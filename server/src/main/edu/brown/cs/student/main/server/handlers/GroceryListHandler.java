@@ -1,30 +1,33 @@
 package main.edu.brown.cs.student.main.server.handlers;
 
 import com.squareup.moshi.JsonAdapter;
-import com.squareup.moshi.Moshi;
-import com.squareup.moshi.Types;
+import main.edu.brown.cs.student.main.server.codec.JsonCodec;
+import main.edu.brown.cs.student.main.server.cache.CachedResponse;
+import main.edu.brown.cs.student.main.server.cache.ResponseCache;
+import main.edu.brown.cs.student.main.server.model.GroceryItem;
+import main.edu.brown.cs.student.main.server.model.GroceryListSnapshot;
 import main.edu.brown.cs.student.main.server.model.User;
-import main.edu.brown.cs.student.main.server.model.Ingredient;
 import main.edu.brown.cs.student.main.server.service.SpoonacularService;
+import main.edu.brown.cs.student.main.server.repository.UserRepository;
 import spark.Request;
 import spark.Response;
 import spark.Route;
 
-import java.lang.reflect.Type;
 import java.util.*;
 
 public class GroceryListHandler implements Route {
   private final SpoonacularService spoonacularService;
   private final JsonAdapter<Map<String, Object>> adapter;
-  private final Map<String, User> users;
+  private final UserRepository users;
+  private final ResponseCache responses;
 
-  public GroceryListHandler(SpoonacularService spoonacularService, Map<String, User> users) {
+  public GroceryListHandler(SpoonacularService spoonacularService, UserRepository users,
+      ResponseCache responses) {
     this.spoonacularService = spoonacularService;
     this.users = users;
+    this.responses = responses;
 
-    Moshi moshi = new Moshi.Builder().build();
-    Type type = Types.newParameterizedType(Map.class, String.class, Object.class);
-    this.adapter = moshi.adapter(type);
+    this.adapter = JsonCodec.MAP_ADAPTER;
   }
 
   @Override
@@ -43,41 +46,28 @@ public class GroceryListHandler implements Route {
         return adapter.toJson(responseMap);
       }
 
-      // Check if user exists
-      if (!users.containsKey(userId)) {
-        users.put(userId, new User(userId, "", ""));
-      }
-
-      User user = users.get(userId);
-
-      // Get the grocery list items (using getAllIngredients method from GroceryList)
-      List<Ingredient> groceryIngredients = user.getGroceryList().getAllIngredients();
-      List<Ingredient> checkedItems = user.getGroceryList().getCheckedItems();
-
-      // Convert to object format that includes checked status
-      List<Map<String, Object>> groceryItemsWithStatus = new ArrayList<>();
-      for (Ingredient ingredient : groceryIngredients) {
-        Map<String, Object> itemMap = new HashMap<>();
-
-        String itemString = ingredient.getOriginalString() != null
-            ? ingredient.getOriginalString()
-            : (ingredient.getAmount() != 0 ? ingredient.getAmount() + " " : "") +
-                (ingredient.getUnit() != null ? ingredient.getUnit() + " " : "") +
-                ingredient.getName();
-
-        itemMap.put("name", itemString);
-
-        // Check if this item is in the checked list
-        boolean isChecked = checkedItems.stream()
-            .anyMatch(checked -> checked.getName().equalsIgnoreCase(ingredient.getName()));
-        itemMap.put("checked", isChecked);
-
-        groceryItemsWithStatus.add(itemMap);
-      }
-
-      responseMap.put("result", "success");
-      responseMap.put("groceries", groceryItemsWithStatus);
-      responseMap.put("count", groceryItemsWithStatus.size());
+      // Get the user, creating it if needed
+      User user = users.getOrCreate(userId);
+
+      // Get the grocery list items, each carrying its own checked flag, from the immutable
+      // snapshot, so no lock is needed; the response is built once per version of the list
+      GroceryListSnapshot snapshot = user.getGroceryList().snapshot();
+      CachedResponse cached = responses.get("grocery:" + userId, snapshot, () -> {
+        List<GroceryItem> groceryItems = snapshot.getItems();
+
+        // Convert to object format that includes checked status
+        List<Map<String, Object>> groceryItemsWithStatus = new ArrayList<>(groceryItems.size());
+        for (GroceryItem item : groceryItems) {
+          groceryItemsWithStatus.add(toItemMap(item));
+        }
+
+        responseMap.put("result", "success");
+        responseMap.put("version", snapshot.getVersion());
+        responseMap.put("groceries", groceryItemsWithStatus);
+        responseMap.put("count", groceryItemsWithStatus.size());
+        return adapter.toJson(responseMap);
+      });
+      return PantryHandler.send(cached, request, response);
 
     } catch (Exception e) {
       responseMap.put("result", "error_processing");
@@ -87,4 +77,13 @@ public class GroceryListHandler implements Route {
 
     return adapter.toJson(responseMap);
   }
-}
\ No newline at end of file
+
+  // The JSON shape of one grocery item, shared with the delta sync endpoint
+  static Map<String, Object> toItemMap(GroceryItem item) {
+    Map<String, Object> itemMap = new HashMap<>();
+    itemMap.put("id", item.getId());
+    itemMap.put("name", item.getDisplayString());
+    itemMap.put("checked", item.isChecked());
+    return itemMap;
+  }
+}
@@ -0,0 +1,121 @@
+package main.edu.brown.cs.student.main.server.handlers;
+
+import com.squareup.moshi.JsonAdapter;
+import main.edu.brown.cs.student.main.server.codec.JsonCodec;
+import main.edu.brown.cs.student.main.server.codec.UserRequest;
+import main.edu.brown.cs.student.main.server.events.GroceryEventBus;
+import main.edu.brown.cs.student.main.server.model.ChangeLog;
+import main.edu.brown.cs.student.main.server.model.GroceryItem;
+import main.edu.brown.cs.student.main.server.model.GroceryList;
+import main.edu.brown.cs.student.main.server.model.Ingredient;
+import main.edu.brown.cs.student.main.server.model.Pantry;
+import main.edu.brown.cs.student.main.server.model.User;
+import main.edu.brown.cs.student.main.server.repository.UserRepository;
+import spark.Request;
+import spark.Response;
+import spark.Route;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Moves every checked grocery item into the pantry in one step, and returns the resulting
+ * grocery list and pantry changes in the same shape as the /changes endpoints.
+ */
+public class MoveCheckedToPantryHandler implements Route {
+  private final JsonAdapter<Map<String, Object>> adapter;
+  private final UserRepository users;
+  private final GroceryEventBus events;
+
+  public MoveCheckedToPantryHandler(UserRepository users, GroceryEventBus events) {
+    this.users = users;
+    this.events = events;
+
+    this.adapter = JsonCodec.MAP_ADAPTER;
+  }
+
+  @Override
+  public Object handle(Request request, Response response) {
+    Map<String, Object> responseMap = new HashMap<>();
+    response.type("application/json");
+
+    try {
+      // Parse request body
+      UserRequest userRequest = JsonCodec.readRequest(request.body());
+
+      if (userRequest == null) {
+        responseMap.put("result", "error_bad_request");
+        responseMap.put("message", "Invalid JSON body");
+        response.status(400);
+        return adapter.toJson(responseMap);
+      }
+
+      // Extract userId
+      String userId = userRequest.getUserId();
+
+      if (userId == null) {
+        responseMap.put("result", "error_bad_request");
+        responseMap.put("message", "User ID is required");
+        response.status(400);
+        return adapter.toJson(responseMap);
+      }
+
+      // Check if user exists
+      if (!users.contains(userId)) {
+        responseMap.put("result", "error_bad_request");
+        responseMap.put("message", "User not found");
+        response.status(404);
+        return adapter.toJson(responseMap);
+      }
+
+      // Get the user
+      User user = users.get(userId);
+      GroceryList groceryList = user.getGroceryList();
+      Pantry pantry = user.getPantry();
+
+      // Both lists change under the user's lock, so no request sees an item in both or neither
+      long groceryVersion;
+      List<Ingredient> moved;
+      Map<String, Object> groceryDelta = new HashMap<>();
+      Map<String, Object> pantryDelta = new HashMap<>();
+      synchronized (user) {
+        groceryVersion = groceryList.getVersion();
+        long pantryVersion = pantry.getVersion();
+
+        moved = groceryList.moveCheckedItemsToPantry(pantry);
+        users.save(user);
+
+        // A move bigger than the change log can't be described as changes; the client refetches
+        List<ChangeLog.Change<GroceryItem>> groceryChanges =
+            groceryList.getChangesSince(groceryVersion);
+        groceryDelta.put("version", groceryList.getVersion());
+        groceryDelta.put("full", groceryChanges == null);
+        if (groceryChanges != null) {
+          groceryDelta.put("changes", GroceryChangesHandler.toChangeMaps(groceryChanges));
+        }
+
+        List<ChangeLog.Change<Ingredient>> pantryChanges = pantry.getChangesSince(pantryVersion);
+        pantryDelta.put("version", pantry.getVersion());
+        pantryDelta.put("full", pantryChanges == null);
+        if (pantryChanges != null) {
+          pantryDelta.put("changes", PantryChangesHandler.toChangeMaps(pantryChanges));
+        }
+        GroceryEventsHandler.publishChanges(events, userId, groceryList, groceryVersion);
+      }
+
+      responseMap.put("result", "success");
+      responseMap.put("message", "Moved " + moved.size() + " checked items to pantry");
+      responseMap.put("moved", moved.size());
+      responseMap.put("grocery", groceryDelta);
+      responseMap.put("pantry", pantryDelta);
+
+    } catch (Exception e) {
+      responseMap.put("result", "error_processing");
+      responseMap.put("message", "Failed to move checked items to pantry: " + e.getMessage());
+      response.status(500);
+    }
+
+    return adapter.toJson(responseMap);
+  }
+}
@@ -0,0 +1,101 @@
+package main.edu.brown.cs.student.main.server.handlers;
+
+import com.squareup.moshi.JsonAdapter;
+import main.edu.brown.cs.student.main.server.codec.JsonCodec;
+import main.edu.brown.cs.student.main.server.model.ChangeLog;
+import main.edu.brown.cs.student.main.server.model.Ingredient;
+import main.edu.brown.cs.student.main.server.model.Pantry;
+import main.edu.brown.cs.student.main.server.model.PantrySnapshot;
+import main.edu.brown.cs.student.main.server.model.User;
+import main.edu.brown.cs.student.main.server.repository.UserRepository;
+import spark.Request;
+import spark.Response;
+import spark.Route;
+
+import java.util.*;
+
+/**
+ * Returns the pantry changes made after the version a client last saw (?since=), or the whole
+ * pantry with "full": true when those changes are no longer in the change log.
+ */
+public class PantryChangesHandler implements Route {
+  private final JsonAdapter<Map<String, Object>> adapter;
+  private final UserRepository users;
+
+  public PantryChangesHandler(UserRepository users) {
+    this.users = users;
+
+    this.adapter = JsonCodec.MAP_ADAPTER;
+  }
+
+  @Override
+  public Object handle(Request request, Response response) {
+    Map<String, Object> responseMap = new HashMap<>();
+    response.type("application/json");
+
+    try {
+      String userId = request.params(":userId");
+      String sinceParam = request.queryParams("since");
+
+      if (userId == null || sinceParam == null) {
+        responseMap.put("result", "error_bad_request");
+        responseMap.put("message", "User ID and since version are required");
+        response.status(400);
+        return adapter.toJson(responseMap);
+      }
+
+      long since;
+      try {
+        since = Long.parseLong(sinceParam);
+      } catch (NumberFormatException e) {
+        responseMap.put("result", "error_bad_request");
+        responseMap.put("message", "Invalid since version: " + sinceParam);
+        response.status(400);
+        return adapter.toJson(responseMap);
+      }
+
+      // Get the user, creating it if needed
+      User user = users.getOrCreate(userId);
+      Pantry pantry = user.getPantry();
+
+      List<ChangeLog.Change<Ingredient>> changes = pantry.getChangesSince(since);
+
+      responseMap.put("result", "success");
+      if (changes != null) {
+        long version = changes.isEmpty() ? since : changes.get(changes.size() - 1).getVersion();
+        responseMap.put("full", false);
+        responseMap.put("version", version);
+        responseMap.put("changes", toChangeMaps(changes));
+      } else {
+        // Too far behind for the log: send everything, as PantryHandler does
+        PantrySnapshot snapshot = pantry.snapshot();
+        responseMap.put("full", true);
+        responseMap.put("version", snapshot.getVersion());
+        responseMap.put("pantry", snapshot);
+      }
+
+    } catch (Exception e) {
+      responseMap.put("result", "error_datasource");
+      responseMap.put("message", "Failed to fetch pantry changes: " + e.getMessage());
+      response.status(500);
+    }
+
+    return adapter.toJson(responseMap);
+  }
+
+  // The JSON shape of pantry changes, shared with other endpoints that return deltas
+  static List<Map<String, Object>> toChangeMaps(List<ChangeLog.Change<Ingredient>> changes) {
+    List<Map<String, Object>> changeMaps = new ArrayList<>(changes.size());
+    for (ChangeLog.Change<Ingredient> change : changes) {
+      Map<String, Object> changeMap = new HashMap<>();
+      changeMap.put("version", change.getVersion());
+      changeMap.put("op", change.getOp());
+      if (change.getValue() != null) {
+        changeMap.put("category", Pantry.categoryOf(change.getValue()));
+        changeMap.put("ingredient", change.getValue());
+      }
+      changeMaps.add(changeMap);
+    }
+    return changeMaps;
+  }
+}
@@ -1,31 +1,28 @@
 package main.edu.brown.cs.student.main.server.handlers;
 
 import com.squareup.moshi.JsonAdapter;
-import com.squareup.moshi.Moshi;
-import com.squareup.moshi.Types;
+import main.edu.brown.cs.student.main.server.codec.JsonCodec;
 import main.edu.brown.cs.student.main.server.model.Recipe;
 import main.edu.brown.cs.student.main.server.model.User;
 import main.edu.brown.cs.student.main.server.service.SpoonacularService;
+import main.edu.brown.cs.student.main.server.repository.UserRepository;
 import spark.Request;
 import spark.Response;
 import spark.Route;
 
-import java.lang.reflect.Type;
 import java.util.HashMap;
 import java.util.Map;
 
 public class PantryCompareHandler implements Route {
   private final SpoonacularService spoonacularService;
   private final JsonAdapter<Map<String, Object>> adapter;
-  private final Map<String, User> users;
+  private final UserRepository users;
 
-  public PantryCompareHandler(SpoonacularService spoonacularService, Map<String, User> users) {
+  public PantryCompareHandler(SpoonacularService spoonacularService, UserRepository users) {
     this.spoonacularService = spoonacularService;
     this.users = users;
 
-    Moshi moshi = new Moshi.Builder().build();
-    Type type = Types.newParameterizedType(Map.class, String.class, Object.class);
-    this.adapter = moshi.adapter(type);
+    this.adapter = JsonCodec.MAP_ADAPTER;
   }
 
   @Override
@@ -48,7 +45,7 @@ public class PantryCompareHandler implements Route {
       int recipeId = Integer.parseInt(recipeIdStr);
 
       // Check if user exists
-      if (!users.containsKey(userId)) {
+      if (!users.contains(userId)) {
         responseMap.put("result", "error_not_found");
         responseMap.put("message", "User not found");
         response.status(404);
@@ -60,7 +57,10 @@ public class PantryCompareHandler implements Route {
 
       // Compare with pantry
       User user = users.get(userId);
-      Map<String, Object> comparison = user.getPantry().compareWithRecipe(recipe);
+      Map<String, Object> comparison;
+      synchronized (user) {
+        comparison = user.getPantry().compareWithRecipe(recipe);
+      }
 
       responseMap.put("result", "success");
       responseMap.put("recipe", recipe);
@@ -1,31 +1,33 @@
 package main.edu.brown.cs.student.main.server.handlers;
 
 import com.squareup.moshi.JsonAdapter;
-import com.squareup.moshi.Moshi;
-import com.squareup.moshi.Types;
-import main.edu.brown.cs.student.main.server.model.Pantry;
+import main.edu.brown.cs.student.main.server.codec.JsonCodec;
+import main.edu.brown.cs.student.main.server.cache.CachedResponse;
+import main.edu.brown.cs.student.main.server.cache.ResponseCache;
+import main.edu.brown.cs.student.main.server.model.PantrySnapshot;
 import main.edu.brown.cs.student.main.server.model.User;
 import main.edu.brown.cs.student.main.server.service.SpoonacularService;
+import main.edu.brown.cs.student.main.server.repository.UserRepository;
 import spark.Request;
 import spark.Response;
 import spark.Route;
 
-import java.lang.reflect.Type;
 import java.util.HashMap;
 import java.util.Map;
 
 public class PantryHandler implements Route {
   private final SpoonacularService spoonacularService;
   private final JsonAdapter<Map<String, Object>> adapter;
-  private final Map<String, User> users;
+  private final UserRepository users;
+  private final ResponseCache responses;
 
-  public PantryHandler(SpoonacularService spoonacularService, Map<String, User> users) {
+  public PantryHandler(SpoonacularService spoonacularService, UserRepository users,
+      ResponseCache responses) {
     this.spoonacularService = spoonacularService;
     this.users = users;
+    this.responses = responses;
 
-    Moshi moshi = new Moshi.Builder().build();
-    Type type = Types.newParameterizedType(Map.class, String.class, Object.class);
-    this.adapter = moshi.adapter(type);
+    this.adapter = JsonCodec.MAP_ADAPTER;
   }
 
   @Override
@@ -43,18 +45,18 @@ public class PantryHandler implements Route {
         return adapter.toJson(responseMap);
       }
 
-      // Check if user exists
-      if (!users.containsKey(userId)) {
-        // Create a new user if not exists
-        users.put(userId, new User(userId, "", ""));
-      }
-
-      // Get the user's pantry
-      User user = users.get(userId);
-      Pantry pantry = user.getPantry();
+      // Get the user, creating it if needed
+      User user = users.getOrCreate(userId);
 
-      responseMap.put("result", "success");
-      responseMap.put("pantry", pantry);
+      // The snapshot is immutable, so it serializes without the user's lock, and only once per
+      // version of the pantry
+      PantrySnapshot snapshot = user.getPantry().snapshot();
+      CachedResponse cached = responses.get("pantry:" + userId, snapshot, () -> {
+        responseMap.put("result", "success");
+        responseMap.put("pantry", snapshot);
+        return adapter.toJson(responseMap);
+      });
+      return send(cached, request, response);
 
     } catch (IllegalArgumentException e) {
       responseMap.put("result", "error_bad_request");
@@ -68,4 +70,14 @@ public class PantryHandler implements Route {
 
     return adapter.toJson(responseMap);
   }
+
+  // Write a cached body with its ETag, or just a 304 if the client already has it
+  static Object send(CachedResponse cached, Request request, Response response) {
+    response.header("ETag", cached.getEtag());
+    if (cached.matches(request.headers("If-None-Match"))) {
+      response.status(304);
+      return "";
+    }
+    return cached.getBody();
+  }
 }
\ No newline at end of file
@@ -1,33 +1,32 @@
 package main.edu.brown.cs.student.main.server.handlers;
 
 import com.squareup.moshi.JsonAdapter;
-import com.squareup.moshi.Moshi;
-import com.squareup.moshi.Types;
+import main.edu.brown.cs.student.main.server.codec.JsonCodec;
 import main.edu.brown.cs.student.main.server.model.Ingredient;
 import main.edu.brown.cs.student.main.server.model.Recipe;
 import main.edu.brown.cs.student.main.server.model.User;
 import main.edu.brown.cs.student.main.server.service.SpoonacularService;
+import main.edu.brown.cs.student.main.server.repository.UserRepository;
 import spark.Request;
 import spark.Response;
 import spark.Route;
 
-import java.lang.reflect.Type;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 public class RecipeDetailHandler implements Route {
   private final SpoonacularService spoonacularService;
   private final JsonAdapter<Map<String, Object>> adapter;
-  private final Map<String, User> users;
+  private final UserRepository users;
 
-  public RecipeDetailHandler(SpoonacularService spoonacularService, Map<String, User> users) {
+  public RecipeDetailHandler(SpoonacularService spoonacularService, UserRepository users) {
     this.spoonacularService = spoonacularService;
     this.users = users;
 
-    Moshi moshi = new Moshi.Builder().build();
-    Type type = Types.newParameterizedType(Map.class, String.class, Object.class);
-    this.adapter = moshi.adapter(type);
+    this.adapter = JsonCodec.MAP_ADAPTER;
   }
 
   @Override
@@ -47,22 +46,30 @@ public class RecipeDetailHandler implements Route {
 
       int recipeId = Integer.parseInt(idParam);
 
-      // Get detailed recipe information
-      Recipe recipe = spoonacularService.getRecipeById(recipeId);
+      // Start fetching detailed recipe information; it runs on the service's executor
+      CompletableFuture<Recipe> pendingRecipe = spoonacularService.getRecipeByIdAsync(recipeId);
 
-      // Check for user allergens
+      // Resolve the user while the recipe is in flight
       String userId = request.queryParams("userId");
-      if (userId != null && users.containsKey(userId)) {
-        User user = users.get(userId);
-        List<String> allergies = user.getAllergies();
+      User user = userId != null ? users.get(userId) : null;
+
+      Recipe recipe = SpoonacularService.await(pendingRecipe);
+
+      // Check for user allergens
+      if (user != null) {
+        List<String> allergies;
+        Map<String, Object> pantryComparison;
+        synchronized (user) {
+          allergies = new ArrayList<>(user.getAllergies());
+          // Check pantry for available ingredients
+          pantryComparison = user.getPantry().compareWithRecipe(recipe);
+        }
 
         // Check recipe ingredients for allergens
         if (!allergies.isEmpty()) {
           spoonacularService.checkRecipeForAllergens(recipe, allergies);
         }
 
-        // Check pantry for available ingredients
-        Map<String, Object> pantryComparison = user.getPantry().compareWithRecipe(recipe);
         recipe.setAvailableIngredients((int) pantryComparison.get("availableCount"));
         recipe.setTotalIngredients((int) pantryComparison.get("totalCount"));
         recipe.setMissingIngredients((List<Ingredient>) pantryComparison.get("missingIngredients"));
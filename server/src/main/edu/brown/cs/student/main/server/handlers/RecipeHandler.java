@@ -1,30 +1,29 @@
 package main.edu.brown.cs.student.main.server.handlers;
 
 import com.squareup.moshi.JsonAdapter;
-import com.squareup.moshi.Moshi;
-import com.squareup.moshi.Types;
+import main.edu.brown.cs.student.main.server.codec.JsonCodec;
+import main.edu.brown.cs.student.main.server.model.PantryMatch;
 import main.edu.brown.cs.student.main.server.model.Recipe;
 import main.edu.brown.cs.student.main.server.model.User;
 import main.edu.brown.cs.student.main.server.service.SpoonacularService;
+import main.edu.brown.cs.student.main.server.repository.UserRepository;
 import spark.Request;
 import spark.Response;
 import spark.Route;
 
-import java.lang.reflect.Type;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 public class RecipeHandler implements Route {
   private final SpoonacularService spoonacularService;
   private final JsonAdapter<Map<String, Object>> adapter;
-  private final Map<String, User> users;
+  private final UserRepository users;
 
-  public RecipeHandler(SpoonacularService spoonacularService, Map<String, User> users) {
+  public RecipeHandler(SpoonacularService spoonacularService, UserRepository users) {
     this.spoonacularService = spoonacularService;
     this.users = users;
 
-    Moshi moshi = new Moshi.Builder().build();
-    Type type = Types.newParameterizedType(Map.class, String.class, Object.class);
-    this.adapter = moshi.adapter(type);
+    this.adapter = JsonCodec.MAP_ADAPTER;
   }
 
   @Override
@@ -72,9 +71,14 @@ public class RecipeHandler implements Route {
 
       // Check for user allergens
       String userId = request.queryParams("userId");
-      if (userId != null && users.containsKey(userId)) {
+      List<String> allergies = List.of();
+      if (userId != null && users.contains(userId)) {
         User user = users.get(userId);
-        List<String> allergies = user.getAllergies();
+        List<String> diets;
+        synchronized (user) {
+          allergies = new ArrayList<>(user.getAllergies());
+          diets = new ArrayList<>(user.getDiets());
+        }
 
         if (!allergies.isEmpty()) {
           String intolerancesParam = searchParams.getOrDefault("intolerances", "");
@@ -86,7 +90,6 @@ public class RecipeHandler implements Route {
         }
 
         // Add diet preferences if available
-        List<String> diets = user.getDiets();
         if (!diets.isEmpty()) {
           String dietParam = searchParams.getOrDefault("diet", "");
           if (!dietParam.isEmpty()) {
@@ -97,18 +100,22 @@ public class RecipeHandler implements Route {
         }
       }
 
-      // Search for recipes
-      List<Recipe> recipes = spoonacularService.searchRecipes(searchParams);
-
-      // If a user ID was provided, check pantry for each recipe
-      if (userId != null && users.containsKey(userId)) {
-        User user = users.get(userId);
-        for (Recipe recipe : recipes) {
-          Map<String, Object> pantryComparison = user.getPantry().compareWithRecipe(recipe);
-          recipe.setAvailableIngredients((int) pantryComparison.get("availableCount"));
-          recipe.setTotalIngredients((int) pantryComparison.get("totalCount"));
-          recipe.setMissingIngredients((List<main.edu.brown.cs.student.main.server.model.Ingredient>) pantryComparison.get("missingIngredients"));
+      // Start the search upstream; it runs on the service's executor while we resolve the user
+      CompletableFuture<List<Recipe>> pendingRecipes = spoonacularService.searchRecipesAsync(searchParams);
+      User user = userId != null ? users.get(userId) : null;
+      List<Recipe> recipes = SpoonacularService.await(pendingRecipes);
+
+      // If a user ID was provided, score the whole page against the pantry at once
+      if (user != null) {
+        // The view belongs to the pantry's current snapshot, so it needs no lock
+        List<PantryMatch> matches = user.getPantry().view().matchAll(recipes);
+        for (int i = 0; i < recipes.size(); i++) {
+          matches.get(i).applyTo(recipes.get(i));
         }
+
+        // Flag allergens from the ingredients the search already returned, so clients can show
+        // badges without fetching each recipe's details
+        spoonacularService.checkRecipesForAllergens(recipes, allergies);
       }
 
       responseMap.put("result", "success");
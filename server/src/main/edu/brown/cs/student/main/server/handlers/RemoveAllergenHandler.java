@@ -1,26 +1,23 @@
 package main.edu.brown.cs.student.main.server.handlers;
 
 import com.squareup.moshi.JsonAdapter;
-import com.squareup.moshi.Moshi;
-import com.squareup.moshi.Types;
+import main.edu.brown.cs.student.main.server.codec.JsonCodec;
 import main.edu.brown.cs.student.main.server.model.User;
+import main.edu.brown.cs.student.main.server.repository.UserRepository;
 import spark.Request;
 import spark.Response;
 import spark.Route;
 
-import java.lang.reflect.Type;
 import java.util.*;
 
 public class RemoveAllergenHandler implements Route {
   private final JsonAdapter<Map<String, Object>> adapter;
-  private final Map<String, User> users;
+  private final UserRepository users;
 
-  public RemoveAllergenHandler(Map<String, User> users) {
+  public RemoveAllergenHandler(UserRepository users) {
     this.users = users;
 
-    Moshi moshi = new Moshi.Builder().build();
-    Type type = Types.newParameterizedType(Map.class, String.class, Object.class);
-    this.adapter = moshi.adapter(type);
+    this.adapter = JsonCodec.MAP_ADAPTER;
   }
 
   @Override
@@ -41,7 +38,7 @@ public class RemoveAllergenHandler implements Route {
       }
 
       // Check if user exists
-      if (!users.containsKey(userId)) {
+      if (!users.contains(userId)) {
         responseMap.put("result", "error_not_found");
         responseMap.put("message", "User not found");
         response.status(404);
@@ -50,11 +47,14 @@ public class RemoveAllergenHandler implements Route {
 
       // Remove the allergen
       User user = users.get(userId);
-      user.removeAllergy(allergen.toLowerCase());
+      synchronized (user) {
+        user.removeAllergy(allergen.toLowerCase());
+        users.save(user);
+        responseMap.put("allergens", new ArrayList<>(user.getAllergies()));
+      }
 
       responseMap.put("result", "success");
       responseMap.put("message", "Allergen removed successfully");
-      responseMap.put("allergens", user.getAllergies());
 
     } catch (Exception e) {
       responseMap.put("result", "error_processing");
@@ -1,29 +1,26 @@
 package main.edu.brown.cs.student.main.server.handlers;
 
 import com.squareup.moshi.JsonAdapter;
-import com.squareup.moshi.Moshi;
-import com.squareup.moshi.Types;
+import main.edu.brown.cs.student.main.server.codec.JsonCodec;
+import main.edu.brown.cs.student.main.server.codec.UserRequest;
 import main.edu.brown.cs.student.main.server.model.Ingredient;
 import main.edu.brown.cs.student.main.server.model.User;
+import main.edu.brown.cs.student.main.server.repository.UserRepository;
 import spark.Request;
 import spark.Response;
 import spark.Route;
 
-import java.lang.reflect.Type;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 public class RemovePantryIngredientHandler implements Route {
   private final JsonAdapter<Map<String, Object>> adapter;
-  private final Map<String, User> users;
+  private final UserRepository users;
 
-  public RemovePantryIngredientHandler(Map<String, User> users) {
+  public RemovePantryIngredientHandler(UserRepository users) {
     this.users = users;
 
-    Moshi moshi = new Moshi.Builder().build();
-    Type type = Types.newParameterizedType(Map.class, String.class, Object.class);
-    this.adapter = moshi.adapter(type);
+    this.adapter = JsonCodec.MAP_ADAPTER;
   }
 
   @Override
@@ -33,10 +30,9 @@ public class RemovePantryIngredientHandler implements Route {
 
     try {
       // Parse request body
-      String body = request.body();
-      Map<String, Object> requestMap = adapter.fromJson(body);
+      UserRequest userRequest = JsonCodec.readRequest(request.body());
 
-      if (requestMap == null) {
+      if (userRequest == null) {
         responseMap.put("result", "error_bad_request");
         responseMap.put("message", "Invalid JSON body");
         response.status(400);
@@ -44,8 +40,8 @@ public class RemovePantryIngredientHandler implements Route {
       }
 
       // Extract userId and ingredientName
-      String userId = (String) requestMap.get("userId");
-      String ingredientName = (String) requestMap.get("ingredientName");
+      String userId = userRequest.getUserId();
+      String ingredientName = userRequest.getIngredientName();
 
       if (userId == null || ingredientName == null) {
         responseMap.put("result", "error_bad_request");
@@ -55,7 +51,7 @@ public class RemovePantryIngredientHandler implements Route {
       }
 
       // Check if user exists
-      if (!users.containsKey(userId)) {
+      if (!users.contains(userId)) {
         responseMap.put("result", "error_bad_request");
         responseMap.put("message", "User not found");
         response.status(404);
@@ -65,27 +61,22 @@ public class RemovePantryIngredientHandler implements Route {
       // Get the user
       User user = users.get(userId);
 
-      // Find and remove the ingredient from the pantry
-      List<Ingredient> allIngredients = user.getPantry().getAllIngredients();
-      Ingredient targetIngredient = null;
+      synchronized (user) {
+        // Find and remove the ingredient from the pantry
+        Ingredient targetIngredient = user.getPantry().getIngredient(ingredientName);
 
-      for (Ingredient ingredient : allIngredients) {
-        if (ingredient.getName().equalsIgnoreCase(ingredientName)) {
-          targetIngredient = ingredient;
-          break;
+        if (targetIngredient == null) {
+          responseMap.put("result", "error_bad_request");
+          responseMap.put("message", "Ingredient not found in pantry");
+          response.status(404);
+          return adapter.toJson(responseMap);
         }
-      }
 
-      if (targetIngredient == null) {
-        responseMap.put("result", "error_bad_request");
-        responseMap.put("message", "Ingredient not found in pantry");
-        response.status(404);
-        return adapter.toJson(responseMap);
+        // Remove from pantry
+        user.getPantry().removeIngredient(targetIngredient);
+        users.save(user);
       }
 
-      // Remove from pantry
-      user.getPantry().removeIngredient(targetIngredient);
-
       responseMap.put("result", "success");
       responseMap.put("message", "Ingredient removed from pantry");
       responseMap.put("ingredient", ingredientName);
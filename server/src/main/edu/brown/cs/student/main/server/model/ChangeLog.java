@@ -0,0 +1,99 @@
+package main.edu.brown.cs.student.main.server.model;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Bounded log of the most recent changes to a grocery list or pantry, so clients that poll can
+ * fetch only what changed since the version they last saw.
+ *
+ * The owner keeps the version and records each change under the next one, so versions in the
+ * log are consecutive. Once the log is full the oldest change is dropped; asking for changes
+ * from before the oldest one kept returns null, and the caller must send a full snapshot.
+ */
+public class ChangeLog<T> {
+  public static final int DEFAULT_CAPACITY = 256;
+
+  public static final String ADD = "add";
+  public static final String UPDATE = "update";
+  public static final String REMOVE = "remove";
+  public static final String CLEAR = "clear";
+
+  /**
+   * One change: the version it produced, what happened and the affected value (a copy taken when
+   * the change was made, or null for a clear)
+   */
+  public static final class Change<T> {
+    private final long version;
+    private final String op;
+    private final T value;
+
+    Change(long version, String op, T value) {
+      this.version = version;
+      this.op = op;
+      this.value = value;
+    }
+
+    public long getVersion() {
+      return version;
+    }
+
+    public String getOp() {
+      return op;
+    }
+
+    public T getValue() {
+      return value;
+    }
+  }
+
+  private final int capacity;
+  private final ArrayDeque<Change<T>> changes = new ArrayDeque<>();
+
+  public ChangeLog() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  public ChangeLog(int capacity) {
+    this.capacity = capacity;
+  }
+
+  public synchronized void record(long version, String op, T value) {
+    if (changes.size() == capacity) {
+      changes.removeFirst();
+    }
+    changes.addLast(new Change<>(version, op, value));
+  }
+
+  /**
+   * Changes after sinceVersion, oldest first, or null if the log no longer covers them
+   */
+  public synchronized List<Change<T>> since(long sinceVersion, long currentVersion) {
+    if (sinceVersion == currentVersion) {
+      return Collections.emptyList();
+    }
+    // Newer than anything we know of (e.g. data was reset), or already dropped from the log
+    if (sinceVersion > currentVersion || changes.isEmpty()
+        || changes.peekFirst().getVersion() > sinceVersion + 1
+        || changes.peekLast().getVersion() != currentVersion) {
+      return null;
+    }
+
+    List<Change<T>> result = new ArrayList<>((int) (currentVersion - sinceVersion));
+    for (Change<T> change : changes) {
+      if (change.getVersion() > sinceVersion) {
+        result.add(change);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Drop every change, e.g. when the owner's contents are replaced wholesale
+   */
+  public synchronized void clear() {
+    changes.clear();
+  }
+}
@@ -0,0 +1,55 @@
+package main.edu.brown.cs.student.main.server.model;
+
+/**
+ * One line of a grocery list: an ingredient and whether it has been checked off.
+ */
+public class GroceryItem {
+    // Handle clients use to check or delete this item; never reused within a list
+    private long id;
+    private Ingredient ingredient;
+    private boolean checked;
+
+    public GroceryItem() {
+    }
+
+    public GroceryItem(long id, Ingredient ingredient) {
+        this.id = id;
+        this.ingredient = ingredient;
+    }
+
+    // Copy an item, including its ingredient, e.g. to record it in a change log
+    public GroceryItem(GroceryItem other) {
+        this.id = other.id;
+        this.ingredient = new Ingredient(other.ingredient);
+        this.checked = other.checked;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    void setId(long id) {
+        this.id = id;
+    }
+
+    public Ingredient getIngredient() {
+        return ingredient;
+    }
+
+    public boolean isChecked() {
+        return checked;
+    }
+
+    public void setChecked(boolean checked) {
+        this.checked = checked;
+    }
+
+    // The text shown for this item, e.g. "2.0 cups milk"
+    public String getDisplayString() {
+        return ingredient.getOriginalString() != null
+                ? ingredient.getOriginalString()
+                : (ingredient.getAmount() != 0 ? ingredient.getAmount() + " " : "") +
+                        (ingredient.getUnit() != null ? ingredient.getUnit() + " " : "") +
+                        ingredient.getName();
+    }
+}
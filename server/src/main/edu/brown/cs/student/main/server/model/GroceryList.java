@@ -1,119 +1,178 @@
 package main.edu.brown.cs.student.main.server.model;
 
 import java.util.*;
+import java.util.function.Predicate;
 
 public class GroceryList {
     private String userId;
-    private Map<String, List<Ingredient>> ingredientsByAisle;
-    private List<Ingredient> checkedItems;
-
+    private List<GroceryItem> items;
+    private long nextItemId = 1;
+    // Bumped on every change; clients send it back to fetch only newer changes. Written under
+    // the user's lock, volatile for handlers that read it without one.
+    private volatile long version;
+
+    // Items keyed by aisle, normalized name and unit dimension, so merging, checking and
+    // unchecking are hash lookups, and by item id. Derived from items: not serialized, rebuilt
+    // on first use.
+    private transient Map<String, GroceryItem> itemsByKey;
+    private transient Map<Long, GroceryItem> itemsById;
+    // Recent changes, kept in memory only: after a restart clients fall back to a full snapshot
+    private final transient ChangeLog<GroceryItem> changeLog = new ChangeLog<>();
+    // What lock-free readers see; replaced, never modified, after every change
+    private transient volatile GroceryListSnapshot snapshot;
+
+    // Also used by deserialization, which fills fields afterwards, so the snapshot is built lazily
     public GroceryList() {
-        this.ingredientsByAisle = new HashMap<>();
-        this.checkedItems = new ArrayList<>();
+        this.items = new ArrayList<>();
     }
 
     public GroceryList(String userId) {
         this.userId = userId;
-        this.ingredientsByAisle = new HashMap<>();
-        this.checkedItems = new ArrayList<>();
+        this.items = new ArrayList<>();
+        refreshSnapshot();
     }
 
     // Add an ingredient to the grocery list, organizing by aisle
     public void addIngredient(Ingredient ingredient) {
-        String aisle = ingredient.getAisle() != null ? ingredient.getAisle() : "Other";
+        merge(ingredient);
+        refreshSnapshot();
+    }
 
-        if (!ingredientsByAisle.containsKey(aisle)) {
-            ingredientsByAisle.put(aisle, new ArrayList<>());
+    // Add a list of ingredients, publishing one snapshot once all are in
+    public void addIngredients(List<Ingredient> ingredients) {
+        for (Ingredient ingredient : ingredients) {
+            merge(ingredient);
         }
+        refreshSnapshot();
+    }
 
-        // Check if ingredient already exists in the list
-        boolean exists = false;
-        for (Ingredient existingIngredient : ingredientsByAisle.get(aisle)) {
-            if (existingIngredient.getName().equalsIgnoreCase(ingredient.getName())) {
-                // If the same ingredient exists, update the amount
-                existingIngredient.setAmount(existingIngredient.getAmount() + ingredient.getAmount());
-                existingIngredient.setOriginalString(existingIngredient.getAmount() + " " +
-                        existingIngredient.getUnit() + " " +
-                        existingIngredient.getName());
-                exists = true;
-                break;
-            }
+    // Add an ingredient or merge it into a matching item, without rebuilding the snapshot
+    private void merge(Ingredient ingredient) {
+        // Check if ingredient already exists in the list, measured in a compatible unit
+        String key = keyOf(ingredient);
+        GroceryItem existing = index().get(key);
+
+        if (existing != null) {
+            // If the same ingredient exists, update the amount, converted to the existing unit
+            Ingredient existingIngredient = existing.getIngredient();
+            existingIngredient.setAmount(existingIngredient.getAmount() + ingredient.amountIn(existingIngredient));
+            existingIngredient.setOriginalString(existingIngredient.getAmount() + " " +
+                    existingIngredient.getUnit() + " " +
+                    existingIngredient.getName());
+            recordChange(ChangeLog.UPDATE, existing);
+            return;
         }
 
-        if (!exists) {
-            ingredientsByAisle.get(aisle).add(ingredient);
-        }
+        GroceryItem item = new GroceryItem(nextItemId++, ingredient);
+        items.add(item);
+        itemsByKey.put(key, item);
+        itemsById.put(item.getId(), item);
+        recordChange(ChangeLog.ADD, item);
     }
 
-    // Add a list of ingredients
-    public void addIngredients(List<Ingredient> ingredients) {
-        for (Ingredient ingredient : ingredients) {
-            addIngredient(ingredient);
-        }
+    // Remove an ingredient (in any unit) from the grocery list
+    public boolean removeIngredient(Ingredient ingredient) {
+        String aisle = aisleOf(ingredient);
+        return removeItemsIf(item ->
+                aisleOf(item.getIngredient()).equals(aisle)
+                        && item.getIngredient().getName().equalsIgnoreCase(ingredient.getName()));
     }
 
-    // Remove an ingredient from the grocery list
-    public boolean removeIngredient(Ingredient ingredient) {
-        String aisle = ingredient.getAisle() != null ? ingredient.getAisle() : "Other";
-
-        if (ingredientsByAisle.containsKey(aisle)) {
-            // Try to remove the ingredient by name
-            boolean removed = ingredientsByAisle.get(aisle)
-                .removeIf(i -> i.getName().equalsIgnoreCase(ingredient.getName()));
-
-            // Clean up if the aisle is now empty
-            System.out.println("aisle" + ingredientsByAisle);
-            System.out.println("dlete" + ingredient);
-            if (ingredientsByAisle.get(aisle).isEmpty()) {
-                ingredientsByAisle.remove(aisle);
+    // Look up an item by id, or null if it isn't on the list
+    public GroceryItem getItem(long itemId) {
+        index();
+        return itemsById.get(itemId);
+    }
+
+    // Find the first item shown with this text, for clients that don't send item ids
+    public GroceryItem findItemByDisplayString(String displayString) {
+        index();
+        for (GroceryItem item : items) {
+            if (item.getDisplayString().equals(displayString)) {
+                return item;
             }
+        }
+        return null;
+    }
 
-            return removed;
+    // Remove one item by id
+    public boolean removeItem(long itemId) {
+        GroceryItem item = getItem(itemId);
+        if (item == null) {
+            return false;
         }
+        items.remove(item);
+        itemsById.remove(itemId);
+        itemsByKey.remove(keyOf(item.getIngredient()), item);
+        recordChange(ChangeLog.REMOVE, item);
+        refreshSnapshot();
+        return true;
+    }
 
-        return false;
+    // Check or uncheck one item by id
+    public boolean setChecked(long itemId, boolean checked) {
+        GroceryItem item = getItem(itemId);
+        if (item == null) {
+            return false;
+        }
+        setChecked(item, checked);
+        return true;
     }
 
     // Mark an item as checked
     public void checkItem(Ingredient ingredient) {
-        if (!checkedItems.contains(ingredient)) {
-            checkedItems.add(ingredient);
+        GroceryItem item = index().get(keyOf(ingredient));
+        if (item != null) {
+            setChecked(item, true);
         }
     }
 
     // Uncheck an item
     public void uncheckItem(Ingredient ingredient) {
-        checkedItems.removeIf(i -> i.getName().equalsIgnoreCase(ingredient.getName()));
+        GroceryItem item = index().get(keyOf(ingredient));
+        if (item != null) {
+            setChecked(item, false);
+        }
+    }
+
+    // Check whether an item is checked off
+    public boolean isChecked(Ingredient ingredient) {
+        GroceryItem item = index().get(keyOf(ingredient));
+        return item != null && item.isChecked();
     }
 
     // Get all ingredients in a flat list
     public List<Ingredient> getAllIngredients() {
-        List<Ingredient> allIngredients = new ArrayList<>();
-        for (List<Ingredient> aisleIngredients : ingredientsByAisle.values()) {
-            allIngredients.addAll(aisleIngredients);
+        List<Ingredient> allIngredients = new ArrayList<>(items.size());
+        for (GroceryItem item : items) {
+            allIngredients.add(item.getIngredient());
         }
         return allIngredients;
     }
 
     // Move checked items to pantry
     public List<Ingredient> moveCheckedItemsToPantry() {
-        List<Ingredient> itemsToMove = new ArrayList<>(checkedItems);
+        List<Ingredient> itemsToMove = getCheckedItems();
 
         // Remove checked items from grocery list
-        for (Ingredient ingredient : checkedItems) {
-            removeIngredient(ingredient);
-        }
-
-        // Clear checked items
-        checkedItems.clear();
+        removeItemsIf(GroceryItem::isChecked);
 
         return itemsToMove;
     }
 
+    // Move checked items into the pantry, merging each into any matching pantry ingredient
+    public List<Ingredient> moveCheckedItemsToPantry(Pantry pantry) {
+        List<Ingredient> moved = moveCheckedItemsToPantry();
+        pantry.addIngredients(moved);
+        return moved;
+    }
+
     // Clear all ingredients and checked items from the grocery list
     public void clearGroceryList() {
-        this.ingredientsByAisle.clear();
-        this.checkedItems.clear();
+        this.items.clear();
+        invalidateIndexes();
+        recordChange(ChangeLog.CLEAR, null);
+        refreshSnapshot();
     }
 
     // Getters and setters
@@ -125,32 +184,137 @@ public class GroceryList {
         this.userId = userId;
     }
 
-    public Map<String, List<Ingredient>> getIngredientsByAisle() {
-        return ingredientsByAisle;
+    public long getVersion() {
+        return version;
     }
 
-    public void setIngredientsByAisle(Map<String, List<Ingredient>> ingredientsByAisle) {
-        this.ingredientsByAisle = ingredientsByAisle;
+    // The list as of the last change, safe to read without the user's lock
+    public GroceryListSnapshot snapshot() {
+        GroceryListSnapshot current = snapshot;
+        return current != null ? current : refreshSnapshot();
     }
 
+    // Rebuild the snapshot from the current items. Mutators do this themselves; code that fills a
+    // list's fields directly, like deserialization, calls it before sharing the list.
+    public GroceryListSnapshot refreshSnapshot() {
+        index();
+        GroceryListSnapshot current = new GroceryListSnapshot(items, version);
+        snapshot = current;
+        return current;
+    }
+
+    // Changes made after the given version, oldest first, or null if the client needs a full
+    // snapshot because they are no longer in the log
+    public List<ChangeLog.Change<GroceryItem>> getChangesSince(long sinceVersion) {
+        return changeLog.since(sinceVersion, version);
+    }
+
+    // Items with their checked state, in the order they were added
+    public List<GroceryItem> getItems() {
+        index();
+        return Collections.unmodifiableList(items);
+    }
+
+    // Ingredients grouped by aisle; a snapshot, so changes must go through the list's methods
+    public Map<String, List<Ingredient>> getIngredientsByAisle() {
+        Map<String, List<Ingredient>> ingredientsByAisle = new LinkedHashMap<>();
+        for (GroceryItem item : items) {
+            ingredientsByAisle.computeIfAbsent(aisleOf(item.getIngredient()), a -> new ArrayList<>())
+                    .add(item.getIngredient());
+        }
+        return ingredientsByAisle;
+    }
+
+    // Checked ingredients; a snapshot, so changes must go through checkItem and uncheckItem
     public List<Ingredient> getCheckedItems() {
+        List<Ingredient> checkedItems = new ArrayList<>();
+        for (GroceryItem item : items) {
+            if (item.isChecked()) {
+                checkedItems.add(item.getIngredient());
+            }
+        }
         return checkedItems;
     }
 
-    public void setCheckedItems(List<Ingredient> checkedItems) {
-        this.checkedItems = checkedItems;
+    private static String aisleOf(Ingredient ingredient) {
+        return ingredient.getAisle() != null ? ingredient.getAisle() : "Other";
+    }
+
+    // Ingredients merge when they share an aisle and name and their units convert into each other
+    private static String keyOf(Ingredient ingredient) {
+        Unit unit = ingredient.getCanonicalUnit();
+        String measure = unit != null
+                ? unit.getDimension().name()
+                : ingredient.getUnit().trim().toLowerCase(Locale.ROOT);
+        return aisleOf(ingredient) + '\u0000'
+                + ingredient.getName().trim().toLowerCase(Locale.ROOT) + '\u0000'
+                + measure;
+    }
+
+    private Map<String, GroceryItem> index() {
+        if (itemsByKey == null) {
+            itemsByKey = new HashMap<>();
+            itemsById = new HashMap<>();
+            for (GroceryItem item : items) {
+                if (item.getId() <= 0) {
+                    // Lists saved before items had ids
+                    item.setId(nextItemId++);
+                }
+                itemsByKey.putIfAbsent(keyOf(item.getIngredient()), item);
+                itemsById.put(item.getId(), item);
+            }
+        }
+        return itemsByKey;
+    }
+
+    private void setChecked(GroceryItem item, boolean checked) {
+        if (item.isChecked() != checked) {
+            item.setChecked(checked);
+            recordChange(ChangeLog.UPDATE, item);
+            refreshSnapshot();
+        }
+    }
+
+    private boolean removeItemsIf(Predicate<GroceryItem> filter) {
+        boolean removed = false;
+        for (Iterator<GroceryItem> it = items.iterator(); it.hasNext(); ) {
+            GroceryItem item = it.next();
+            if (filter.test(item)) {
+                it.remove();
+                recordChange(ChangeLog.REMOVE, item);
+                removed = true;
+            }
+        }
+        if (removed) {
+            invalidateIndexes();
+            refreshSnapshot();
+        }
+        return removed;
+    }
+
+    // Bump the version and log a copy of the item, so later edits don't rewrite history
+    private void recordChange(String op, GroceryItem item) {
+        // Log before publishing the new version, so readers never see a version the log lacks
+        long next = version + 1;
+        changeLog.record(next, op, item != null ? new GroceryItem(item) : null);
+        version = next;
+    }
+
+    private void invalidateIndexes() {
+        itemsByKey = null;
+        itemsById = null;
     }
 
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder("Grocery List:\n");
 
-        for (Map.Entry<String, List<Ingredient>> entry : ingredientsByAisle.entrySet()) {
+        for (Map.Entry<String, List<Ingredient>> entry : getIngredientsByAisle().entrySet()) {
             sb.append("\n").append(entry.getKey()).append(":\n");
 
             for (Ingredient ingredient : entry.getValue()) {
                 sb.append("- ").append(ingredient.toString());
-                if (checkedItems.contains(ingredient)) {
+                if (isChecked(ingredient)) {
                     sb.append(" ✓");
                 }
                 sb.append("\n");
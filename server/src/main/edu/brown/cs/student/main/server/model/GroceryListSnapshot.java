@@ -0,0 +1,35 @@
+package main.edu.brown.cs.student.main.server.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable copy of a grocery list at one version, for handlers that read it without the user's
+ * lock.
+ *
+ * GroceryList rebuilds it after each change, so reads share one instance until the next write.
+ * The items are copies and must not be modified.
+ */
+public final class GroceryListSnapshot {
+    private final List<GroceryItem> items;
+    private final long version;
+
+    GroceryListSnapshot(List<GroceryItem> live, long version) {
+        List<GroceryItem> copies = new ArrayList<>(live.size());
+        for (GroceryItem item : live) {
+            copies.add(new GroceryItem(item));
+        }
+        this.items = Collections.unmodifiableList(copies);
+        this.version = version;
+    }
+
+    // Items with their checked state, in the order they were added
+    public List<GroceryItem> getItems() {
+        return items;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+}
@@ -12,6 +12,10 @@ public class Ingredient {
   private boolean containsAllergen;
   private String[] possibleAllergens;
 
+  // Unit resolved from the unit string, cached so quantity comparisons do no string work
+  private transient Unit canonicalUnit;
+  private transient boolean unitResolved;
+
   public Ingredient() {
   }
 
@@ -26,6 +30,52 @@ public class Ingredient {
     this.possibleAllergens = new String[0];
   }
 
+  // Copy constructor, used when handing out cached ingredients that callers may mutate
+  public Ingredient(Ingredient other) {
+    this.id = other.id;
+    this.name = other.name;
+    this.aisle = other.aisle;
+    this.amount = other.amount;
+    this.unit = other.unit;
+    this.originalString = other.originalString;
+    this.containsAllergen = other.containsAllergen;
+    this.possibleAllergens = other.possibleAllergens != null ? other.possibleAllergens.clone() : null;
+    this.canonicalUnit = other.canonicalUnit;
+    this.unitResolved = other.unitResolved;
+  }
+
+  // Canonical unit of this ingredient's amount, or null if the unit string isn't convertible
+  public Unit getCanonicalUnit() {
+    if (!unitResolved) {
+      canonicalUnit = Unit.of(unit);
+      unitResolved = true;
+    }
+    return canonicalUnit;
+  }
+
+  // Amount in the base unit of its dimension (ml, g or items), or the raw amount if unconvertible
+  public double getBaseAmount() {
+    Unit canonical = getCanonicalUnit();
+    return canonical != null ? canonical.toBase(amount) : amount;
+  }
+
+  // Check if amounts of this and another ingredient can be compared or added
+  public boolean isMeasuredLike(Ingredient other) {
+    Unit mine = getCanonicalUnit();
+    Unit theirs = other.getCanonicalUnit();
+    if (mine != null || theirs != null) {
+      return mine != null && theirs != null && mine.getDimension() == theirs.getDimension();
+    }
+    // Two units we can't convert are only comparable if they are the same unit
+    return unit.trim().equalsIgnoreCase(other.unit.trim());
+  }
+
+  // This ingredient's amount expressed in another ingredient's unit; requires isMeasuredLike
+  public double amountIn(Ingredient target) {
+    Unit targetUnit = target.getCanonicalUnit();
+    return targetUnit != null ? targetUnit.fromBase(getBaseAmount()) : amount;
+  }
+
   // Getters and setters
   public int getId() {
     return id;
@@ -65,6 +115,7 @@ public class Ingredient {
 
   public void setUnit(String unit) {
     this.unit = unit;
+    this.unitResolved = false;
   }
 
   public String getOriginalString() {
@@ -3,9 +3,25 @@ package main.edu.brown.cs.student.main.server.model;
 import java.util.*;
 
 public class Pantry {
+  // Tolerance for rounding in unit conversions
+  private static final double AMOUNT_EPSILON = 1e-6;
+
   private String userId;
   private Map<String, List<Ingredient>> ingredientsByCategory;
+  // Bumped on every change; clients send it back to fetch only newer changes. Written under
+  // the user's lock, volatile for handlers that read it without one.
+  private volatile long version;
+
+  // Lookup indexes over ingredientsByCategory, keyed by normalized name and by Spoonacular id.
+  // They are derived state: not serialized, and rebuilt on first use after a load or a removal.
+  private transient Map<String, Ingredient> ingredientsByName;
+  private transient Map<Integer, Ingredient> ingredientsById;
+  // Recent changes, kept in memory only: after a restart clients fall back to a full snapshot
+  private final transient ChangeLog<Ingredient> changeLog = new ChangeLog<>();
+  // What lock-free readers see; replaced, never modified, after every change
+  private transient volatile PantrySnapshot snapshot;
 
+  // Also used by deserialization, which fills fields afterwards, so the snapshot is built lazily
   public Pantry() {
     this.ingredientsByCategory = new HashMap<>();
   }
@@ -13,40 +29,51 @@ public class Pantry {
   public Pantry(String userId) {
     this.userId = userId;
     this.ingredientsByCategory = new HashMap<>();
+    refreshSnapshot();
   }
 
   // Add an ingredient to the pantry
   public void addIngredient(Ingredient ingredient) {
-    String category = ingredient.getAisle() != null ? ingredient.getAisle() : "Other";
+    merge(ingredient);
+    refreshSnapshot();
+  }
 
-    if (!ingredientsByCategory.containsKey(category)) {
-      ingredientsByCategory.put(category, new ArrayList<>());
-    }
-
-    // Check if ingredient already exists in the pantry
-    boolean exists = false;
-    for (Ingredient existingIngredient : ingredientsByCategory.get(category)) {
-      if (existingIngredient.getName().equalsIgnoreCase(ingredient.getName())) {
-        // If the same ingredient exists, update the amount
-        existingIngredient.setAmount(existingIngredient.getAmount() + ingredient.getAmount());
-        existingIngredient.setOriginalString(existingIngredient.getAmount() + " " +
-            existingIngredient.getUnit() + " " +
-            existingIngredient.getName());
-        exists = true;
-        break;
-      }
+  // Add multiple ingredients to the pantry, publishing one snapshot once all are in
+  public void addIngredients(List<Ingredient> ingredients) {
+    for (Ingredient ingredient : ingredients) {
+      merge(ingredient);
     }
+    refreshSnapshot();
+  }
 
-    if (!exists) {
-      ingredientsByCategory.get(category).add(ingredient);
+  // Add an ingredient or merge it into a matching one, without rebuilding the snapshot
+  private void merge(Ingredient ingredient) {
+    String category = ingredient.getAisle() != null ? ingredient.getAisle() : "Other";
+    List<Ingredient> categoryIngredients =
+        ingredientsByCategory.computeIfAbsent(category, c -> new ArrayList<>());
+
+    // Check if ingredient already exists in the pantry under this category, measured in a
+    // compatible unit; the index holds one ingredient per name, so fall back to scanning the
+    // category if it points at another one
+    Ingredient existingIngredient = getIngredient(ingredient.getName());
+    if (existingIngredient != null && (!category.equals(categoryOf(existingIngredient))
+        || !existingIngredient.isMeasuredLike(ingredient))) {
+      existingIngredient = findMergeable(categoryIngredients, ingredient);
     }
-  }
 
-  // Add multiple ingredients to the pantry
-  public void addIngredients(List<Ingredient> ingredients) {
-    for (Ingredient ingredient : ingredients) {
-      addIngredient(ingredient);
+    if (existingIngredient != null) {
+      // If the same ingredient exists, update the amount, converted to the existing unit
+      existingIngredient.setAmount(existingIngredient.getAmount() + ingredient.amountIn(existingIngredient));
+      existingIngredient.setOriginalString(existingIngredient.getAmount() + " " +
+          existingIngredient.getUnit() + " " +
+          existingIngredient.getName());
+      recordChange(ChangeLog.UPDATE, existingIngredient);
+      return;
     }
+
+    categoryIngredients.add(ingredient);
+    index(ingredient);
+    recordChange(ChangeLog.ADD, ingredient);
   }
 
   // Remove an ingredient from the pantry
@@ -54,58 +81,86 @@ public class Pantry {
     String category = ingredient.getAisle() != null ? ingredient.getAisle() : "Other";
 
     if (ingredientsByCategory.containsKey(category)) {
-      ingredientsByCategory.get(category).removeIf(i -> i.getName().equalsIgnoreCase(ingredient.getName()));
+      boolean removed = false;
+      for (Iterator<Ingredient> it = ingredientsByCategory.get(category).iterator(); it.hasNext(); ) {
+        Ingredient candidate = it.next();
+        if (candidate.getName().equalsIgnoreCase(ingredient.getName())) {
+          it.remove();
+          recordChange(ChangeLog.REMOVE, candidate);
+          removed = true;
+        }
+      }
 
       // Remove the category if it's empty
       if (ingredientsByCategory.get(category).isEmpty()) {
         ingredientsByCategory.remove(category);
       }
+
+      // Another category may hold an ingredient with the same name, so rebuild rather than unlink
+      if (removed) {
+        invalidateIndexes();
+        refreshSnapshot();
+      }
     }
   }
 
+  // Remove every ingredient from the pantry
+  public void clear() {
+    ingredientsByCategory.clear();
+    invalidateIndexes();
+    recordChange(ChangeLog.CLEAR, null);
+    refreshSnapshot();
+  }
+
   // Update an ingredient's amount (e.g., when using in a recipe)
   public void updateIngredientAmount(String ingredientName, double newAmount) {
-    for (List<Ingredient> categoryIngredients : ingredientsByCategory.values()) {
-      for (Ingredient ingredient : categoryIngredients) {
-        if (ingredient.getName().equalsIgnoreCase(ingredientName)) {
-          ingredient.setAmount(newAmount);
-          ingredient.setOriginalString(ingredient.getAmount() + " " +
-              ingredient.getUnit() + " " +
-              ingredient.getName());
-          return;
-        }
-      }
+    Ingredient ingredient = getIngredient(ingredientName);
+    if (ingredient != null) {
+      ingredient.setAmount(newAmount);
+      ingredient.setOriginalString(ingredient.getAmount() + " " +
+          ingredient.getUnit() + " " +
+          ingredient.getName());
+      recordChange(ChangeLog.UPDATE, ingredient);
+      refreshSnapshot();
     }
   }
 
-  // Check if the pantry contains an ingredient (exact match)
+  // Check if the pantry contains an ingredient (case-insensitive name match)
   public boolean containsIngredient(String ingredientName) {
-    for (List<Ingredient> categoryIngredients : ingredientsByCategory.values()) {
-      for (Ingredient ingredient : categoryIngredients) {
-        if (ingredient.getName().equalsIgnoreCase(ingredientName)) {
-          return true;
-        }
-      }
+    return getIngredient(ingredientName) != null;
+  }
+
+  // Look up a pantry ingredient by name, or null if the pantry has none
+  public Ingredient getIngredient(String ingredientName) {
+    if (ingredientName == null) {
+      return null;
     }
-    return false;
+    return nameIndex().get(normalize(ingredientName));
+  }
+
+  // Look up a pantry ingredient by Spoonacular id, or null if the pantry has none
+  public Ingredient getIngredientById(int id) {
+    return idIndex().get(id);
   }
 
   // Check if pantry has enough of an ingredient for a recipe
   public boolean hasEnoughOf(Ingredient recipeIngredient) {
-    for (List<Ingredient> categoryIngredients : ingredientsByCategory.values()) {
-      for (Ingredient pantryIngredient : categoryIngredients) {
-        if (pantryIngredient.getName().equalsIgnoreCase(recipeIngredient.getName())) {
-          // If units match, do a direct comparison
-          if (pantryIngredient.getUnit().equalsIgnoreCase(recipeIngredient.getUnit())) {
-            return pantryIngredient.getAmount() >= recipeIngredient.getAmount();
-          }
-          // If units don't match, assume we have it (unit conversion is complex)
-          // In a full implementation, you would want to add unit conversion logic here
-          return true;
-        }
-      }
+    Ingredient pantryIngredient = getIngredient(recipeIngredient.getName());
+    if (pantryIngredient == null && recipeIngredient.getId() > 0) {
+      // Spoonacular names vary ("egg" vs "eggs") but ids don't
+      pantryIngredient = getIngredientById(recipeIngredient.getId());
+    }
+    return pantryIngredient != null && covers(pantryIngredient, recipeIngredient);
+  }
+
+  // Check if a pantry ingredient covers the amount a recipe needs
+  static boolean covers(Ingredient pantryIngredient, Ingredient recipeIngredient) {
+    // Amounts in the same dimension compare in base units (e.g. cups against ml)
+    if (pantryIngredient.isMeasuredLike(recipeIngredient)) {
+      return pantryIngredient.getBaseAmount() >= recipeIngredient.getBaseAmount() - AMOUNT_EPSILON;
     }
-    return false;
+    // Mass against volume needs a density we don't have, so assume we have enough
+    return true;
   }
 
   // Get all ingredients in the pantry as a flat list
@@ -138,6 +193,16 @@ public class Pantry {
     return result;
   }
 
+  // Lookup indexes over the current snapshot, for scoring many recipes; needs no lock
+  public PantryView view() {
+    return snapshot().view();
+  }
+
+  // Score a batch of recipes against one snapshot of the pantry, in parallel for large batches
+  public List<PantryMatch> compareWithRecipes(List<Recipe> recipes) {
+    return view().matchAll(recipes);
+  }
+
   // Getters and setters
   public String getUserId() {
     return userId;
@@ -145,6 +210,7 @@ public class Pantry {
 
   public void setUserId(String userId) {
     this.userId = userId;
+    refreshSnapshot();
   }
 
   public Map<String, List<Ingredient>> getIngredientsByCategory() {
@@ -153,6 +219,105 @@ public class Pantry {
 
   public void setIngredientsByCategory(Map<String, List<Ingredient>> ingredientsByCategory) {
     this.ingredientsByCategory = ingredientsByCategory;
+    invalidateIndexes();
+
+    // Replaced wholesale: no change list describes this, so clients must take a snapshot
+    changeLog.clear();
+    version++;
+    refreshSnapshot();
+  }
+
+  public long getVersion() {
+    return version;
+  }
+
+  // The pantry as of the last change, safe to read without the user's lock
+  public PantrySnapshot snapshot() {
+    PantrySnapshot current = snapshot;
+    return current != null ? current : refreshSnapshot();
+  }
+
+  // Rebuild the snapshot from the current contents. Mutators do this themselves; code that fills
+  // a pantry's fields directly, like deserialization, calls it before sharing the pantry.
+  public PantrySnapshot refreshSnapshot() {
+    PantrySnapshot current = new PantrySnapshot(userId, ingredientsByCategory, version);
+    snapshot = current;
+    return current;
+  }
+
+  // Changes made after the given version, oldest first, or null if the client needs a full
+  // snapshot because they are no longer in the log
+  public List<ChangeLog.Change<Ingredient>> getChangesSince(long sinceVersion) {
+    return changeLog.since(sinceVersion, version);
+  }
+
+  public static String normalize(String ingredientName) {
+    return ingredientName.trim().toLowerCase(Locale.ROOT);
+  }
+
+  // The category an ingredient is filed under
+  public static String categoryOf(Ingredient ingredient) {
+    return ingredient.getAisle() != null ? ingredient.getAisle() : "Other";
+  }
+
+  static Ingredient findMergeable(List<Ingredient> ingredients, Ingredient added) {
+    for (Ingredient ingredient : ingredients) {
+      if (ingredient.getName().equalsIgnoreCase(added.getName()) && ingredient.isMeasuredLike(added)) {
+        return ingredient;
+      }
+    }
+    return null;
+  }
+
+  private Map<String, Ingredient> nameIndex() {
+    if (ingredientsByName == null) {
+      rebuildIndexes();
+    }
+    return ingredientsByName;
+  }
+
+  private Map<Integer, Ingredient> idIndex() {
+    if (ingredientsById == null) {
+      rebuildIndexes();
+    }
+    return ingredientsById;
+  }
+
+  private void rebuildIndexes() {
+    ingredientsByName = new HashMap<>();
+    ingredientsById = new HashMap<>();
+    for (List<Ingredient> categoryIngredients : ingredientsByCategory.values()) {
+      for (Ingredient ingredient : categoryIngredients) {
+        index(ingredient);
+      }
+    }
+  }
+
+  // The first ingredient seen for a name or id wins, matching the old first-match scans
+  private void index(Ingredient ingredient) {
+    if (ingredientsByName == null) {
+      rebuildIndexes();
+      return;
+    }
+    if (ingredient.getName() != null) {
+      ingredientsByName.putIfAbsent(normalize(ingredient.getName()), ingredient);
+    }
+    if (ingredient.getId() > 0) {
+      ingredientsById.putIfAbsent(ingredient.getId(), ingredient);
+    }
+  }
+
+  // Bump the version and log a copy of the ingredient, so later edits don't rewrite history
+  private void recordChange(String op, Ingredient ingredient) {
+    // Log before publishing the new version, so readers never see a version the log lacks
+    long next = version + 1;
+    changeLog.record(next, op, ingredient != null ? new Ingredient(ingredient) : null);
+    version = next;
+  }
+
+  private void invalidateIndexes() {
+    ingredientsByName = null;
+    ingredientsById = null;
   }
 
   @Override
@@ -0,0 +1,69 @@
+package main.edu.brown.cs.student.main.server.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Result of scoring one recipe against a pantry: how many of its ingredients are covered, and
+ * which ones are missing, as positions in the recipe's ingredient list.
+ */
+public final class PantryMatch {
+  private final int recipeId;
+  private final int availableCount;
+  private final int totalCount;
+  private final int[] missingPositions;
+
+  PantryMatch(int recipeId, int availableCount, int totalCount, int[] missingPositions) {
+    this.recipeId = recipeId;
+    this.availableCount = availableCount;
+    this.totalCount = totalCount;
+    this.missingPositions = missingPositions;
+  }
+
+  public int getRecipeId() {
+    return recipeId;
+  }
+
+  public int getAvailableCount() {
+    return availableCount;
+  }
+
+  public int getTotalCount() {
+    return totalCount;
+  }
+
+  public int getMissingCount() {
+    return missingPositions.length;
+  }
+
+  /**
+   * Spoonacular ids of the missing ingredients (0 for ingredients without one)
+   */
+  public int[] getMissingIngredientIds(Recipe recipe) {
+    int[] ids = new int[missingPositions.length];
+    for (int i = 0; i < missingPositions.length; i++) {
+      ids[i] = recipe.getIngredients().get(missingPositions[i]).getId();
+    }
+    return ids;
+  }
+
+  /**
+   * The missing ingredients of the recipe this match was computed for
+   */
+  public List<Ingredient> getMissingIngredients(Recipe recipe) {
+    List<Ingredient> missing = new ArrayList<>(missingPositions.length);
+    for (int position : missingPositions) {
+      missing.add(recipe.getIngredients().get(position));
+    }
+    return missing;
+  }
+
+  /**
+   * Record this match on the recipe, as compareWithRecipe results are
+   */
+  public void applyTo(Recipe recipe) {
+    recipe.setAvailableIngredients(availableCount);
+    recipe.setTotalIngredients(totalCount);
+    recipe.setMissingIngredients(getMissingIngredients(recipe));
+  }
+}
@@ -0,0 +1,79 @@
+package main.edu.brown.cs.student.main.server.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable copy of a pantry at one version, for handlers that read it without the user's lock.
+ *
+ * Pantry rebuilds it after each change, so reads share one instance until the next write. It
+ * serializes to the same JSON as the pantry itself. The ingredients are copies and must not be
+ * modified.
+ */
+public final class PantrySnapshot {
+  private final String userId;
+  private final Map<String, List<Ingredient>> ingredientsByCategory;
+  private final long version;
+
+  // Flattened and indexed once here, rather than by every reader
+  private final transient List<Ingredient> ingredients;
+  private final transient PantryView view;
+
+  PantrySnapshot(String userId, Map<String, List<Ingredient>> live, long version) {
+    Map<String, List<Ingredient>> byCategory = new LinkedHashMap<>();
+    List<Ingredient> all = new ArrayList<>();
+    Map<String, Ingredient> byName = new HashMap<>();
+    Map<Integer, Ingredient> byId = new HashMap<>();
+    for (Map.Entry<String, List<Ingredient>> entry : live.entrySet()) {
+      List<Ingredient> copies = new ArrayList<>(entry.getValue().size());
+      for (Ingredient ingredient : entry.getValue()) {
+        Ingredient copy = new Ingredient(ingredient);
+        copies.add(copy);
+        // The first ingredient seen for a name or id wins, as in the pantry's own indexes
+        if (copy.getName() != null) {
+          byName.putIfAbsent(Pantry.normalize(copy.getName()), copy);
+        }
+        if (copy.getId() > 0) {
+          byId.putIfAbsent(copy.getId(), copy);
+        }
+      }
+      byCategory.put(entry.getKey(), Collections.unmodifiableList(copies));
+      all.addAll(copies);
+    }
+    this.userId = userId;
+    this.ingredientsByCategory = Collections.unmodifiableMap(byCategory);
+    this.ingredients = Collections.unmodifiableList(all);
+    this.view = new PantryView(byName, byId);
+    this.version = version;
+  }
+
+  public String getUserId() {
+    return userId;
+  }
+
+  public Map<String, List<Ingredient>> getIngredientsByCategory() {
+    return ingredientsByCategory;
+  }
+
+  /**
+   * Every ingredient as a flat list
+   */
+  public List<Ingredient> getIngredients() {
+    return ingredients;
+  }
+
+  public long getVersion() {
+    return version;
+  }
+
+  /**
+   * Lookup indexes over this snapshot, for scoring many recipes
+   */
+  public PantryView view() {
+    return view;
+  }
+}
@@ -0,0 +1,75 @@
+package main.edu.brown.cs.student.main.server.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Immutable snapshot of a pantry's lookup indexes, for scoring many recipes at once.
+ *
+ * It indexes a PantrySnapshot's ingredient copies, so it can be shared by worker threads while the
+ * pantry itself keeps changing.
+ */
+public final class PantryView {
+  // Below this many recipes, splitting the work costs more than it saves
+  static final int PARALLEL_THRESHOLD = 32;
+
+  private final Map<String, Ingredient> ingredientsByName;
+  private final Map<Integer, Ingredient> ingredientsById;
+
+  // Takes ownership of the snapshot's maps, which nothing else modifies
+  PantryView(Map<String, Ingredient> byName, Map<Integer, Ingredient> byId) {
+    this.ingredientsByName = Collections.unmodifiableMap(byName);
+    this.ingredientsById = Collections.unmodifiableMap(byId);
+  }
+
+  /**
+   * Check if the pantry has enough of an ingredient for a recipe
+   */
+  public boolean hasEnoughOf(Ingredient recipeIngredient) {
+    Ingredient pantryIngredient = recipeIngredient.getName() != null
+        ? ingredientsByName.get(Pantry.normalize(recipeIngredient.getName()))
+        : null;
+    if (pantryIngredient == null && recipeIngredient.getId() > 0) {
+      pantryIngredient = ingredientsById.get(recipeIngredient.getId());
+    }
+    return pantryIngredient != null && Pantry.covers(pantryIngredient, recipeIngredient);
+  }
+
+  /**
+   * Score one recipe against the pantry
+   */
+  public PantryMatch match(Recipe recipe) {
+    List<Ingredient> ingredients = recipe.getIngredients();
+    int[] missing = new int[ingredients.size()];
+    int missingCount = 0;
+    for (int i = 0; i < ingredients.size(); i++) {
+      if (!hasEnoughOf(ingredients.get(i))) {
+        missing[missingCount++] = i;
+      }
+    }
+
+    int[] missingPositions = missingCount == missing.length ? missing : Arrays.copyOf(missing, missingCount);
+    return new PantryMatch(recipe.getId(), ingredients.size() - missingCount, ingredients.size(),
+        missingPositions);
+  }
+
+  /**
+   * Score every recipe, in order. Large batches are split across the common fork/join pool.
+   */
+  public List<PantryMatch> matchAll(List<Recipe> recipes) {
+    PantryMatch[] matches = new PantryMatch[recipes.size()];
+    IntStream indexes = IntStream.range(0, matches.length);
+    if (matches.length >= PARALLEL_THRESHOLD) {
+      indexes = indexes.parallel();
+    }
+    indexes.forEach(i -> matches[i] = match(recipes.get(i)));
+
+    List<PantryMatch> result = new ArrayList<>(matches.length);
+    Collections.addAll(result, matches);
+    return result;
+  }
+}
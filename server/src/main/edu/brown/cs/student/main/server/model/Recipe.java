@@ -14,6 +14,7 @@ public class Recipe {
   private List<String> instructions;
   private String cuisine;
   private List<String> diets;
+  private List<String> dishTypes;
   private boolean vegetarian;
   private boolean vegan;
   private boolean glutenFree;
@@ -24,11 +25,57 @@ public class Recipe {
   private int totalIngredients;
   private List<Ingredient> missingIngredients;
 
+  // For allergen badges: the user's allergens that some ingredient mentions
+  private List<String> allergens;
+
   public Recipe() {
     this.ingredients = new ArrayList<>();
     this.instructions = new ArrayList<>();
     this.diets = new ArrayList<>();
+    this.dishTypes = new ArrayList<>();
     this.missingIngredients = new ArrayList<>();
+    this.allergens = new ArrayList<>();
+  }
+
+  // Deep copy, so per-user pantry and allergen annotations never leak into shared (cached) recipes
+  public Recipe copy() {
+    Recipe copy = new Recipe();
+    copy.id = id;
+    copy.title = title;
+    copy.image = image;
+    copy.readyInMinutes = readyInMinutes;
+    copy.servings = servings;
+    copy.sourceUrl = sourceUrl;
+    copy.cuisine = cuisine;
+    copy.vegetarian = vegetarian;
+    copy.vegan = vegan;
+    copy.glutenFree = glutenFree;
+    copy.dairyFree = dairyFree;
+    copy.availableIngredients = availableIngredients;
+    copy.totalIngredients = totalIngredients;
+    if (ingredients != null) {
+      for (Ingredient ingredient : ingredients) {
+        copy.ingredients.add(new Ingredient(ingredient));
+      }
+    }
+    if (instructions != null) {
+      copy.instructions.addAll(instructions);
+    }
+    if (diets != null) {
+      copy.diets.addAll(diets);
+    }
+    if (dishTypes != null) {
+      copy.dishTypes.addAll(dishTypes);
+    }
+    if (missingIngredients != null) {
+      for (Ingredient ingredient : missingIngredients) {
+        copy.missingIngredients.add(new Ingredient(ingredient));
+      }
+    }
+    if (allergens != null) {
+      copy.allergens.addAll(allergens);
+    }
+    return copy;
   }
 
   // Getters and setters
@@ -119,6 +166,14 @@ public class Recipe {
     this.diets = diets;
   }
 
+  public List<String> getDishTypes() {
+    return dishTypes;
+  }
+
+  public void setDishTypes(List<String> dishTypes) {
+    this.dishTypes = dishTypes;
+  }
+
   public boolean isVegetarian() {
     return vegetarian;
   }
@@ -175,6 +230,14 @@ public class Recipe {
     this.missingIngredients = missingIngredients;
   }
 
+  public List<String> getAllergens() {
+    return allergens;
+  }
+
+  public void setAllergens(List<String> allergens) {
+    this.allergens = allergens;
+  }
+
   public String getPantryStatus() {
     return availableIngredients + "/" + totalIngredients + " ingredients available";
   }
@@ -0,0 +1,91 @@
+package main.edu.brown.cs.student.main.server.model;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Canonical measurement units, each with a fixed factor to its dimension's base unit (ml for
+ * volume, g for mass, one item for counts).
+ *
+ * Unit strings from Spoonacular and users ("Tbsp", "tablespoons", "c", ...) are resolved once
+ * through a precomputed alias table; after that, converting is a single multiplication.
+ */
+public enum Unit {
+  MILLILITER(Dimension.VOLUME, 1, "ml", "milliliter", "milliliters", "millilitre", "millilitres", "cc"),
+  LITER(Dimension.VOLUME, 1000, "l", "liter", "liters", "litre", "litres"),
+  TEASPOON(Dimension.VOLUME, 4.92892, "tsp", "tsps", "teaspoon", "teaspoons"),
+  TABLESPOON(Dimension.VOLUME, 14.7868, "tbsp", "tbsps", "tbs", "tablespoon", "tablespoons"),
+  FLUID_OUNCE(Dimension.VOLUME, 29.5735, "fl oz", "fl. oz", "fluid ounce", "fluid ounces"),
+  CUP(Dimension.VOLUME, 236.588, "cup", "cups", "c"),
+  PINT(Dimension.VOLUME, 473.176, "pt", "pint", "pints"),
+  QUART(Dimension.VOLUME, 946.353, "qt", "quart", "quarts"),
+  GALLON(Dimension.VOLUME, 3785.41, "gal", "gallon", "gallons"),
+
+  MILLIGRAM(Dimension.MASS, 0.001, "mg", "milligram", "milligrams"),
+  GRAM(Dimension.MASS, 1, "g", "gr", "gram", "grams", "gramme", "grammes"),
+  KILOGRAM(Dimension.MASS, 1000, "kg", "kilogram", "kilograms"),
+  OUNCE(Dimension.MASS, 28.3495, "oz", "ounce", "ounces"),
+  POUND(Dimension.MASS, 453.592, "lb", "lbs", "pound", "pounds"),
+
+  EACH(Dimension.COUNT, 1, "", "each", "ea", "piece", "pieces", "pc", "pcs", "whole", "large",
+      "medium", "small", "serving", "servings");
+
+  public enum Dimension {
+    VOLUME, MASS, COUNT
+  }
+
+  private static final Map<String, Unit> ALIASES = new HashMap<>();
+
+  static {
+    for (Unit unit : values()) {
+      for (String alias : unit.aliases) {
+        ALIASES.put(alias, unit);
+      }
+    }
+  }
+
+  private final Dimension dimension;
+  private final double factor;
+  private final String[] aliases;
+
+  Unit(Dimension dimension, double factor, String... aliases) {
+    this.dimension = dimension;
+    this.factor = factor;
+    this.aliases = aliases;
+  }
+
+  /**
+   * Resolve a unit string, or return null if it isn't a unit we can convert (e.g. "clove",
+   * "pinch"). A missing unit means a plain count.
+   */
+  public static Unit of(String unit) {
+    if (unit == null) {
+      return EACH;
+    }
+    String key = unit.trim().toLowerCase(Locale.ROOT);
+    if (key.endsWith(".")) {
+      key = key.substring(0, key.length() - 1);
+    }
+    return ALIASES.get(key);
+  }
+
+  public Dimension getDimension() {
+    return dimension;
+  }
+
+  /**
+   * Amount of the dimension's base unit in one of this unit
+   */
+  public double getFactor() {
+    return factor;
+  }
+
+  public double toBase(double amount) {
+    return amount * factor;
+  }
+
+  public double fromBase(double baseAmount) {
+    return baseAmount / factor;
+  }
+}
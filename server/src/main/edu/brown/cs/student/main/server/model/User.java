@@ -137,6 +137,12 @@ public class User {
     this.email = email;
   }
 
+  // Rebuild the pantry and grocery list read snapshots, e.g. after loading the user from JSON
+  public void refreshSnapshots() {
+    pantry.refreshSnapshot();
+    groceryList.refreshSnapshot();
+  }
+
   public Pantry getPantry() {
     return pantry;
   }
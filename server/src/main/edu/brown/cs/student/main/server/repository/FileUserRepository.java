@@ -0,0 +1,294 @@
+package main.edu.brown.cs.student.main.server.repository;
+
+import com.squareup.moshi.JsonAdapter;
+import com.squareup.moshi.JsonDataException;
+import main.edu.brown.cs.student.main.server.codec.JsonCodec;
+import main.edu.brown.cs.student.main.server.model.User;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * UserRepository that keeps users in memory and makes them durable with a write-ahead log and
+ * periodic snapshots.
+ *
+ * Every save appends "seq TAB user-json" to users.wal before returning. After snapshotEvery
+ * saves, all users are written to users.snapshot (via a temp file and an atomic rename, headed by
+ * the last sequence number it covers) and the log is truncated. On startup the snapshot is loaded
+ * and log records newer than it are replayed; a torn last record from a crash is skipped, and
+ * skipped records are counted rather than failing the start.
+ *
+ * A user is serialized under its own monitor before the log lock is taken, and snapshots are
+ * written from the JSON last logged for each user, so the log lock is never held while waiting
+ * for a user's monitor.
+ */
+public class FileUserRepository implements UserRepository, Closeable {
+  private static final String SNAPSHOT_FILE = "users.snapshot";
+  private static final String LOG_FILE = "users.wal";
+
+  private final ConcurrentHashMap<String, User> users = new ConcurrentHashMap<>();
+  private final JsonAdapter<User> adapter = JsonCodec.MOSHI.adapter(User.class);
+  private final Path snapshotFile;
+  private final Path logFile;
+  private final int snapshotEvery;
+  private final boolean syncWrites;
+
+  // Guards the log channel, the sequence number and snapshotting
+  private final Object logLock = new Object();
+  private final FileChannel log;
+  private long sequence;
+  private int savesSinceSnapshot;
+  // The JSON last logged (or loaded) for each user, in log order, which is what a snapshot writes
+  private final Map<String, String> latestJson = new HashMap<>();
+  // Set while replaying, before the repository is shared
+  private int skippedRecords;
+  private String lastSkippedRecord;
+
+  /**
+   * @param snapshotEvery number of saves between snapshots
+   * @param syncWrites whether to fsync the log on every save, rather than leaving it to the OS
+   */
+  public FileUserRepository(Path directory, int snapshotEvery, boolean syncWrites) throws IOException {
+    Files.createDirectories(directory);
+    this.snapshotFile = directory.resolve(SNAPSHOT_FILE);
+    this.logFile = directory.resolve(LOG_FILE);
+    this.snapshotEvery = snapshotEvery;
+    this.syncWrites = syncWrites;
+
+    long snapshotSequence = loadSnapshot();
+    this.sequence = Math.max(snapshotSequence, replayLog(snapshotSequence));
+    boolean torn = endsWithTornRecord();
+    this.log = FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.APPEND);
+    if (torn) {
+      // End the torn record so the next one starts on its own line
+      log.write(ByteBuffer.wrap(new byte[] {'\n'}));
+    }
+  }
+
+  @Override
+  public User get(String userId) {
+    return users.get(userId);
+  }
+
+  @Override
+  public User getOrCreate(String userId) {
+    User existing = users.get(userId);
+    if (existing != null) {
+      return existing;
+    }
+
+    // Hold the new user's monitor from before it is visible until it is logged, so any save of it
+    // from another thread waits, and its record follows this one, as save()'s callers ensure
+    User created = new User(userId, "", "");
+    synchronized (created) {
+      User raced = users.putIfAbsent(userId, created);
+      if (raced != null) {
+        return raced;
+      }
+      append(created);
+    }
+    return created;
+  }
+
+  @Override
+  public boolean contains(String userId) {
+    return users.containsKey(userId);
+  }
+
+  @Override
+  public void save(User user) {
+    users.put(user.getId(), user);
+    append(user);
+  }
+
+  @Override
+  public int size() {
+    return users.size();
+  }
+
+  /**
+   * How many unreadable log records were skipped on startup
+   */
+  public int getSkippedRecords() {
+    return skippedRecords;
+  }
+
+  /**
+   * Why the last skipped log record couldn't be read, or null if none was skipped
+   */
+  public String getLastSkippedRecord() {
+    return lastSkippedRecord;
+  }
+
+  /**
+   * Write every user to a new snapshot and truncate the log
+   */
+  public void snapshot() throws IOException {
+    synchronized (logLock) {
+      Path temp = snapshotFile.resolveSibling(SNAPSHOT_FILE + ".tmp");
+      try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+        writer.write(Long.toString(sequence));
+        writer.newLine();
+        for (String json : latestJson.values()) {
+          writer.write(json);
+          writer.newLine();
+        }
+      }
+      try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+        channel.force(true);
+      }
+      Files.move(temp, snapshotFile, StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+
+      // Records up to the snapshot's sequence number are skipped on replay, so a crash before
+      // this truncate is harmless
+      log.truncate(0);
+      savesSinceSnapshot = 0;
+    }
+  }
+
+  /**
+   * Snapshot and release the log
+   */
+  @Override
+  public void close() throws IOException {
+    synchronized (logLock) {
+      snapshot();
+      log.close();
+    }
+  }
+
+  private void append(User user) {
+    String json = toJson(user);
+    synchronized (logLock) {
+      try {
+        sequence++;
+        ByteBuffer record = ByteBuffer.wrap(
+            (sequence + "\t" + json + "\n").getBytes(StandardCharsets.UTF_8));
+        while (record.hasRemaining()) {
+          log.write(record);
+        }
+        if (syncWrites) {
+          log.force(false);
+        }
+        latestJson.put(user.getId(), json);
+
+        if (++savesSinceSnapshot >= snapshotEvery) {
+          snapshot();
+        }
+      } catch (IOException e) {
+        throw new UncheckedIOException("Failed to persist user " + user.getId(), e);
+      }
+    }
+  }
+
+  // Serialize under the user's monitor, so callers that lock a user while mutating it always log
+  // a consistent state. Never call this while holding logLock.
+  private String toJson(User user) {
+    synchronized (user) {
+      return adapter.toJson(user);
+    }
+  }
+
+  // Moshi fills fields directly, so the read snapshots need building before the user is shared
+  private User fromJson(String json) throws IOException {
+    User user = adapter.fromJson(json);
+    if (user != null) {
+      user.refreshSnapshots();
+    }
+    return user;
+  }
+
+  // A crash mid-append can leave the last record without its newline
+  private boolean endsWithTornRecord() throws IOException {
+    if (!Files.exists(logFile)) {
+      return false;
+    }
+    try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size == 0) {
+        return false;
+      }
+      ByteBuffer last = ByteBuffer.allocate(1);
+      channel.read(last, size - 1);
+      return last.get(0) != '\n';
+    }
+  }
+
+  /**
+   * Load the snapshot, if any, and return the last sequence number it covers
+   */
+  private long loadSnapshot() throws IOException {
+    if (!Files.exists(snapshotFile)) {
+      return 0;
+    }
+
+    try (BufferedReader reader = Files.newBufferedReader(snapshotFile, StandardCharsets.UTF_8)) {
+      String header = reader.readLine();
+      if (header == null) {
+        return 0;
+      }
+      String line;
+      while ((line = reader.readLine()) != null) {
+        User user = fromJson(line);
+        if (user != null) {
+          users.put(user.getId(), user);
+          latestJson.put(user.getId(), line);
+        }
+      }
+      return Long.parseLong(header.trim());
+    }
+  }
+
+  /**
+   * Replay log records newer than the snapshot and return the last sequence number seen
+   */
+  private long replayLog(long snapshotSequence) throws IOException {
+    long last = snapshotSequence;
+    if (!Files.exists(logFile)) {
+      return last;
+    }
+
+    try (BufferedReader reader = Files.newBufferedReader(logFile, StandardCharsets.UTF_8)) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        int tab = line.indexOf('\t');
+        if (tab <= 0) {
+          continue;
+        }
+        try {
+          long recordSequence = Long.parseLong(line.substring(0, tab));
+          if (recordSequence <= snapshotSequence) {
+            continue;
+          }
+          String json = line.substring(tab + 1);
+          User user = fromJson(json);
+          if (user != null) {
+            users.put(user.getId(), user);
+            latestJson.put(user.getId(), json);
+            last = Math.max(last, recordSequence);
+          }
+        } catch (NumberFormatException | JsonDataException | IOException e) {
+          // Only the record being written during a crash can be incomplete
+          skippedRecords++;
+          lastSkippedRecord = "Skipped unreadable user log record: " + e.getMessage();
+        }
+      }
+    }
+    return last;
+  }
+}
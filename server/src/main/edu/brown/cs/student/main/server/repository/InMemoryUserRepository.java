@@ -0,0 +1,37 @@
+package main.edu.brown.cs.student.main.server.repository;
+
+import main.edu.brown.cs.student.main.server.model.User;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * UserRepository kept only in memory; users are lost on restart.
+ */
+public class InMemoryUserRepository implements UserRepository {
+  private final ConcurrentHashMap<String, User> users = new ConcurrentHashMap<>();
+
+  @Override
+  public User get(String userId) {
+    return users.get(userId);
+  }
+
+  @Override
+  public User getOrCreate(String userId) {
+    return users.computeIfAbsent(userId, id -> new User(id, "", ""));
+  }
+
+  @Override
+  public boolean contains(String userId) {
+    return users.containsKey(userId);
+  }
+
+  @Override
+  public void save(User user) {
+    users.put(user.getId(), user);
+  }
+
+  @Override
+  public int size() {
+    return users.size();
+  }
+}
@@ -0,0 +1,41 @@
+package main.edu.brown.cs.student.main.server.repository;
+
+import main.edu.brown.cs.student.main.server.model.User;
+
+/**
+ * Shared store of users, safe to use from concurrent request handlers.
+ *
+ * Handlers mutate the User objects they get back in place, then call save() so implementations
+ * that persist users can record the change.
+ *
+ * Each user's monitor is its lock: handlers change a user, its pantry and its grocery list only
+ * inside synchronized (user), and call save() before leaving the block, so one user's saves are
+ * recorded in the order its changes were made. Repositories hand out one instance per id, so
+ * requests for the same user serialize on it while different users never contend.
+ *
+ * Lock order is user monitor, then repository-internal locks. save() may be called with the
+ * caller holding its user's monitor; implementations may take that user's monitor to serialize
+ * it, but must never wait for any user's monitor while holding a lock of their own, since another
+ * thread may hold that monitor while waiting to save.
+ */
+public interface UserRepository {
+
+  /**
+   * Look up a user, or return null if there is no user with this id
+   */
+  User get(String userId);
+
+  /**
+   * Look up a user, atomically creating an empty one if there is no user with this id
+   */
+  User getOrCreate(String userId);
+
+  boolean contains(String userId);
+
+  /**
+   * Insert or replace a user, or record changes made to a user returned by this repository
+   */
+  void save(User user);
+
+  int size();
+}
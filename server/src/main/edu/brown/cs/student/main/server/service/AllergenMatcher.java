@@ -0,0 +1,284 @@
+package main.edu.brown.cs.student.main.server.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Finds which of a set of allergens an ingredient name mentions, in one pass over the name.
+ *
+ * Each allergen matches its own name and the terms its synonym list gives it (e.g. "dairy"
+ * matches "butter" and "cheese"). All terms are compiled into one Aho-Corasick automaton, so a
+ * scan costs the same however many allergens the user has. Terms match case-insensitively at the
+ * start of a word, so "peanuts" and "buttermilk" match but "goat" and "licorice" don't, and a
+ * term inside one of its allergen's exclusions ("coconut milk" for dairy) doesn't count. Matchers
+ * are immutable and shared through of(), which builds one per distinct allergen set.
+ */
+public final class AllergenMatcher {
+  // Bounds the shared cache; users pick from a short list, so real sets are far fewer
+  private static final int MAX_CACHED = 256;
+  private static final Map<List<String>, AllergenMatcher> CACHE = new ConcurrentHashMap<>();
+
+  // Terms that signal each supported allergen besides its own name
+  static final Map<String, List<String>> SYNONYMS = Map.ofEntries(
+      Map.entry("dairy", List.of("milk", "butter", "cheese", "cream", "yogurt", "yoghurt", "whey",
+          "casein", "ghee", "lactose", "parmesan", "mozzarella", "cheddar", "ricotta")),
+      Map.entry("egg", List.of("mayonnaise", "meringue", "albumin")),
+      Map.entry("gluten", List.of("wheat", "barley", "rye", "malt", "semolina", "spelt", "couscous",
+          "bulgur", "seitan", "flour", "bread", "pasta")),
+      Map.entry("grain", List.of("wheat", "rice", "oat", "corn", "barley", "rye", "quinoa",
+          "millet", "flour")),
+      Map.entry("peanut", List.of("groundnut")),
+      Map.entry("seafood", List.of("fish", "salmon", "tuna", "cod", "anchov", "sardine", "shrimp",
+          "prawn", "crab", "lobster", "clam", "mussel", "oyster", "scallop", "squid")),
+      Map.entry("sesame", List.of("tahini")),
+      Map.entry("shellfish", List.of("shrimp", "prawn", "crab", "lobster", "crawfish", "clam",
+          "mussel", "oyster", "scallop")),
+      Map.entry("soy", List.of("tofu", "edamame", "miso", "tempeh")),
+      Map.entry("sulfite", List.of("wine")),
+      Map.entry("tree nut", List.of("almond", "cashew", "walnut", "pecan", "pistachio",
+          "hazelnut", "macadamia", "brazil nut", "pine nut")),
+      Map.entry("wheat", List.of("flour", "semolina", "couscous", "bulgur", "farina", "spelt")));
+
+  // Compounds whose words would match an allergen's terms but don't contain that allergen
+  static final Map<String, List<String>> EXCLUSIONS = Map.ofEntries(
+      Map.entry("dairy", List.of("coconut milk", "coconut cream", "almond milk", "soy milk",
+          "oat milk", "rice milk", "peanut butter", "cocoa butter", "butternut", "cream of tartar")),
+      Map.entry("egg", List.of("eggplant")),
+      Map.entry("gluten", List.of("chickpea flour")),
+      Map.entry("wheat", List.of("chickpea flour")));
+
+  private final List<String> allergens;
+  // Goto function over a compact alphabet: next[state][symbol]; symbol 0 is "any other char"
+  private final int[][] next;
+  // Term indexes each state reports, including those reached through failure links
+  private final int[][] outputs;
+  // Per term: the allergen it belongs to, its length, and whether it is an exclusion
+  private final int[] termAllergens;
+  private final int[] termLengths;
+  private final boolean[] termExcludes;
+  private final int[] asciiSymbols = new int[128];
+  private final Map<Character, Integer> otherSymbols = new HashMap<>();
+
+  private AllergenMatcher(List<String> allergens) {
+    this.allergens = allergens;
+
+    // Terms per allergen: its own name plus its synonyms, lowercased, then its exclusions
+    List<String> terms = new ArrayList<>();
+    List<Integer> allergenOfTerm = new ArrayList<>();
+    List<Boolean> excludes = new ArrayList<>();
+    for (int i = 0; i < allergens.size(); i++) {
+      String allergen = allergens.get(i);
+      terms.add(allergen);
+      allergenOfTerm.add(i);
+      excludes.add(false);
+      for (String synonym : SYNONYMS.getOrDefault(allergen, List.of())) {
+        terms.add(synonym);
+        allergenOfTerm.add(i);
+        excludes.add(false);
+      }
+      for (String exclusion : EXCLUSIONS.getOrDefault(allergen, List.of())) {
+        terms.add(exclusion);
+        allergenOfTerm.add(i);
+        excludes.add(true);
+      }
+    }
+    this.termAllergens = new int[terms.size()];
+    this.termLengths = new int[terms.size()];
+    this.termExcludes = new boolean[terms.size()];
+    for (int t = 0; t < terms.size(); t++) {
+      termAllergens[t] = allergenOfTerm.get(t);
+      termLengths[t] = terms.get(t).length();
+      termExcludes[t] = excludes.get(t);
+    }
+
+    int symbolCount = 1;
+    for (String term : terms) {
+      for (int i = 0; i < term.length(); i++) {
+        char c = term.charAt(i);
+        if (symbolOf(c) == 0) {
+          if (c < 128) {
+            asciiSymbols[c] = symbolCount++;
+          } else {
+            otherSymbols.put(c, symbolCount++);
+          }
+        }
+      }
+    }
+
+    // Trie of all terms; -1 marks a missing edge until the failure links fill it in
+    List<int[]> trie = new ArrayList<>();
+    List<BitSet> found = new ArrayList<>();
+    trie.add(newRow(symbolCount));
+    found.add(new BitSet());
+    for (int t = 0; t < terms.size(); t++) {
+      String term = terms.get(t);
+      int state = 0;
+      for (int i = 0; i < term.length(); i++) {
+        int symbol = symbolOf(term.charAt(i));
+        if (trie.get(state)[symbol] < 0) {
+          trie.get(state)[symbol] = trie.size();
+          trie.add(newRow(symbolCount));
+          found.add(new BitSet());
+        }
+        state = trie.get(state)[symbol];
+      }
+      found.get(state).set(t);
+    }
+
+    // Breadth-first, point missing edges at the failure state's edge, and inherit its outputs
+    int[] fail = new int[trie.size()];
+    Queue<Integer> queue = new ArrayDeque<>();
+    int[] root = trie.get(0);
+    for (int symbol = 0; symbol < symbolCount; symbol++) {
+      if (root[symbol] < 0) {
+        root[symbol] = 0;
+      } else {
+        queue.add(root[symbol]);
+      }
+    }
+    while (!queue.isEmpty()) {
+      int state = queue.remove();
+      found.get(state).or(found.get(fail[state]));
+      int[] row = trie.get(state);
+      int[] failRow = trie.get(fail[state]);
+      for (int symbol = 0; symbol < symbolCount; symbol++) {
+        if (row[symbol] < 0) {
+          row[symbol] = failRow[symbol];
+        } else {
+          fail[row[symbol]] = failRow[symbol];
+          queue.add(row[symbol]);
+        }
+      }
+    }
+
+    this.next = trie.toArray(new int[0][]);
+    this.outputs = new int[found.size()][];
+    for (int state = 0; state < outputs.length; state++) {
+      outputs[state] = found.get(state).stream().toArray();
+    }
+  }
+
+  /**
+   * The shared matcher for a set of allergens; order, case and duplicates don't matter
+   */
+  public static AllergenMatcher of(Collection<String> allergens) {
+    List<String> key = normalize(allergens);
+    AllergenMatcher matcher = CACHE.get(key);
+    if (matcher == null) {
+      if (CACHE.size() >= MAX_CACHED) {
+        CACHE.clear();
+      }
+      matcher = CACHE.computeIfAbsent(key, AllergenMatcher::new);
+    }
+    return matcher;
+  }
+
+  /**
+   * The allergens this matcher looks for, lowercased and sorted
+   */
+  public List<String> getAllergens() {
+    return allergens;
+  }
+
+  /**
+   * Every allergen the text mentions, in getAllergens() order; empty if none
+   */
+  public List<String> match(String text) {
+    if (text == null || allergens.isEmpty()) {
+      return List.of();
+    }
+
+    // Spans as {term, start, end}; exclusions can end after the terms they cover, so both are
+    // collected and resolved once the scan is done
+    List<int[]> hits = null;
+    List<int[]> excluded = null;
+    int state = 0;
+    for (int i = 0; i < text.length(); i++) {
+      state = next[state][symbolOf(Character.toLowerCase(text.charAt(i)))];
+      for (int term : outputs[state]) {
+        int start = i - termLengths[term] + 1;
+        if (start > 0 && Character.isLetter(text.charAt(start - 1))) {
+          continue; // Not at the start of a word
+        }
+        int[] span = {term, start, i};
+        if (termExcludes[term]) {
+          excluded = add(excluded, span);
+        } else {
+          hits = add(hits, span);
+        }
+      }
+    }
+
+    if (hits == null) {
+      return List.of();
+    }
+    BitSet matched = new BitSet(allergens.size());
+    for (int[] hit : hits) {
+      if (!isExcluded(hit, excluded)) {
+        matched.set(termAllergens[hit[0]]);
+      }
+    }
+    List<String> result = new ArrayList<>(matched.cardinality());
+    matched.stream().forEach(allergen -> result.add(allergens.get(allergen)));
+    return result;
+  }
+
+  // Whether the hit lies inside an exclusion of the same allergen
+  private boolean isExcluded(int[] hit, List<int[]> excluded) {
+    if (excluded != null) {
+      for (int[] exclusion : excluded) {
+        if (termAllergens[exclusion[0]] == termAllergens[hit[0]]
+            && exclusion[1] <= hit[1] && hit[2] <= exclusion[2]) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private static List<int[]> add(List<int[]> spans, int[] span) {
+    List<int[]> result = spans != null ? spans : new ArrayList<>();
+    result.add(span);
+    return result;
+  }
+
+  private int symbolOf(char c) {
+    if (c < 128) {
+      return asciiSymbols[c];
+    }
+    Integer symbol = otherSymbols.get(c);
+    return symbol != null ? symbol : 0;
+  }
+
+  private static int[] newRow(int symbolCount) {
+    int[] row = new int[symbolCount];
+    Arrays.fill(row, -1);
+    return row;
+  }
+
+  private static List<String> normalize(Collection<String> allergens) {
+    LinkedHashSet<String> distinct = new LinkedHashSet<>();
+    if (allergens != null) {
+      for (String allergen : allergens) {
+        String normalized = allergen.trim().toLowerCase(Locale.ROOT);
+        if (!normalized.isEmpty()) {
+          distinct.add(normalized);
+        }
+      }
+    }
+    List<String> sorted = new ArrayList<>(distinct);
+    Collections.sort(sorted);
+    return Collections.unmodifiableList(sorted);
+  }
+}
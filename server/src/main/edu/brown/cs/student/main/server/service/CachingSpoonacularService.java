@@ -0,0 +1,271 @@
+package main.edu.brown.cs.student.main.server.service;
+
+import main.edu.brown.cs.student.main.server.cache.CacheStats;
+import main.edu.brown.cs.student.main.server.cache.LruTtlCache;
+import main.edu.brown.cs.student.main.server.cache.SearchResultCache;
+import main.edu.brown.cs.student.main.server.model.Ingredient;
+import main.edu.brown.cs.student.main.server.model.Recipe;
+import main.edu.brown.cs.student.main.server.store.RecipeStore;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * SpoonacularService decorator that keeps recently fetched recipe details in a bounded LRU cache.
+ *
+ * The recipe detail, pantry compare and add-recipe-to-grocery routes all look recipes up by id,
+ * so sharing one instance of this service between them lets a single upstream call serve all three.
+ * Cached recipes are never handed out directly: handlers annotate recipes with per-user pantry and
+ * allergen data, so callers always receive a copy.
+ *
+ * Cache misses and searches go through single-flight groups, so a burst of identical concurrent
+ * requests (e.g. a popular recipe being linked) costs one upstream call instead of one per request.
+ *
+ * With a RecipeStore, every fetched recipe is also persisted to disk, and misses are served from
+ * the store before going upstream, so a recipe is fetched from Spoonacular at most once, even
+ * across restarts. The store is best-effort: a record that can't be read is fetched upstream
+ * again, and one that can't be written is only cached in memory. Such failures are counted for
+ * the cache statistics route rather than failing the request.
+ *
+ * With a RecipeSearchIndex, every fetched recipe is also indexed, and searches the index can
+ * answer never go upstream.
+ *
+ * With a SearchResultCache, upstream results are remembered under the search's canonical key, so
+ * a repeat of a popular search goes upstream once per TTL rather than once per user, whether or
+ * not the index is enabled.
+ */
+public class CachingSpoonacularService extends SpoonacularService {
+  private final SpoonacularService delegate;
+  private final LruTtlCache<Integer, Recipe> recipeCache;
+  private final RecipeStore recipeStore;
+  private final RecipeSearchIndex searchIndex;
+  private final SearchResultCache searchResults;
+  private final SingleFlight<Integer, Recipe> recipeFlights = new SingleFlight<>();
+  private final SingleFlight<String, List<Recipe>> searchFlights = new SingleFlight<>();
+  private final AtomicLong storeFailures = new AtomicLong();
+  private volatile String lastStoreFailure;
+
+  public CachingSpoonacularService(SpoonacularService delegate, int maxEntries, long maxWeightBytes,
+      long ttlMillis) {
+    this(delegate, maxEntries, maxWeightBytes, ttlMillis, null);
+  }
+
+  /**
+   * @param recipeStore persistent store consulted on cache misses and filled from upstream, or null
+   */
+  public CachingSpoonacularService(SpoonacularService delegate, int maxEntries, long maxWeightBytes,
+      long ttlMillis, RecipeStore recipeStore) {
+    this(delegate, maxEntries, maxWeightBytes, ttlMillis, recipeStore, null, null);
+  }
+
+  /**
+   * @param searchIndex local index answering searches before they go upstream, or null; it is
+   *                    filled from recipeStore right away
+   * @param searchResults cache of upstream search results, checked before the index, or null
+   */
+  public CachingSpoonacularService(SpoonacularService delegate, int maxEntries, long maxWeightBytes,
+      long ttlMillis, RecipeStore recipeStore, RecipeSearchIndex searchIndex,
+      SearchResultCache searchResults) {
+    super(delegate);
+    this.delegate = delegate;
+    this.recipeStore = recipeStore;
+    this.searchIndex = searchIndex;
+    this.searchResults = searchResults;
+    this.recipeCache = new LruTtlCache<>(maxEntries, maxWeightBytes, ttlMillis,
+        CachingSpoonacularService::estimateSize);
+
+    if (searchIndex != null && recipeStore != null) {
+      for (int id : recipeStore.ids()) {
+        Recipe stored = loadStored(id);
+        if (stored != null) {
+          searchIndex.add(stored);
+        }
+      }
+    }
+  }
+
+  /**
+   * Search recipes from cached results or the local index when they can answer, otherwise
+   * sharing one upstream call between concurrent identical searches
+   */
+  @Override
+  public CompletableFuture<List<Recipe>> searchRecipesAsync(Map<String, String> searchParams) {
+    String key = SearchResultCache.canonicalKey(searchParams);
+    if (searchResults != null) {
+      List<Recipe> cached = searchResults.get(key);
+      if (cached != null) {
+        return CompletableFuture.completedFuture(cached);
+      }
+    }
+
+    if (searchIndex != null) {
+      List<Recipe> local = searchIndex.search(searchParams);
+      if (local != null) {
+        return CompletableFuture.completedFuture(local);
+      }
+    }
+
+    return searchFlights.execute(key, () -> delegate.searchRecipesAsync(searchParams)
+            .thenApply(found -> {
+              index(found);
+              if (searchResults != null) {
+                searchResults.put(key, found);
+              }
+              return found;
+            }))
+        .thenApply(shared -> {
+          // Every caller annotates its own results, so each one gets its own copies
+          List<Recipe> recipes = new ArrayList<>(shared.size());
+          for (Recipe recipe : shared) {
+            recipes.add(recipe.copy());
+          }
+          return recipes;
+        });
+  }
+
+  /**
+   * Get recipe details, going upstream only when the cache has no live entry for the id
+   */
+  @Override
+  public CompletableFuture<Recipe> getRecipeByIdAsync(int id) {
+    Recipe cached = recipeCache.get(id);
+    if (cached != null) {
+      return CompletableFuture.completedFuture(cached.copy());
+    }
+
+    Recipe stored = loadStored(id);
+    if (stored != null) {
+      recipeCache.put(id, stored);
+      return CompletableFuture.completedFuture(stored.copy());
+    }
+
+    return recipeFlights.execute(id, () -> delegate.getRecipeByIdAsync(id).thenApply(recipe -> {
+      recipeCache.put(id, recipe);
+      persist(recipe);
+      if (searchIndex != null) {
+        searchIndex.add(recipe);
+      }
+      return recipe;
+    })).thenApply(Recipe::copy);
+  }
+
+  private void index(List<Recipe> recipes) {
+    if (searchIndex != null) {
+      searchIndex.addAll(recipes);
+    }
+  }
+
+  private Recipe loadStored(int id) {
+    if (recipeStore == null) {
+      return null;
+    }
+    try {
+      return recipeStore.get(id);
+    } catch (IOException e) {
+      // A bad record just means going upstream again, which rewrites it
+      recordStoreFailure("Failed to read recipe " + id + " from store: " + e.getMessage());
+      return null;
+    }
+  }
+
+  private void persist(Recipe recipe) {
+    if (recipeStore == null) {
+      return;
+    }
+    try {
+      recipeStore.put(recipe);
+    } catch (IOException e) {
+      recordStoreFailure("Failed to store recipe " + recipe.getId() + ": " + e.getMessage());
+    }
+  }
+
+  private void recordStoreFailure(String message) {
+    lastStoreFailure = message;
+    storeFailures.incrementAndGet();
+  }
+
+  @Override
+  public boolean checkIngredientForAllergens(Ingredient ingredient, List<String> allergens) {
+    return delegate.checkIngredientForAllergens(ingredient, allergens);
+  }
+
+  @Override
+  public void checkRecipeForAllergens(Recipe recipe, List<String> allergens) {
+    delegate.checkRecipeForAllergens(recipe, allergens);
+  }
+
+  @Override
+  public void checkRecipesForAllergens(List<Recipe> recipes, List<String> allergens) {
+    delegate.checkRecipesForAllergens(recipes, allergens);
+  }
+
+  public CacheStats getRecipeCacheStats() {
+    return recipeCache.stats();
+  }
+
+  public RecipeStore getRecipeStore() {
+    return recipeStore;
+  }
+
+  public RecipeSearchIndex getSearchIndex() {
+    return searchIndex;
+  }
+
+  public SearchResultCache getSearchResults() {
+    return searchResults;
+  }
+
+  public long getCoalescedRequests() {
+    return recipeFlights.getCoalesced() + searchFlights.getCoalesced();
+  }
+
+  /**
+   * How many recipe store reads and writes have failed
+   */
+  public long getStoreFailures() {
+    return storeFailures.get();
+  }
+
+  /**
+   * What went wrong in the most recent store failure, or null if there has been none
+   */
+  public String getLastStoreFailure() {
+    return lastStoreFailure;
+  }
+
+  public void invalidateRecipe(int id) {
+    recipeCache.invalidate(id);
+  }
+
+  /**
+   * Rough retained size of a recipe in bytes, used to bound the cache by memory rather than count
+   */
+  public static int estimateSize(Recipe recipe) {
+    int size = 128 + stringSize(recipe.getTitle()) + stringSize(recipe.getImage())
+        + stringSize(recipe.getSourceUrl()) + stringSize(recipe.getCuisine());
+
+    for (Ingredient ingredient : recipe.getIngredients()) {
+      size += 64 + stringSize(ingredient.getName()) + stringSize(ingredient.getAisle())
+          + stringSize(ingredient.getUnit()) + stringSize(ingredient.getOriginalString());
+    }
+    for (String instruction : recipe.getInstructions()) {
+      size += stringSize(instruction);
+    }
+    for (String diet : recipe.getDiets()) {
+      size += stringSize(diet);
+    }
+    for (String dishType : recipe.getDishTypes()) {
+      size += stringSize(dishType);
+    }
+
+    return size;
+  }
+
+  private static int stringSize(String value) {
+    return value == null ? 0 : 40 + value.length() * 2;
+  }
+}
@@ -5,6 +5,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import main.edu.brown.cs.student.main.server.model.Ingredient;
 import main.edu.brown.cs.student.main.server.model.Recipe;
 
@@ -108,32 +109,20 @@ public class MockSpoonacularService extends SpoonacularService {
   }
 
   @Override
-  public boolean checkIngredientForAllergens(Ingredient ingredient, List<String> allergens) {
-    if (allergens == null || allergens.isEmpty()) {
-      return false;
+  public CompletableFuture<List<Recipe>> searchRecipesAsync(Map<String, String> searchParams) {
+    try {
+      return CompletableFuture.completedFuture(searchRecipes(searchParams));
+    } catch (Exception e) {
+      return CompletableFuture.failedFuture(e);
     }
-
-    // Simple check for testing
-    String ingredientName = ingredient.getName().toLowerCase();
-    for (String allergen : allergens) {
-      if (ingredientName.contains(allergen.toLowerCase())) {
-        ingredient.setContainsAllergen(true);
-        ingredient.setPossibleAllergens(new String[]{allergen});
-        return true;
-      }
-    }
-
-    return false;
   }
 
   @Override
-  public void checkRecipeForAllergens(Recipe recipe, List<String> allergens) {
-    if (allergens == null || allergens.isEmpty()) {
-      return;
-    }
-
-    for (Ingredient ingredient : recipe.getIngredients()) {
-      checkIngredientForAllergens(ingredient, allergens);
+  public CompletableFuture<Recipe> getRecipeByIdAsync(int id) {
+    try {
+      return CompletableFuture.completedFuture(getRecipeById(id));
+    } catch (Exception e) {
+      return CompletableFuture.failedFuture(e);
     }
   }
 }
@@ -0,0 +1,543 @@
+package main.edu.brown.cs.student.main.server.service;
+
+import main.edu.brown.cs.student.main.server.cache.CacheStats;
+import main.edu.brown.cs.student.main.server.model.Ingredient;
+import main.edu.brown.cs.student.main.server.model.Pantry;
+import main.edu.brown.cs.student.main.server.model.Recipe;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-process inverted index over every recipe fetched from Spoonacular, answering repeat searches
+ * without going upstream.
+ *
+ * Each recipe gets a document number; postings map each title/ingredient/cuisine/dish type term,
+ * and each diet, dish type, cuisine and intolerance facet, to a BitSet of documents, so a search is
+ * a handful of BitSet intersections. Only complexSearch's filter parameters are understood: a
+ * search using any other parameter, or matching fewer recipes locally than the requested page,
+ * returns null and the caller goes upstream (whose results are then indexed). Most searches
+ * repeat over a popular subset of recipes, so those are answered locally once they are warm.
+ *
+ * For "what can I cook now", each ingredient also has a posting list of the recipes using it, so
+ * ranking the corpus by pantry coverage only touches recipes sharing an ingredient with the pantry.
+ *
+ * The index holds at most maxRecipes recipes, evicting the longest-indexed first. Results are
+ * copies, so callers can annotate them freely.
+ */
+public final class RecipeSearchIndex {
+  private static final int DEFAULT_PAGE_SIZE = 10;
+
+  // Parameters that shape upstream responses rather than filter them
+  private static final Set<String> IGNORED_PARAMS =
+      Set.of("instructionsRequired", "fillIngredients", "addRecipeInformation");
+
+  // Spoonacular's names for diets it reports under a different name on recipes
+  private static final Map<String, String> DIET_ALIASES = Map.of(
+      "paleo", "paleolithic",
+      "pescetarian", "pescatarian",
+      "lowfodmap", "fodmapfriendly");
+
+  // Every intolerance complexSearch accepts has a synonym list in the allergen matcher
+  private static final AllergenMatcher INTOLERANCES =
+      AllergenMatcher.of(AllergenMatcher.SYNONYMS.keySet());
+
+  private final int maxRecipes;
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  // Guarded by lock: documents in indexing order (null once evicted or replaced)
+  private final List<Recipe> documents = new ArrayList<>();
+  private final Map<Integer, Integer> documentsById = new HashMap<>();
+  private final BitSet live = new BitSet();
+  private final Map<String, BitSet> terms = new HashMap<>();
+  private final Map<String, BitSet> ingredientTerms = new HashMap<>();
+  private final Map<String, BitSet> facets = new HashMap<>();
+  private long evictions;
+
+  // Guarded by lock: as for the pantry, a recipe ingredient matches by name or by Spoonacular id,
+  // so both resolve to one ingredient number, whose postings list the documents using it
+  private final Map<String, Integer> ingredientNumbersByName = new HashMap<>();
+  private final Map<Integer, Integer> ingredientNumbersById = new HashMap<>();
+  private final List<Postings> ingredientPostings = new ArrayList<>();
+  // Distinct ingredient numbers per document
+  private int[] ingredientTotals = new int[64];
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+
+  public RecipeSearchIndex(int maxRecipes) {
+    this.maxRecipes = maxRecipes;
+  }
+
+  /**
+   * Index a recipe, replacing any earlier version with the same id
+   */
+  public void add(Recipe recipe) {
+    lock.writeLock().lock();
+    try {
+      addLocked(recipe.copy());
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  public void addAll(Collection<Recipe> recipes) {
+    lock.writeLock().lock();
+    try {
+      for (Recipe recipe : recipes) {
+        addLocked(recipe.copy());
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Answer a complexSearch query locally, or return null if it has to go upstream
+   */
+  public List<Recipe> search(Map<String, String> searchParams) {
+    List<Recipe> results = null;
+    lock.readLock().lock();
+    try {
+      results = searchLocked(searchParams);
+    } catch (NumberFormatException e) {
+      // Let upstream judge a malformed number
+    } finally {
+      lock.readLock().unlock();
+    }
+
+    (results != null ? hits : misses).incrementAndGet();
+    return results;
+  }
+
+  /**
+   * The indexed recipes with the largest share of their ingredients in the pantry, best first,
+   * ties going to the recipe using more of the pantry. Only presence counts here; amounts are
+   * left to PantryView.match on the few recipes returned.
+   */
+  public List<Recipe> cookNow(Collection<Ingredient> pantry, int limit) {
+    lock.readLock().lock();
+    try {
+      // How many distinct pantry ingredients each document uses
+      int[] counts = new int[documents.size()];
+      BitSet seen = new BitSet();
+      for (Ingredient ingredient : pantry) {
+        int number = ingredientNumber(ingredient, false);
+        if (number < 0 || seen.get(number)) {
+          continue;
+        }
+        seen.set(number);
+        Postings postings = ingredientPostings.get(number);
+        for (int i = 0; i < postings.size; i++) {
+          counts[postings.docs[i]]++;
+        }
+      }
+
+      // Keep the best limit documents in a min-heap whose root is the worst of them
+      int[] heap = new int[Math.max(0, Math.min(limit, documentsById.size()))];
+      int size = 0;
+      for (int doc = 0; doc < counts.length && heap.length > 0; doc++) {
+        if (counts[doc] == 0 || !live.get(doc)) {
+          continue;
+        }
+        if (size < heap.length) {
+          heap[size] = doc;
+          siftUp(heap, size++, counts);
+        } else if (ranksAbove(doc, heap[0], counts)) {
+          heap[0] = doc;
+          siftDown(heap, size, counts);
+        }
+      }
+
+      Recipe[] ranked = new Recipe[size];
+      while (size > 0) {
+        ranked[size - 1] = documents.get(heap[0]).copy();
+        heap[0] = heap[--size];
+        siftDown(heap, size, counts);
+      }
+      return Arrays.asList(ranked);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Local answers as hits and upstream fallbacks as misses; weight is unused
+   */
+  public CacheStats stats() {
+    lock.readLock().lock();
+    try {
+      return new CacheStats(hits.get(), misses.get(), evictions, 0, documentsById.size(), 0);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  public int size() {
+    return stats().getSize();
+  }
+
+  private List<Recipe> searchLocked(Map<String, String> searchParams) {
+    BitSet matches = (BitSet) live.clone();
+    int number = DEFAULT_PAGE_SIZE;
+    int offset = 0;
+    int maxReadyTime = Integer.MAX_VALUE;
+
+    for (Map.Entry<String, String> param : searchParams.entrySet()) {
+      String value = param.getValue();
+      if (value == null || value.trim().isEmpty() || IGNORED_PARAMS.contains(param.getKey())) {
+        continue;
+      }
+
+      switch (param.getKey()) {
+        case "query":
+          for (String term : terms(value)) {
+            matches.and(postings(terms, term));
+          }
+          break;
+        case "includeIngredients":
+          for (String ingredient : value.split(",")) {
+            matches.and(ingredientMatches(ingredient));
+          }
+          break;
+        case "excludeIngredients":
+          for (String ingredient : value.split(",")) {
+            if (!ingredient.isBlank()) {
+              matches.andNot(ingredientMatches(ingredient));
+            }
+          }
+          break;
+        case "diet":
+          // Comma means AND and pipe means OR, as upstream
+          for (String all : value.split(",")) {
+            BitSet any = new BitSet();
+            for (String diet : all.split("\\|")) {
+              String key = facetKey(diet);
+              any.or(postings(facets, "diet:" + DIET_ALIASES.getOrDefault(key, key)));
+            }
+            matches.and(any);
+          }
+          break;
+        case "type":
+          matches.and(anyFacet("type:", value));
+          break;
+        case "cuisine":
+          matches.and(anyFacet("cuisine:", value));
+          break;
+        case "excludeCuisine":
+          matches.andNot(anyFacet("cuisine:", value));
+          break;
+        case "intolerances":
+          for (String intolerance : value.split(",")) {
+            String name = intolerance.trim().toLowerCase(Locale.ROOT);
+            if (!AllergenMatcher.SYNONYMS.containsKey(name)) {
+              return null;
+            }
+            matches.andNot(postings(facets, "intolerance:" + name));
+          }
+          break;
+        case "maxReadyTime":
+          maxReadyTime = Integer.parseInt(value.trim());
+          break;
+        case "number":
+          number = Integer.parseInt(value.trim());
+          break;
+        case "offset":
+          offset = Integer.parseInt(value.trim());
+          break;
+        default:
+          // e.g. equipment or sort, which the index knows nothing about
+          return null;
+      }
+    }
+
+    if (number <= 0 || offset < 0) {
+      return null;
+    }
+
+    List<Recipe> results = new ArrayList<>(number);
+    int skipped = 0;
+    for (int doc = matches.nextSetBit(0); doc >= 0 && results.size() < number;
+        doc = matches.nextSetBit(doc + 1)) {
+      if (documents.get(doc).getReadyInMinutes() > maxReadyTime) {
+        continue;
+      }
+      if (skipped < offset) {
+        skipped++;
+        continue;
+      }
+      results.add(documents.get(doc).copy());
+    }
+
+    // A short page may just mean we haven't seen enough of this query's recipes yet
+    return results.size() < number ? null : results;
+  }
+
+  private void addLocked(Recipe recipe) {
+    Integer previous = documentsById.get(recipe.getId());
+    if (previous != null) {
+      remove(previous);
+    }
+
+    int doc = documents.size();
+    documents.add(recipe);
+    documentsById.put(recipe.getId(), doc);
+    live.set(doc);
+
+    List<String> text = new ArrayList<>(terms(recipe.getTitle()));
+    int[] numbers = new int[recipe.getIngredients().size()];
+    int distinct = 0;
+    for (Ingredient ingredient : recipe.getIngredients()) {
+      int number = ingredientNumber(ingredient, true);
+      if (number >= 0 && !contains(numbers, distinct, number)) {
+        numbers[distinct++] = number;
+        ingredientPostings.get(number).add(doc);
+      }
+
+      List<String> names = terms(ingredient.getName());
+      text.addAll(names);
+      for (String name : names) {
+        post(ingredientTerms, name, doc);
+      }
+
+      for (String intolerance : INTOLERANCES.match(ingredient.getName())) {
+        post(facets, "intolerance:" + intolerance, doc);
+      }
+    }
+    if (doc >= ingredientTotals.length) {
+      ingredientTotals = Arrays.copyOf(ingredientTotals, doc * 2);
+    }
+    ingredientTotals[doc] = distinct;
+
+    text.addAll(terms(recipe.getCuisine()));
+    for (String term : text) {
+      post(terms, term, doc);
+    }
+
+    // Diet flags, plus the diets upstream lists
+    if (recipe.isVegetarian()) {
+      post(facets, "diet:vegetarian", doc);
+    }
+    if (recipe.isVegan()) {
+      post(facets, "diet:vegan", doc);
+    }
+    if (recipe.isGlutenFree()) {
+      post(facets, "diet:glutenfree", doc);
+    }
+    if (recipe.isDairyFree()) {
+      post(facets, "diet:dairyfree", doc);
+    }
+    for (String diet : recipe.getDiets()) {
+      post(facets, "diet:" + facetKey(diet), doc);
+    }
+    if (!recipe.isGlutenFree()) {
+      post(facets, "intolerance:gluten", doc);
+    }
+    if (!recipe.isDairyFree()) {
+      post(facets, "intolerance:dairy", doc);
+    }
+
+    for (String dishType : recipe.getDishTypes()) {
+      post(facets, "type:" + facetKey(dishType), doc);
+      for (String term : terms(dishType)) {
+        post(terms, term, doc);
+      }
+    }
+    if (recipe.getCuisine() != null) {
+      post(facets, "cuisine:" + facetKey(recipe.getCuisine()), doc);
+    }
+
+    while (documentsById.size() > maxRecipes) {
+      remove(live.nextSetBit(0));
+      evictions++;
+    }
+    // Postings still hold bits for removed documents; rebuild once they are half the index
+    if (documents.size() > 2 * maxRecipes) {
+      compact();
+    }
+  }
+
+  private void remove(int doc) {
+    Recipe recipe = documents.get(doc);
+    documents.set(doc, null);
+    documentsById.remove(recipe.getId());
+    live.clear(doc);
+  }
+
+  private void compact() {
+    List<Recipe> remaining = new ArrayList<>(documentsById.size());
+    for (int doc = live.nextSetBit(0); doc >= 0; doc = live.nextSetBit(doc + 1)) {
+      remaining.add(documents.get(doc));
+    }
+
+    documents.clear();
+    documentsById.clear();
+    live.clear();
+    terms.clear();
+    ingredientTerms.clear();
+    facets.clear();
+    ingredientNumbersByName.clear();
+    ingredientNumbersById.clear();
+    ingredientPostings.clear();
+    for (Recipe recipe : remaining) {
+      addLocked(recipe);
+    }
+  }
+
+  // The ingredient's number, or -1 if it has none and register is false (or it has neither a name
+  // nor an id)
+  private int ingredientNumber(Ingredient ingredient, boolean register) {
+    String name = ingredient.getName() != null ? Pantry.normalize(ingredient.getName()) : null;
+    Integer number = name != null ? ingredientNumbersByName.get(name) : null;
+    if (number == null && ingredient.getId() > 0) {
+      number = ingredientNumbersById.get(ingredient.getId());
+    }
+    if (!register || (name == null && ingredient.getId() <= 0)) {
+      return number != null ? number : -1;
+    }
+
+    if (number == null) {
+      number = ingredientPostings.size();
+      ingredientPostings.add(new Postings());
+    }
+    if (name != null) {
+      ingredientNumbersByName.putIfAbsent(name, number);
+    }
+    if (ingredient.getId() > 0) {
+      ingredientNumbersById.putIfAbsent(ingredient.getId(), number);
+    }
+    return number;
+  }
+
+  // Larger share of ingredients on hand, then more of them, then the longer-indexed document
+  private boolean ranksAbove(int doc, int other, int[] counts) {
+    long share = (long) counts[doc] * ingredientTotals[other];
+    long otherShare = (long) counts[other] * ingredientTotals[doc];
+    if (share != otherShare) {
+      return share > otherShare;
+    }
+    if (counts[doc] != counts[other]) {
+      return counts[doc] > counts[other];
+    }
+    return doc < other;
+  }
+
+  private void siftUp(int[] heap, int position, int[] counts) {
+    while (position > 0) {
+      int parent = (position - 1) / 2;
+      if (!ranksAbove(heap[parent], heap[position], counts)) {
+        return;
+      }
+      swap(heap, parent, position);
+      position = parent;
+    }
+  }
+
+  private void siftDown(int[] heap, int size, int[] counts) {
+    int position = 0;
+    while (true) {
+      int worst = position;
+      for (int child = 2 * position + 1; child <= 2 * position + 2 && child < size; child++) {
+        if (ranksAbove(heap[worst], heap[child], counts)) {
+          worst = child;
+        }
+      }
+      if (worst == position) {
+        return;
+      }
+      swap(heap, worst, position);
+      position = worst;
+    }
+  }
+
+  private static void swap(int[] heap, int i, int j) {
+    int doc = heap[i];
+    heap[i] = heap[j];
+    heap[j] = doc;
+  }
+
+  private static boolean contains(int[] values, int length, int value) {
+    for (int i = 0; i < length; i++) {
+      if (values[i] == value) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  // Documents with an ingredient mentioning every term of the name
+  private BitSet ingredientMatches(String ingredient) {
+    BitSet matches = (BitSet) live.clone();
+    for (String term : terms(ingredient)) {
+      matches.and(postings(ingredientTerms, term));
+    }
+    return matches;
+  }
+
+  private BitSet anyFacet(String prefix, String values) {
+    BitSet any = new BitSet();
+    for (String value : values.split(",")) {
+      any.or(postings(facets, prefix + facetKey(value)));
+    }
+    return any;
+  }
+
+  private static BitSet postings(Map<String, BitSet> index, String key) {
+    BitSet postings = index.get(key);
+    return postings != null ? postings : new BitSet();
+  }
+
+  private static void post(Map<String, BitSet> index, String key, int doc) {
+    index.computeIfAbsent(key, k -> new BitSet()).set(doc);
+  }
+
+  // "Gluten Free", "gluten-free" and "glutenfree" are one facet
+  private static String facetKey(String value) {
+    return value.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]", "");
+  }
+
+  /**
+   * Lowercased words with plurals folded, so "Tomatoes" matches "tomato"
+   */
+  static List<String> terms(String text) {
+    List<String> terms = new ArrayList<>();
+    if (text == null) {
+      return terms;
+    }
+    for (String word : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+      if (word.isEmpty()) {
+        continue;
+      }
+      if (word.length() > 3 && word.endsWith("oes")) {
+        word = word.substring(0, word.length() - 2);
+      } else if (word.length() > 3 && word.endsWith("s") && !word.endsWith("ss")) {
+        word = word.substring(0, word.length() - 1);
+      }
+      terms.add(word);
+    }
+    return terms;
+  }
+
+  // Growable list of document numbers, in indexing order
+  private static final class Postings {
+    private int[] docs = new int[4];
+    private int size;
+
+    void add(int doc) {
+      if (size == docs.length) {
+        docs = Arrays.copyOf(docs, size * 2);
+      }
+      docs[size++] = doc;
+    }
+  }
+}
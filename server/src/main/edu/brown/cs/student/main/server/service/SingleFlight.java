@@ -0,0 +1,58 @@
+package main.edu.brown.cs.student.main.server.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Collapses concurrent calls that share a key into a single execution.
+ *
+ * The first caller for a key starts the call; callers arriving while it is in flight get the
+ * same future and therefore the same result (or exception). Once the call completes the key is
+ * released, so later callers trigger a fresh execution.
+ */
+public class SingleFlight<K, V> {
+  private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+  private final AtomicLong executions = new AtomicLong();
+  private final AtomicLong coalesced = new AtomicLong();
+
+  /**
+   * Start the call unless one with the same key is already in flight, in which case join it
+   */
+  public CompletableFuture<V> execute(K key, Supplier<CompletableFuture<V>> call) {
+    CompletableFuture<V> flight = new CompletableFuture<>();
+    CompletableFuture<V> existing = inFlight.putIfAbsent(key, flight);
+    if (existing != null) {
+      coalesced.incrementAndGet();
+      return existing;
+    }
+
+    executions.incrementAndGet();
+    CompletableFuture<V> upstream;
+    try {
+      upstream = call.get();
+    } catch (RuntimeException e) {
+      upstream = CompletableFuture.failedFuture(e);
+    }
+
+    upstream.whenComplete((value, error) -> {
+      // Release the key before waking waiters, so a retry after a failure starts a new call
+      inFlight.remove(key, flight);
+      if (error != null) {
+        flight.completeExceptionally(error);
+      } else {
+        flight.complete(value);
+      }
+    });
+    return flight;
+  }
+
+  public long getExecutions() {
+    return executions.get();
+  }
+
+  public long getCoalesced() {
+    return coalesced.get();
+  }
+}
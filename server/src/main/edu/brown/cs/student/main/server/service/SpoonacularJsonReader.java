@@ -0,0 +1,304 @@
+package main.edu.brown.cs.student.main.server.service;
+
+import com.squareup.moshi.JsonReader;
+import main.edu.brown.cs.student.main.server.model.Ingredient;
+import main.edu.brown.cs.student.main.server.model.Recipe;
+import okio.Okio;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming decoder for Spoonacular responses.
+ *
+ * Reads straight from the response stream into Recipe and Ingredient objects, one token at a
+ * time, instead of materializing the body as a String and then as a Map tree of boxed values.
+ * Fields we don't use are skipped without being decoded.
+ */
+public final class SpoonacularJsonReader {
+  private static final JsonReader.Options RESPONSE_FIELDS = JsonReader.Options.of("results");
+
+  private static final JsonReader.Options RECIPE_FIELDS = JsonReader.Options.of(
+      "id", "title", "image", "readyInMinutes", "servings", "sourceUrl",
+      "vegetarian", "vegan", "glutenFree", "dairyFree", "diets", "cuisines",
+      "missedIngredients", "usedIngredients", "extendedIngredients", "analyzedInstructions",
+      "dishTypes");
+
+  private static final JsonReader.Options INGREDIENT_FIELDS = JsonReader.Options.of(
+      "id", "name", "aisle", "amount", "unit", "original");
+
+  private static final JsonReader.Options INSTRUCTION_FIELDS = JsonReader.Options.of("steps");
+  private static final JsonReader.Options STEP_FIELDS = JsonReader.Options.of("step");
+
+  private SpoonacularJsonReader() {
+  }
+
+  /**
+   * Decode a complexSearch response body into recipes
+   */
+  public static List<Recipe> readSearchResults(InputStream body) throws IOException {
+    try (JsonReader reader = JsonReader.of(Okio.buffer(Okio.source(body)))) {
+      List<Recipe> recipes = new ArrayList<>();
+
+      reader.beginObject();
+      while (reader.hasNext()) {
+        if (reader.selectName(RESPONSE_FIELDS) == -1) {
+          reader.skipName();
+          reader.skipValue();
+        } else if (reader.peek() == JsonReader.Token.BEGIN_ARRAY) {
+          reader.beginArray();
+          while (reader.hasNext()) {
+            recipes.add(readRecipe(reader, false));
+          }
+          reader.endArray();
+        } else {
+          reader.skipValue();
+        }
+      }
+      reader.endObject();
+
+      return recipes;
+    }
+  }
+
+  /**
+   * Decode a recipe information response body into a recipe with full ingredients and steps
+   */
+  public static Recipe readRecipeDetails(InputStream body) throws IOException {
+    try (JsonReader reader = JsonReader.of(Okio.buffer(Okio.source(body)))) {
+      return readRecipe(reader, true);
+    }
+  }
+
+  /**
+   * Read one recipe object. Search results carry missed/used ingredients, while recipe details
+   * carry extendedIngredients and instructions, so each mode only keeps its own ingredient lists.
+   */
+  private static Recipe readRecipe(JsonReader reader, boolean details) throws IOException {
+    Recipe recipe = new Recipe();
+    List<Ingredient> missed = new ArrayList<>();
+    List<Ingredient> used = new ArrayList<>();
+
+    reader.beginObject();
+    while (reader.hasNext()) {
+      int field = reader.selectName(RECIPE_FIELDS);
+      if (field == -1) {
+        reader.skipName();
+        reader.skipValue();
+        continue;
+      }
+      if (reader.peek() == JsonReader.Token.NULL) {
+        reader.nextNull();
+        continue;
+      }
+
+      switch (field) {
+        case 0:
+          recipe.setId((int) reader.nextDouble());
+          break;
+        case 1:
+          recipe.setTitle(reader.nextString());
+          break;
+        case 2:
+          recipe.setImage(reader.nextString());
+          break;
+        case 3:
+          recipe.setReadyInMinutes((int) reader.nextDouble());
+          break;
+        case 4:
+          recipe.setServings((int) reader.nextDouble());
+          break;
+        case 5:
+          recipe.setSourceUrl(reader.nextString());
+          break;
+        case 6:
+          recipe.setVegetarian(reader.nextBoolean());
+          break;
+        case 7:
+          recipe.setVegan(reader.nextBoolean());
+          break;
+        case 8:
+          recipe.setGlutenFree(reader.nextBoolean());
+          break;
+        case 9:
+          recipe.setDairyFree(reader.nextBoolean());
+          break;
+        case 10:
+          recipe.setDiets(readStrings(reader));
+          break;
+        case 11:
+          List<String> cuisines = readStrings(reader);
+          if (!cuisines.isEmpty()) {
+            recipe.setCuisine(cuisines.get(0));
+          }
+          break;
+        case 12:
+          readIngredients(reader, details ? null : missed);
+          break;
+        case 13:
+          readIngredients(reader, details ? null : used);
+          break;
+        case 14:
+          readIngredients(reader, details ? recipe.getIngredients() : null);
+          break;
+        case 15:
+          if (details) {
+            recipe.setInstructions(readInstructionSteps(reader));
+          } else {
+            reader.skipValue();
+          }
+          break;
+        case 16:
+          recipe.setDishTypes(readStrings(reader));
+          break;
+        default:
+          reader.skipValue();
+      }
+    }
+    reader.endObject();
+
+    // Search results list missed ingredients before used ones, whatever order the fields arrive in
+    if (!details) {
+      for (Ingredient ingredient : missed) {
+        recipe.addIngredient(ingredient);
+      }
+      for (Ingredient ingredient : used) {
+        recipe.addIngredient(ingredient);
+      }
+    }
+
+    return recipe;
+  }
+
+  /**
+   * Read an array of ingredients into the target list, or skip it when the target is null
+   */
+  private static void readIngredients(JsonReader reader, List<Ingredient> target) throws IOException {
+    if (target == null || reader.peek() != JsonReader.Token.BEGIN_ARRAY) {
+      reader.skipValue();
+      return;
+    }
+
+    reader.beginArray();
+    while (reader.hasNext()) {
+      target.add(readIngredient(reader));
+    }
+    reader.endArray();
+  }
+
+  private static Ingredient readIngredient(JsonReader reader) throws IOException {
+    Ingredient ingredient = new Ingredient();
+
+    reader.beginObject();
+    while (reader.hasNext()) {
+      int field = reader.selectName(INGREDIENT_FIELDS);
+      if (field == -1) {
+        reader.skipName();
+        reader.skipValue();
+        continue;
+      }
+      if (reader.peek() == JsonReader.Token.NULL) {
+        reader.nextNull();
+        continue;
+      }
+
+      switch (field) {
+        case 0:
+          ingredient.setId((int) reader.nextDouble());
+          break;
+        case 1:
+          ingredient.setName(reader.nextString());
+          break;
+        case 2:
+          ingredient.setAisle(reader.nextString());
+          break;
+        case 3:
+          ingredient.setAmount(reader.nextDouble());
+          break;
+        case 4:
+          ingredient.setUnit(reader.nextString());
+          break;
+        case 5:
+          ingredient.setOriginalString(reader.nextString());
+          break;
+        default:
+          reader.skipValue();
+      }
+    }
+    reader.endObject();
+
+    if (ingredient.getOriginalString() == null) {
+      ingredient.setOriginalString(ingredient.getAmount() + " " +
+          ingredient.getUnit() + " " +
+          ingredient.getName());
+    }
+
+    return ingredient;
+  }
+
+  /**
+   * Flatten analyzedInstructions ([{steps: [{step: "..."}]}]) into a list of step strings
+   */
+  private static List<String> readInstructionSteps(JsonReader reader) throws IOException {
+    List<String> steps = new ArrayList<>();
+    if (reader.peek() != JsonReader.Token.BEGIN_ARRAY) {
+      reader.skipValue();
+      return steps;
+    }
+
+    reader.beginArray();
+    while (reader.hasNext()) {
+      reader.beginObject();
+      while (reader.hasNext()) {
+        if (reader.selectName(INSTRUCTION_FIELDS) == -1) {
+          reader.skipName();
+          reader.skipValue();
+        } else if (reader.peek() == JsonReader.Token.BEGIN_ARRAY) {
+          reader.beginArray();
+          while (reader.hasNext()) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+              if (reader.selectName(STEP_FIELDS) == -1) {
+                reader.skipName();
+                reader.skipValue();
+              } else if (reader.peek() == JsonReader.Token.STRING) {
+                steps.add(reader.nextString());
+              } else {
+                reader.skipValue();
+              }
+            }
+            reader.endObject();
+          }
+          reader.endArray();
+        } else {
+          reader.skipValue();
+        }
+      }
+      reader.endObject();
+    }
+    reader.endArray();
+
+    return steps;
+  }
+
+  private static List<String> readStrings(JsonReader reader) throws IOException {
+    List<String> values = new ArrayList<>();
+    if (reader.peek() != JsonReader.Token.BEGIN_ARRAY) {
+      reader.skipValue();
+      return values;
+    }
+
+    reader.beginArray();
+    while (reader.hasNext()) {
+      if (reader.peek() == JsonReader.Token.STRING) {
+        values.add(reader.nextString());
+      } else {
+        reader.skipValue();
+      }
+    }
+    reader.endArray();
+    return values;
+  }
+}
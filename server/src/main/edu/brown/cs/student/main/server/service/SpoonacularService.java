@@ -2,45 +2,92 @@ package main.edu.brown.cs.student.main.server.service;
 
 
 import main.edu.brown.cs.student.main.server.model.*;
-import com.squareup.moshi.JsonAdapter;
-import com.squareup.moshi.Moshi;
-import com.squareup.moshi.Types;
 
 import java.io.IOException;
-import java.lang.reflect.Type;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.URLEncoder;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class SpoonacularService {
   private static final String BASE_URL = "https://api.spoonacular.com";
   private static final String SEARCH_ENDPOINT = "/recipes/complexSearch";
   private static final String GET_RECIPE_ENDPOINT = "/recipes/{id}/information";
+  private static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(10);
+  private static final int DEFAULT_EXECUTOR_THREADS = 4;
 
   private final String apiKey;
   private final HttpClient httpClient;
-  private final Moshi moshi;
-  private final JsonAdapter<Map<String, Object>> mapAdapter;
-  private final JsonAdapter<List<Map<String, Object>>> listMapAdapter;
+  private final Executor executor;
+  private final Duration requestTimeout;
 
   public SpoonacularService(String apiKey) {
+    this(apiKey, DEFAULT_TIMEOUT, newExecutor(DEFAULT_EXECUTOR_THREADS));
+  }
+
+  /**
+   * @param requestTimeout upper bound on a whole upstream call, from connect to parsed result
+   * @param executor dedicated executor for HTTP callbacks and response parsing, so slow upstream
+   *                 responses never occupy server request threads
+   */
+  public SpoonacularService(String apiKey, Duration requestTimeout, Executor executor) {
     this.apiKey = apiKey;
-    this.httpClient = HttpClient.newHttpClient();
-    this.moshi = new Moshi.Builder().build();
-    Type mapType = Types.newParameterizedType(Map.class, String.class, Object.class);
-    Type listMapType = Types.newParameterizedType(List.class, mapType);
-    this.mapAdapter = moshi.adapter(mapType);
-    this.listMapAdapter = moshi.adapter(listMapType);
+    this.requestTimeout = requestTimeout;
+    this.executor = executor;
+    this.httpClient = HttpClient.newBuilder()
+        .connectTimeout(requestTimeout)
+        .executor(executor)
+        .build();
+  }
+
+  /**
+   * Constructor for decorating subclasses, which share the wrapped service's client and executor
+   */
+  protected SpoonacularService(SpoonacularService other) {
+    this.apiKey = other.apiKey;
+    this.httpClient = other.httpClient;
+    this.executor = other.executor;
+    this.requestTimeout = other.requestTimeout;
+  }
+
+  /**
+   * Create a fixed pool of daemon threads for upstream I/O callbacks and parsing
+   */
+  public static ExecutorService newExecutor(int threads) {
+    AtomicInteger counter = new AtomicInteger();
+    return Executors.newFixedThreadPool(threads, runnable -> {
+      Thread thread = new Thread(runnable, "spoonacular-io-" + counter.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
   }
 
   /**
    * Search for recipes based on various parameters
    */
   public List<Recipe> searchRecipes(Map<String, String> searchParams) throws IOException, InterruptedException {
+    return await(searchRecipesAsync(searchParams));
+  }
+
+  /**
+   * Search for recipes without blocking the calling thread
+   */
+  public CompletableFuture<List<Recipe>> searchRecipesAsync(Map<String, String> searchParams) {
     // Build the query with API key
     StringBuilder queryBuilder = new StringBuilder(BASE_URL + SEARCH_ENDPOINT);
     queryBuilder.append("?apiKey=").append(apiKey);
@@ -63,291 +110,156 @@ public class SpoonacularService {
       queryBuilder.append("&addRecipeInformation=true");
     }
 
-    // Build the request
-    HttpRequest request = HttpRequest.newBuilder()
-        .uri(URI.create(queryBuilder.toString()))
-        .GET()
-        .build();
-
-    // Send the request and get the response
-    HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-
-    // Check if the request was successful
-    if (response.statusCode() >= 200 && response.statusCode() < 300) {
-      // Parse the response JSON
-      Map<String, Object> jsonResponse = mapAdapter.fromJson(response.body());
-      List<Map<String, Object>> resultsArray = (List<Map<String, Object>>) jsonResponse.get("results");
+    return sendAsync(queryBuilder.toString()).thenApplyAsync(response -> {
+      try (InputStream body = response.body()) {
+        // Check if the request was successful
+        if (response.statusCode() < 200 || response.statusCode() >= 300) {
+          throw new IOException("Error searching recipes: " + response.statusCode() + " " + readError(body));
+        }
 
-      // Convert JSON to Recipe objects
-      List<Recipe> recipes = new ArrayList<>();
-      for (Map<String, Object> recipeMap : resultsArray) {
-        Recipe recipe = parseRecipeFromSearchResult(recipeMap);
-        recipes.add(recipe);
+        // Decode recipes straight from the response stream
+        return SpoonacularJsonReader.readSearchResults(body);
+      } catch (IOException e) {
+        throw new CompletionException(e);
       }
-
-      return recipes;
-    } else {
-      throw new IOException("Error searching recipes: " + response.statusCode() + " " + response.body());
-    }
+    }, executor);
   }
 
   /**
    * Get detailed information about a specific recipe
    */
   public Recipe getRecipeById(int id) throws IOException, InterruptedException {
-    // Build the URL
-    String url = BASE_URL + GET_RECIPE_ENDPOINT.replace("{id}", String.valueOf(id))
-        + "?apiKey=" + apiKey
-        + "&includeNutrition=false";
-
-    // Build the request
-    HttpRequest request = HttpRequest.newBuilder()
-        .uri(URI.create(url))
-        .GET()
-        .build();
-
-    // Send the request and get the response
-    HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-
-    // Check if the request was successful
-    if (response.statusCode() >= 200 && response.statusCode() < 300) {
-      // Parse the response JSON
-      Map<String, Object> jsonRecipe = mapAdapter.fromJson(response.body());
-      return parseFullRecipeDetails(jsonRecipe);
-    } else {
-      throw new IOException("Error getting recipe: " + response.statusCode() + " " + response.body());
-    }
+    return await(getRecipeByIdAsync(id));
   }
 
   /**
-   * Parse a recipe from search results
+   * Get detailed information about a specific recipe without blocking the calling thread
    */
-  private Recipe parseRecipeFromSearchResult(Map<String, Object> jsonRecipe) {
-    Recipe recipe = new Recipe();
-
-    // Basic recipe info
-    recipe.setId(((Double) jsonRecipe.get("id")).intValue());
-    recipe.setTitle((String) jsonRecipe.get("title"));
-
-    if (jsonRecipe.containsKey("image")) {
-      recipe.setImage((String) jsonRecipe.get("image"));
-    }
-
-    if (jsonRecipe.containsKey("readyInMinutes")) {
-      recipe.setReadyInMinutes(((Double) jsonRecipe.get("readyInMinutes")).intValue());
-    }
-
-    if (jsonRecipe.containsKey("servings")) {
-      recipe.setServings(((Double) jsonRecipe.get("servings")).intValue());
-    }
+  public CompletableFuture<Recipe> getRecipeByIdAsync(int id) {
+    // Build the URL
+    String url = BASE_URL + GET_RECIPE_ENDPOINT.replace("{id}", String.valueOf(id))
+        + "?apiKey=" + apiKey
+        + "&includeNutrition=false";
 
-    // Diet info
-    if (jsonRecipe.containsKey("vegetarian")) {
-      recipe.setVegetarian((Boolean) jsonRecipe.get("vegetarian"));
-    }
-    if (jsonRecipe.containsKey("vegan")) {
-      recipe.setVegan((Boolean) jsonRecipe.get("vegan"));
-    }
-    if (jsonRecipe.containsKey("glutenFree")) {
-      recipe.setGlutenFree((Boolean) jsonRecipe.get("glutenFree"));
-    }
-    if (jsonRecipe.containsKey("dairyFree")) {
-      recipe.setDairyFree((Boolean) jsonRecipe.get("dairyFree"));
-    }
+    return sendAsync(url).thenApplyAsync(response -> {
+      try (InputStream body = response.body()) {
+        // Check if the request was successful
+        if (response.statusCode() < 200 || response.statusCode() >= 300) {
+          throw new IOException("Error getting recipe: " + response.statusCode() + " " + readError(body));
+        }
 
-    // Diets
-    if (jsonRecipe.containsKey("diets") && jsonRecipe.get("diets") instanceof List) {
-      List<String> diets = new ArrayList<>();
-      for (Object diet : (List<?>) jsonRecipe.get("diets")) {
-        diets.add((String) diet);
+        // Decode the recipe straight from the response stream
+        return SpoonacularJsonReader.readRecipeDetails(body);
+      } catch (IOException e) {
+        throw new CompletionException(e);
       }
-      recipe.setDiets(diets);
-    }
-
-    // Parse ingredients if available
-    if (jsonRecipe.containsKey("missedIngredients") && jsonRecipe.get("missedIngredients") instanceof List) {
-      parseIngredients(recipe, (List<Map<String, Object>>) jsonRecipe.get("missedIngredients"));
-    }
-
-    if (jsonRecipe.containsKey("usedIngredients") && jsonRecipe.get("usedIngredients") instanceof List) {
-      parseIngredients(recipe, (List<Map<String, Object>>) jsonRecipe.get("usedIngredients"));
-    }
-
-    return recipe;
+    }, executor);
   }
 
   /**
-   * Parse a full recipe detail from the API
+   * Wait for an upstream call, rethrowing its failure with the original exception type
    */
-  private Recipe parseFullRecipeDetails(Map<String, Object> jsonRecipe) {
-    Recipe recipe = new Recipe();
-
-    // Basic recipe info
-    recipe.setId(((Double) jsonRecipe.get("id")).intValue());
-    recipe.setTitle((String) jsonRecipe.get("title"));
-
-    if (jsonRecipe.containsKey("image")) {
-      recipe.setImage((String) jsonRecipe.get("image"));
-    }
-
-    if (jsonRecipe.containsKey("readyInMinutes")) {
-      recipe.setReadyInMinutes(((Double) jsonRecipe.get("readyInMinutes")).intValue());
-    }
-
-    if (jsonRecipe.containsKey("servings")) {
-      recipe.setServings(((Double) jsonRecipe.get("servings")).intValue());
-    }
-
-    if (jsonRecipe.containsKey("sourceUrl")) {
-      recipe.setSourceUrl((String) jsonRecipe.get("sourceUrl"));
-    }
-
-    // Diet info
-    if (jsonRecipe.containsKey("vegetarian")) {
-      recipe.setVegetarian((Boolean) jsonRecipe.get("vegetarian"));
-    }
-    if (jsonRecipe.containsKey("vegan")) {
-      recipe.setVegan((Boolean) jsonRecipe.get("vegan"));
-    }
-    if (jsonRecipe.containsKey("glutenFree")) {
-      recipe.setGlutenFree((Boolean) jsonRecipe.get("glutenFree"));
-    }
-    if (jsonRecipe.containsKey("dairyFree")) {
-      recipe.setDairyFree((Boolean) jsonRecipe.get("dairyFree"));
-    }
-
-    // Diets
-    if (jsonRecipe.containsKey("diets") && jsonRecipe.get("diets") instanceof List) {
-      List<String> diets = new ArrayList<>();
-      for (Object diet : (List<?>) jsonRecipe.get("diets")) {
-        diets.add((String) diet);
+  public static <T> T await(CompletableFuture<T> future) throws IOException, InterruptedException {
+    try {
+      return future.get();
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      while (cause instanceof CompletionException && cause.getCause() != null) {
+        cause = cause.getCause();
       }
-      recipe.setDiets(diets);
-    }
-
-    // Parse ingredients
-    if (jsonRecipe.containsKey("extendedIngredients") && jsonRecipe.get("extendedIngredients") instanceof List) {
-      List<Map<String, Object>> ingredients = (List<Map<String, Object>>) jsonRecipe.get("extendedIngredients");
-      for (Map<String, Object> ingredientMap : ingredients) {
-        Ingredient ingredient = new Ingredient();
-
-        ingredient.setId(((Double) ingredientMap.get("id")).intValue());
-        ingredient.setName((String) ingredientMap.get("name"));
-
-        if (ingredientMap.containsKey("aisle") && ingredientMap.get("aisle") != null) {
-          ingredient.setAisle((String) ingredientMap.get("aisle"));
-        }
-
-        if (ingredientMap.containsKey("amount") && ingredientMap.get("amount") != null) {
-          ingredient.setAmount((Double) ingredientMap.get("amount"));
-        }
-
-        if (ingredientMap.containsKey("unit") && ingredientMap.get("unit") != null) {
-          ingredient.setUnit((String) ingredientMap.get("unit"));
-        }
-
-        if (ingredientMap.containsKey("original") && ingredientMap.get("original") != null) {
-          ingredient.setOriginalString((String) ingredientMap.get("original"));
-        } else {
-          ingredient.setOriginalString(ingredient.getAmount() + " " +
-              ingredient.getUnit() + " " +
-              ingredient.getName());
-        }
-
-        recipe.addIngredient(ingredient);
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
       }
-    }
-
-    // Parse instructions
-    if (jsonRecipe.containsKey("analyzedInstructions") && jsonRecipe.get("analyzedInstructions") instanceof List) {
-      List<Map<String, Object>> instructions = (List<Map<String, Object>>) jsonRecipe.get("analyzedInstructions");
-      List<String> stepsList = new ArrayList<>();
-
-      for (Map<String, Object> instructionObj : instructions) {
-        if (instructionObj.containsKey("steps") && instructionObj.get("steps") instanceof List) {
-          List<Map<String, Object>> steps = (List<Map<String, Object>>) instructionObj.get("steps");
-          for (Map<String, Object> step : steps) {
-            if (step.containsKey("step") && step.get("step") != null) {
-              stepsList.add((String) step.get("step"));
-            }
-          }
-        }
+      if (cause instanceof TimeoutException) {
+        throw new HttpTimeoutException("Spoonacular request timed out");
       }
-
-      recipe.setInstructions(stepsList);
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IOException(cause);
     }
-
-    return recipe;
   }
 
   /**
-   * Helper method to parse ingredients from search results
+   * Send a GET request asynchronously, bounded by the configured timeout
    */
-  private void parseIngredients(Recipe recipe, List<Map<String, Object>> ingredientsArray) {
-    for (Map<String, Object> ingredientMap : ingredientsArray) {
-      Ingredient ingredient = new Ingredient();
-
-      ingredient.setId(((Double) ingredientMap.get("id")).intValue());
-      ingredient.setName((String) ingredientMap.get("name"));
-
-      if (ingredientMap.containsKey("aisle") && ingredientMap.get("aisle") != null) {
-        ingredient.setAisle((String) ingredientMap.get("aisle"));
-      }
-
-      if (ingredientMap.containsKey("amount") && ingredientMap.get("amount") != null) {
-        ingredient.setAmount((Double) ingredientMap.get("amount"));
-      }
-
-      if (ingredientMap.containsKey("unit") && ingredientMap.get("unit") != null) {
-        ingredient.setUnit((String) ingredientMap.get("unit"));
-      }
+  private CompletableFuture<HttpResponse<InputStream>> sendAsync(String url) {
+    HttpRequest request = HttpRequest.newBuilder()
+        .uri(URI.create(url))
+        .timeout(requestTimeout)
+        .GET()
+        .build();
 
-      if (ingredientMap.containsKey("original") && ingredientMap.get("original") != null) {
-        ingredient.setOriginalString((String) ingredientMap.get("original"));
-      } else {
-        ingredient.setOriginalString(ingredient.getAmount() + " " +
-            ingredient.getUnit() + " " +
-            ingredient.getName());
-      }
+    return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream())
+        .orTimeout(requestTimeout.toMillis(), TimeUnit.MILLISECONDS);
+  }
 
-      recipe.addIngredient(ingredient);
-    }
+  /**
+   * Read an error body for the exception message; these are small JSON messages from the API
+   */
+  private static String readError(InputStream body) throws IOException {
+    return new String(body.readAllBytes(), StandardCharsets.UTF_8);
   }
 
   /**
-   * Check if an ingredient contains any of the user's allergens
+   * Check if an ingredient contains any of the user's allergens, flagging it with all of them
    */
   public boolean checkIngredientForAllergens(Ingredient ingredient, List<String> allergens) {
     if (allergens == null || allergens.isEmpty()) {
       return false;
     }
+    return flagAllergens(ingredient, AllergenMatcher.of(allergens));
+  }
 
-    // Simple check: see if the ingredient name contains any allergen name
-    String ingredientName = ingredient.getName().toLowerCase();
-    for (String allergen : allergens) {
-      if (ingredientName.contains(allergen.toLowerCase())) {
-        ingredient.setContainsAllergen(true);
-        ingredient.setPossibleAllergens(new String[]{allergen});
-        return true;
-      }
+  /**
+   * Check all ingredients in a recipe for allergens
+   */
+  public void checkRecipeForAllergens(Recipe recipe, List<String> allergens) {
+    if (allergens == null || allergens.isEmpty()) {
+      return;
     }
 
-    // In a real implementation, you would use a more sophisticated check,
-    // possibly calling another API endpoint to check for allergens
-
-    return false;
+    flagAllergens(recipe, AllergenMatcher.of(allergens));
   }
 
   /**
-   * Check all ingredients in a recipe for allergens
+   * Check every recipe in a page of results for allergens, e.g. search results, which list their
+   * missed and used ingredients
    */
-  public void checkRecipeForAllergens(Recipe recipe, List<String> allergens) {
+  public void checkRecipesForAllergens(List<Recipe> recipes, List<String> allergens) {
     if (allergens == null || allergens.isEmpty()) {
       return;
     }
 
+    // One compiled matcher for the whole page
+    AllergenMatcher matcher = AllergenMatcher.of(allergens);
+    for (Recipe recipe : recipes) {
+      flagAllergens(recipe, matcher);
+    }
+  }
+
+  // Flag each ingredient, and list on the recipe every allergen found, once each, sorted
+  // alphabetically
+  private static void flagAllergens(Recipe recipe, AllergenMatcher matcher) {
+    Set<String> found = new TreeSet<>();
     for (Ingredient ingredient : recipe.getIngredients()) {
-      checkIngredientForAllergens(ingredient, allergens);
+      if (flagAllergens(ingredient, matcher)) {
+        Collections.addAll(found, ingredient.getPossibleAllergens());
+      }
+    }
+    recipe.setAllergens(new ArrayList<>(found));
+  }
+
+  private static boolean flagAllergens(Ingredient ingredient, AllergenMatcher matcher) {
+    List<String> found = matcher.match(ingredient.getName());
+    if (found.isEmpty()) {
+      return false;
     }
+    ingredient.setContainsAllergen(true);
+    ingredient.setPossibleAllergens(found.toArray(new String[0]));
+    return true;
   }
 }
\ No newline at end of file
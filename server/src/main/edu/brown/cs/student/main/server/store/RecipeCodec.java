@@ -0,0 +1,147 @@
+package main.edu.brown.cs.student.main.server.store;
+
+import main.edu.brown.cs.student.main.server.model.Ingredient;
+import main.edu.brown.cs.student.main.server.model.Recipe;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact binary encoding of the upstream parts of a Recipe (details, ingredients, instructions,
+ * diets, dish types). Per-user annotations such as pantry matches and allergen flags are not stored.
+ *
+ * Version 2 appended dish types; version 1 records still decode, with no dish types.
+ */
+final class RecipeCodec {
+  static final byte VERSION = 2;
+
+  private RecipeCodec() {
+  }
+
+  static byte[] encode(Recipe recipe) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(1024);
+    DataOutputStream out = new DataOutputStream(bytes);
+
+    out.writeByte(VERSION);
+    out.writeInt(recipe.getId());
+    writeString(out, recipe.getTitle());
+    writeString(out, recipe.getImage());
+    out.writeInt(recipe.getReadyInMinutes());
+    out.writeInt(recipe.getServings());
+    writeString(out, recipe.getSourceUrl());
+    writeString(out, recipe.getCuisine());
+    out.writeBoolean(recipe.isVegetarian());
+    out.writeBoolean(recipe.isVegan());
+    out.writeBoolean(recipe.isGlutenFree());
+    out.writeBoolean(recipe.isDairyFree());
+    writeStrings(out, recipe.getDiets());
+    writeStrings(out, recipe.getInstructions());
+
+    List<Ingredient> ingredients = recipe.getIngredients();
+    out.writeInt(ingredients == null ? 0 : ingredients.size());
+    if (ingredients != null) {
+      for (Ingredient ingredient : ingredients) {
+        out.writeInt(ingredient.getId());
+        writeString(out, ingredient.getName());
+        writeString(out, ingredient.getAisle());
+        out.writeDouble(ingredient.getAmount());
+        writeString(out, ingredient.getUnit());
+        writeString(out, ingredient.getOriginalString());
+      }
+    }
+    writeStrings(out, recipe.getDishTypes());
+
+    out.flush();
+    return bytes.toByteArray();
+  }
+
+  static Recipe decode(ByteBuffer in) throws IOException {
+    try {
+      byte version = in.get();
+      if (version < 1 || version > VERSION) {
+        throw new IOException("Unsupported recipe record version " + version);
+      }
+
+      Recipe recipe = new Recipe();
+      recipe.setId(in.getInt());
+      recipe.setTitle(readString(in));
+      recipe.setImage(readString(in));
+      recipe.setReadyInMinutes(in.getInt());
+      recipe.setServings(in.getInt());
+      recipe.setSourceUrl(readString(in));
+      recipe.setCuisine(readString(in));
+      recipe.setVegetarian(in.get() != 0);
+      recipe.setVegan(in.get() != 0);
+      recipe.setGlutenFree(in.get() != 0);
+      recipe.setDairyFree(in.get() != 0);
+      recipe.setDiets(readStrings(in));
+      recipe.setInstructions(readStrings(in));
+
+      int ingredientCount = in.getInt();
+      for (int i = 0; i < ingredientCount; i++) {
+        Ingredient ingredient = new Ingredient();
+        ingredient.setId(in.getInt());
+        ingredient.setName(readString(in));
+        ingredient.setAisle(readString(in));
+        ingredient.setAmount(in.getDouble());
+        ingredient.setUnit(readString(in));
+        ingredient.setOriginalString(readString(in));
+        recipe.addIngredient(ingredient);
+      }
+      if (version >= 2) {
+        recipe.setDishTypes(readStrings(in));
+      }
+      return recipe;
+    } catch (BufferUnderflowException | IllegalArgumentException e) {
+      throw new IOException("Corrupt recipe record", e);
+    }
+  }
+
+  // Length-prefixed UTF-8, with -1 for null (DataOutput.writeUTF caps strings at 64KB)
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    if (value == null) {
+      out.writeInt(-1);
+      return;
+    }
+    byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(utf8.length);
+    out.write(utf8);
+  }
+
+  private static String readString(ByteBuffer in) {
+    int length = in.getInt();
+    if (length < 0) {
+      return null;
+    }
+    if (length > in.remaining()) {
+      throw new BufferUnderflowException();
+    }
+    byte[] utf8 = new byte[length];
+    in.get(utf8);
+    return new String(utf8, StandardCharsets.UTF_8);
+  }
+
+  private static void writeStrings(DataOutputStream out, List<String> values) throws IOException {
+    out.writeInt(values == null ? 0 : values.size());
+    if (values != null) {
+      for (String value : values) {
+        writeString(out, value);
+      }
+    }
+  }
+
+  private static List<String> readStrings(ByteBuffer in) {
+    int count = in.getInt();
+    List<String> values = new ArrayList<>(Math.min(count, in.remaining() / 4));
+    for (int i = 0; i < count; i++) {
+      values.add(readString(in));
+    }
+    return values;
+  }
+}
@@ -0,0 +1,167 @@
+package main.edu.brown.cs.student.main.server.store;
+
+import main.edu.brown.cs.student.main.server.model.Recipe;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+/**
+ * Persistent recipe repository backed by an append-only, memory-mapped file.
+ *
+ * Each record is [length][crc32][encoded recipe]. An id-to-offset index is rebuilt by scanning
+ * the file on open; the scan stops at the first empty, truncated or corrupt record, so a crash
+ * mid-append only loses that record. Storing a recipe again appends a new record and repoints the
+ * index, leaving the old bytes as garbage.
+ *
+ * Reads are lock-free: they look up the offset and decode straight out of the mapping. Appends
+ * are serialized and grow the mapping by doubling when it fills up.
+ */
+public class RecipeStore implements Closeable {
+  private static final int HEADER_BYTES = 8;
+  private static final long INITIAL_CAPACITY = 1024 * 1024;
+  // A single MappedByteBuffer is indexed by int
+  private static final long MAX_CAPACITY = Integer.MAX_VALUE;
+
+  private final FileChannel channel;
+  private final ConcurrentHashMap<Integer, Integer> offsets = new ConcurrentHashMap<>();
+  private volatile MappedByteBuffer mapped;
+  private int end;
+
+  public RecipeStore(Path file) throws IOException {
+    Path parent = file.toAbsolutePath().getParent();
+    if (parent != null) {
+      Files.createDirectories(parent);
+    }
+    this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+        StandardOpenOption.WRITE);
+    long capacity = Math.min(MAX_CAPACITY, Math.max(INITIAL_CAPACITY, channel.size()));
+    this.mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+    this.end = recover();
+  }
+
+  /**
+   * Look up a stored recipe, or return null if it has never been stored
+   */
+  public Recipe get(int id) throws IOException {
+    Integer offset = offsets.get(id);
+    if (offset == null) {
+      return null;
+    }
+
+    ByteBuffer view = mapped.duplicate();
+    int length = view.getInt(offset);
+    view.position(offset + HEADER_BYTES).limit(offset + HEADER_BYTES + length);
+    return RecipeCodec.decode(view.slice());
+  }
+
+  /**
+   * Append a recipe, replacing any earlier record with the same id
+   */
+  public synchronized void put(Recipe recipe) throws IOException {
+    byte[] payload = RecipeCodec.encode(recipe);
+    long recordEnd = (long) end + HEADER_BYTES + payload.length;
+    if (recordEnd > mapped.capacity()) {
+      grow(recordEnd);
+    }
+
+    CRC32 crc = new CRC32();
+    crc.update(payload);
+
+    MappedByteBuffer buffer = mapped;
+    buffer.put(end + HEADER_BYTES, payload);
+    buffer.putInt(end + 4, (int) crc.getValue());
+    buffer.putInt(end, payload.length);
+
+    // Publish only once the record is fully written
+    offsets.put(recipe.getId(), end);
+    end = (int) recordEnd;
+  }
+
+  /**
+   * Ids of every stored recipe; a live view, so it may reflect concurrent appends
+   */
+  public Set<Integer> ids() {
+    return Collections.unmodifiableSet(offsets.keySet());
+  }
+
+  public boolean contains(int id) {
+    return offsets.containsKey(id);
+  }
+
+  /**
+   * Number of distinct recipes in the store
+   */
+  public int size() {
+    return offsets.size();
+  }
+
+  /**
+   * Bytes used by records, including superseded ones
+   */
+  public synchronized long sizeInBytes() {
+    return end;
+  }
+
+  /**
+   * Flush appended records to disk
+   */
+  public synchronized void flush() {
+    mapped.force();
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    mapped.force();
+    channel.close();
+  }
+
+  /**
+   * Rebuild the index from the records on disk and return the offset to append at
+   */
+  private int recover() {
+    MappedByteBuffer buffer = mapped;
+    int position = 0;
+    while (position + HEADER_BYTES <= buffer.capacity()) {
+      int length = buffer.getInt(position);
+      if (length <= 0 || length > buffer.capacity() - position - HEADER_BYTES) {
+        break;
+      }
+
+      ByteBuffer payload = buffer.duplicate();
+      payload.position(position + HEADER_BYTES).limit(position + HEADER_BYTES + length);
+      payload = payload.slice();
+      CRC32 crc = new CRC32();
+      crc.update(payload.duplicate());
+      if ((int) crc.getValue() != buffer.getInt(position + 4)) {
+        break;
+      }
+
+      // The id follows the version byte at the start of every payload
+      offsets.put(payload.getInt(1), position);
+      position += HEADER_BYTES + length;
+    }
+    return position;
+  }
+
+  private void grow(long required) throws IOException {
+    if (required > MAX_CAPACITY) {
+      throw new IOException("Recipe store is full");
+    }
+    long capacity = mapped.capacity();
+    while (capacity < required) {
+      capacity = Math.min(MAX_CAPACITY, capacity * 2);
+    }
+    mapped.force();
+    mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+  }
+}
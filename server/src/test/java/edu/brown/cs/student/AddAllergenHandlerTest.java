@@ -9,11 +9,12 @@ import com.squareup.moshi.JsonAdapter;
 import com.squareup.moshi.Moshi;
 import com.squareup.moshi.Types;
 import java.lang.reflect.Type;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import main.edu.brown.cs.student.main.server.handlers.AddAllergenHandler;
 import main.edu.brown.cs.student.main.server.model.User;
+import main.edu.brown.cs.student.main.server.repository.InMemoryUserRepository;
+import main.edu.brown.cs.student.main.server.repository.UserRepository;
 import org.junit.Before;
 import org.junit.Test;
 import spark.Request;
@@ -22,19 +23,19 @@ import spark.Response;
 public class AddAllergenHandlerTest {
 
   private AddAllergenHandler handler;
-  private Map<String, User> users;
+  private UserRepository users;
   private Request mockRequest;
   private Response mockResponse;
   private JsonAdapter<Map<String, Object>> adapter;
 
   @Before
   public void setUp() {
-    // Initialize users map
-    users = new HashMap<>();
+    // Initialize user repository
+    users = new InMemoryUserRepository();
 
     // Add a test user
     User testUser = new User("test-user", "Test User", "test@example.com");
-    users.put(testUser.getId(), testUser);
+    users.save(testUser);
 
     // Create the handler
     handler = new AddAllergenHandler(users);
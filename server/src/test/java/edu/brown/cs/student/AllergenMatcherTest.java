@@ -0,0 +1,87 @@
+package edu.brown.cs.student;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.List;
+import main.edu.brown.cs.student.main.server.service.AllergenMatcher;
+import org.junit.Test;
+
+public class AllergenMatcherTest {
+
+  @Test
+  public void testMatchesNamesAndSynonyms() {
+    AllergenMatcher matcher = AllergenMatcher.of(Arrays.asList("dairy", "peanut"));
+
+    assertEquals(List.of("dairy"), matcher.match("Unsalted Butter"));
+    assertEquals(List.of("dairy"), matcher.match("dairy-free? no, DAIRY"));
+    assertEquals(List.of("peanut"), matcher.match("roasted peanuts"));
+    assertTrue(matcher.match("Apple").isEmpty());
+    assertTrue(matcher.match(null).isEmpty());
+  }
+
+  @Test
+  public void testReportsEveryAllergenInOnePass() {
+    AllergenMatcher matcher =
+        AllergenMatcher.of(Arrays.asList("wheat", "gluten", "dairy", "tree nut", "sesame"));
+
+    // "flour" is a synonym of both wheat and gluten; overlapping terms are all found
+    assertEquals(
+        List.of("dairy", "gluten", "tree nut", "wheat"),
+        matcher.match("Almond flour cheese crackers"));
+    assertEquals(List.of("sesame", "tree nut"), matcher.match("pine nut tahini"));
+  }
+
+  @Test
+  public void testOneMatcherPerAllergenSet() {
+    AllergenMatcher matcher = AllergenMatcher.of(Arrays.asList("Soy", "egg", "soy"));
+
+    assertSame(matcher, AllergenMatcher.of(Arrays.asList("egg", "soy")));
+    assertNotSame(matcher, AllergenMatcher.of(Arrays.asList("egg")));
+    assertEquals(List.of("egg", "soy"), matcher.getAllergens());
+    assertEquals(List.of("egg", "soy"), matcher.match("Egg fried rice with tofu"));
+  }
+
+  @Test
+  public void testUnknownAllergensMatchTheirOwnName() {
+    AllergenMatcher matcher = AllergenMatcher.of(Arrays.asList("kiwi"));
+
+    assertEquals(List.of("kiwi"), matcher.match("Golden Kiwifruit"));
+    assertTrue(matcher.match("banana").isEmpty());
+  }
+
+  @Test
+  public void testTermsMatchOnlyAtWordStarts() {
+    AllergenMatcher matcher = AllergenMatcher.of(Arrays.asList("dairy", "grain"));
+
+    assertTrue(matcher.match("goat cheese").contains("dairy"));
+    assertFalse(matcher.match("goat cheese").contains("grain"));
+    assertTrue(matcher.match("black peppercorns").isEmpty());
+    assertTrue(matcher.match("licorice").isEmpty());
+    assertEquals(List.of("dairy"), matcher.match("buttermilk"));
+    assertEquals(List.of("grain"), matcher.match("brown rice"));
+    assertEquals(List.of("grain"), matcher.match("corn-fed chicken"));
+  }
+
+  @Test
+  public void testExclusionsCancelOnlyTheirOwnAllergen() {
+    AllergenMatcher matcher =
+        AllergenMatcher.of(Arrays.asList("dairy", "peanut", "gluten", "wheat", "egg"));
+
+    assertTrue(matcher.match("butternut squash").isEmpty());
+    assertTrue(matcher.match("coconut milk").isEmpty());
+    assertTrue(matcher.match("cream of tartar").isEmpty());
+    assertTrue(matcher.match("chickpea flour").isEmpty());
+    assertTrue(matcher.match("roasted eggplant").isEmpty());
+    assertEquals(List.of("peanut"), matcher.match("smooth peanut butter"));
+
+    // Anything outside the compound still counts
+    assertEquals(List.of("dairy"), matcher.match("coconut milk and heavy cream"));
+    assertEquals(List.of("gluten", "wheat"), matcher.match("chickpea flour, wheat flour"));
+  }
+
+  @Test
+  public void testEmptySetMatchesNothing() {
+    assertTrue(AllergenMatcher.of(List.of()).match("milk").isEmpty());
+  }
+}
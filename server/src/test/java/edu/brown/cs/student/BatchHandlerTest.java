@@ -0,0 +1,144 @@
+package edu.brown.cs.student;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import com.squareup.moshi.JsonAdapter;
+import com.squareup.moshi.Moshi;
+import com.squareup.moshi.Types;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Map;
+import main.edu.brown.cs.student.main.server.events.GroceryEventBus;
+import main.edu.brown.cs.student.main.server.handlers.BatchHandler;
+import main.edu.brown.cs.student.main.server.model.User;
+import main.edu.brown.cs.student.main.server.repository.InMemoryUserRepository;
+import main.edu.brown.cs.student.main.server.repository.UserRepository;
+import org.junit.Before;
+import org.junit.Test;
+import spark.Request;
+import spark.Response;
+
+public class BatchHandlerTest {
+
+  private BatchHandler handler;
+  private UserRepository users;
+  private Request mockRequest;
+  private Response mockResponse;
+  private JsonAdapter<Map<String, Object>> adapter;
+
+  @Before
+  public void setUp() {
+    users = new InMemoryUserRepository();
+    users.save(new User("test-user", "Test User", "test@example.com"));
+    handler = new BatchHandler(users, new GroceryEventBus(8, 10));
+
+    mockRequest = mock(Request.class);
+    mockResponse = mock(Response.class);
+
+    Moshi moshi = new Moshi.Builder().build();
+    Type type = Types.newParameterizedType(Map.class, String.class, Object.class);
+    adapter = moshi.adapter(type);
+  }
+
+  private Map<String, Object> send(String operations) throws Exception {
+    when(mockRequest.body())
+        .thenReturn("{\"userId\":\"test-user\",\"operations\":[" + operations + "]}");
+    return adapter.fromJson((String) handler.handle(mockRequest, mockResponse));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testOperationsApplyInOrder() throws Exception {
+    Map<String, Object> response =
+        send(
+            "{\"op\":\"add\",\"list\":\"grocery\",\"ingredientName\":\"milk\"},"
+                + "{\"op\":\"add\",\"list\":\"grocery\",\"ingredientName\":\"eggs\"},"
+                + "{\"op\":\"add\",\"list\":\"grocery\",\"ingredientName\":\"bread\"},"
+                + "{\"op\":\"check\",\"itemId\":1},"
+                + "{\"op\":\"move-to-pantry\",\"itemId\":2},"
+                + "{\"op\":\"delete\",\"list\":\"grocery\",\"ingredientName\":\"bread\"},"
+                + "{\"op\":\"add\",\"list\":\"pantry\",\"ingredientName\":\"rice\"},"
+                + "{\"op\":\"delete\",\"list\":\"pantry\",\"ingredientName\":\"RICE\"}");
+
+    assertEquals("success", response.get("result"));
+    List<Map<String, Object>> results = (List<Map<String, Object>>) response.get("results");
+    assertEquals(8, results.size());
+    for (Map<String, Object> result : results) {
+      assertEquals("success", result.get("result"));
+    }
+    assertEquals(2.0, results.get(4).get("itemId"));
+
+    User user = users.get("test-user");
+    assertEquals(1, user.getGroceryList().getItems().size());
+    assertTrue(user.getGroceryList().getItem(1).isChecked());
+    assertTrue(user.getPantry().containsIngredient("eggs"));
+    assertFalse(user.getPantry().containsIngredient("rice"));
+    assertEquals((double) user.getGroceryList().getVersion(), response.get("groceryVersion"));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testFailedOperationsDoNotStopTheBatch() throws Exception {
+    Map<String, Object> response =
+        send(
+            "{\"op\":\"check\",\"itemId\":42},"
+                + "{\"op\":\"juggle\"},"
+                + "{\"op\":\"add\",\"list\":\"basket\",\"ingredientName\":\"milk\"},"
+                + "\"not an object\","
+                + "{\"op\":\"add\",\"list\":\"grocery\",\"ingredientName\":\"milk\"}");
+
+    List<Map<String, Object>> results = (List<Map<String, Object>>) response.get("results");
+    assertEquals("error_not_found", results.get(0).get("result"));
+    assertEquals("error_bad_request", results.get(1).get("result"));
+    assertEquals("error_bad_request", results.get(2).get("result"));
+    assertEquals("error_bad_request", results.get(3).get("result"));
+    assertEquals("success", results.get(4).get("result"));
+    assertEquals(1, users.get("test-user").getGroceryList().getItems().size());
+  }
+
+  @Test
+  public void testMissingOperationsIsBadRequest() throws Exception {
+    when(mockRequest.body()).thenReturn("{\"userId\":\"test-user\"}");
+    Map<String, Object> response =
+        adapter.fromJson((String) handler.handle(mockRequest, mockResponse));
+
+    assertEquals("error_bad_request", response.get("result"));
+    verify(mockResponse).status(400);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testThrowingOperationFailsAloneAndTheRestAreSaved() throws Exception {
+    User user = spy(new User("test-user", "Test User", "test@example.com"));
+    doThrow(new IllegalStateException("pantry unavailable"))
+        .doCallRealMethod()
+        .when(user)
+        .getPantry();
+    users = spy(new InMemoryUserRepository());
+    users.save(user);
+    handler = new BatchHandler(users, new GroceryEventBus(8, 10));
+
+    Map<String, Object> response =
+        send(
+            "{\"op\":\"add\",\"list\":\"pantry\",\"ingredientName\":\"rice\"},"
+                + "{\"op\":\"add\",\"list\":\"grocery\",\"ingredientName\":\"milk\"}");
+
+    assertEquals("success", response.get("result"));
+    List<Map<String, Object>> results = (List<Map<String, Object>>) response.get("results");
+    assertEquals("error_processing", results.get(0).get("result"));
+    assertEquals("success", results.get(1).get("result"));
+    verify(users, times(2)).save(user);
+    assertEquals(1, users.get("test-user").getGroceryList().getItems().size());
+  }
+
+  @Test
+  public void testNonStringUserIdIsBadRequest() throws Exception {
+    when(mockRequest.body()).thenReturn("{\"userId\":42,\"operations\":[]}");
+    Map<String, Object> response =
+        adapter.fromJson((String) handler.handle(mockRequest, mockResponse));
+
+    assertEquals("error_bad_request", response.get("result"));
+    verify(mockResponse).status(400);
+  }
+}
@@ -0,0 +1,303 @@
+package edu.brown.cs.student;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import main.edu.brown.cs.student.main.server.cache.CacheStats;
+import main.edu.brown.cs.student.main.server.cache.LruTtlCache;
+import main.edu.brown.cs.student.main.server.cache.SearchResultCache;
+import main.edu.brown.cs.student.main.server.model.Recipe;
+import main.edu.brown.cs.student.main.server.service.CachingSpoonacularService;
+import main.edu.brown.cs.student.main.server.service.MockSpoonacularService;
+import main.edu.brown.cs.student.main.server.service.RecipeSearchIndex;
+import main.edu.brown.cs.student.main.server.store.RecipeStore;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CachingSpoonacularServiceTest {
+
+  private CountingService upstream;
+  private CachingSpoonacularService cachingService;
+
+  // Mock service that counts how often recipe details are fetched
+  private static class CountingService extends MockSpoonacularService {
+    private final AtomicInteger detailCalls = new AtomicInteger();
+    private final AtomicInteger searchCalls = new AtomicInteger();
+    private volatile CountDownLatch gate = new CountDownLatch(0);
+
+    @Override
+    public Recipe getRecipeById(int id) {
+      detailCalls.incrementAndGet();
+      awaitGate();
+      return super.getRecipeById(id);
+    }
+
+    @Override
+    public List<Recipe> searchRecipes(Map<String, String> searchParams) {
+      searchCalls.incrementAndGet();
+      awaitGate();
+      return super.searchRecipes(searchParams);
+    }
+
+    private void awaitGate() {
+      try {
+        gate.await(5, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  @Before
+  public void setUp() {
+    upstream = new CountingService();
+    cachingService = new CachingSpoonacularService(upstream, 10, 1024 * 1024, 60_000);
+  }
+
+  @Test
+  public void testRepeatedLookupsHitCache() throws Exception {
+    cachingService.getRecipeById(1);
+    cachingService.getRecipeById(1);
+    cachingService.getRecipeById(1);
+
+    assertEquals(1, upstream.detailCalls.get());
+
+    CacheStats stats = cachingService.getRecipeCacheStats();
+    assertEquals(2, stats.getHits());
+    assertEquals(1, stats.getMisses());
+    assertEquals(1, stats.getSize());
+    assertTrue(stats.getWeight() > 0);
+  }
+
+  @Test
+  public void testCallerMutationsDoNotLeakIntoCache() throws Exception {
+    Recipe first = cachingService.getRecipeById(1);
+    first.setAvailableIngredients(5);
+    first.getIngredients().get(0).setContainsAllergen(true);
+
+    Recipe second = cachingService.getRecipeById(1);
+    assertEquals(0, second.getAvailableIngredients());
+    assertFalse(second.getIngredients().get(0).isContainsAllergen());
+  }
+
+  @Test
+  public void testConcurrentMissesShareOneUpstreamCall() throws Exception {
+    upstream.gate = new CountDownLatch(1);
+    ExecutorService pool = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<Recipe>> futures = new ArrayList<>();
+      for (int i = 0; i < 8; i++) {
+        futures.add(pool.submit(() -> cachingService.getRecipeById(2)));
+      }
+
+      // Give every caller time to join the in-flight request before it completes
+      Thread.sleep(200);
+      upstream.gate.countDown();
+
+      for (Future<Recipe> future : futures) {
+        assertEquals("Vegetable Stir Fry", future.get(5, TimeUnit.SECONDS).getTitle());
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+
+    assertEquals(1, upstream.detailCalls.get());
+    assertEquals(7, cachingService.getCoalescedRequests());
+  }
+
+  @Test
+  public void testConcurrentIdenticalSearchesShareOneUpstreamCall() throws Exception {
+    upstream.gate = new CountDownLatch(1);
+    ExecutorService pool = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<List<Recipe>>> futures = new ArrayList<>();
+      for (int i = 0; i < 4; i++) {
+        // Same logical search, built in a different order each time
+        Map<String, String> params = new LinkedHashMap<>();
+        if (i % 2 == 0) {
+          params.put("query", "cookies");
+          params.put("diet", "vegetarian");
+        } else {
+          params.put("diet", "vegetarian");
+          params.put("query", "cookies");
+        }
+        futures.add(pool.submit(() -> cachingService.searchRecipes(params)));
+      }
+
+      Thread.sleep(200);
+      upstream.gate.countDown();
+
+      for (Future<List<Recipe>> future : futures) {
+        assertEquals(2, future.get(5, TimeUnit.SECONDS).size());
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+
+    assertEquals(1, upstream.searchCalls.get());
+  }
+
+  @Test
+  public void testLeastRecentlyUsedEntryIsEvicted() {
+    LruTtlCache<String, String> cache = new LruTtlCache<>(2, 1000, 60_000, String::length);
+    cache.put("a", "apple");
+    cache.put("b", "banana");
+
+    // Touch "a" so "b" becomes the eldest entry
+    assertEquals("apple", cache.get("a"));
+    cache.put("c", "cherry");
+
+    assertNull(cache.get("b"));
+    assertEquals("apple", cache.get("a"));
+    assertEquals("cherry", cache.get("c"));
+    assertEquals(1, cache.stats().getEvictions());
+  }
+
+  @Test
+  public void testWeightBoundEvicts() {
+    LruTtlCache<String, String> cache = new LruTtlCache<>(100, 10, 60_000, String::length);
+    cache.put("a", "aaaaaa");
+    cache.put("b", "bbbbbb");
+
+    assertNull(cache.get("a"));
+    assertEquals("bbbbbb", cache.get("b"));
+    assertEquals(6, cache.weight());
+  }
+
+  @Test
+  public void testEntriesExpireAfterTtl() {
+    AtomicLong now = new AtomicLong(0);
+    LruTtlCache<String, String> cache = new LruTtlCache<>(10, 1000, 100, String::length, now::get);
+    cache.put("a", "apple");
+    cache.put("b", "banana", 500);
+
+    now.set(200);
+    assertNull(cache.get("a"));
+    assertEquals("banana", cache.get("b"));
+
+    CacheStats stats = cache.stats();
+    assertEquals(1, stats.getExpirations());
+    assertEquals(1, stats.getHits());
+    assertEquals(1, stats.getMisses());
+  }
+
+  @Test
+  public void testCanonicalSearchKey() {
+    Map<String, String> first = new LinkedHashMap<>();
+    first.put("query", "  Chocolate   Cookies ");
+    first.put("intolerances", "Dairy,peanut,dairy");
+    first.put("diet", "vegan|Vegetarian,gluten free");
+    first.put("cuisine", "");
+
+    Map<String, String> second = new LinkedHashMap<>();
+    second.put("diet", "Gluten Free, vegetarian|vegan");
+    second.put("intolerances", "peanut, DAIRY");
+    second.put("query", "chocolate cookies");
+
+    assertEquals(SearchResultCache.canonicalKey(first), SearchResultCache.canonicalKey(second));
+    assertEquals(
+        "diet=gluten free,vegan|vegetarian&intolerances=dairy,peanut&query=chocolate cookies",
+        SearchResultCache.canonicalKey(second));
+
+    second.put("intolerances", "peanut");
+    assertNotEquals(SearchResultCache.canonicalKey(first), SearchResultCache.canonicalKey(second));
+  }
+
+  @Test
+  public void testRepeatedSearchesGoUpstreamOncePerTtl() throws Exception {
+    AtomicLong now = new AtomicLong(0);
+    SearchResultCache searchResults =
+        new SearchResultCache(
+            100, 1 << 20, 1000, 100, CachingSpoonacularService::estimateSize, now::get);
+    CachingSpoonacularService service =
+        new CachingSpoonacularService(
+            upstream, 10, 1024 * 1024, 60_000, null, new RecipeSearchIndex(100), searchResults);
+
+    service.searchRecipes(Map.of("query", "Cookies", "intolerances", "dairy,Dairy"));
+    List<Recipe> repeat =
+        service.searchRecipes(Map.of("intolerances", "DAIRY", "query", "cookies"));
+    assertEquals(1, upstream.searchCalls.get());
+    assertEquals(2, repeat.size());
+    assertEquals("Chocolate Chip Cookies", repeat.get(0).getTitle());
+
+    // Results are copies, so one caller's annotations don't reach the next
+    repeat.get(0).setAvailableIngredients(5);
+    assertEquals(
+        0, service.searchRecipes(Map.of("query", "cookies")).get(0).getAvailableIngredients());
+    assertEquals(2, upstream.searchCalls.get());
+
+    now.set(1000);
+    service.searchRecipes(Map.of("query", "cookies", "intolerances", "dairy"));
+    assertEquals(3, upstream.searchCalls.get());
+    assertEquals(1, searchResults.stats().getHits());
+  }
+
+  @Test
+  public void testEmptyResultsExpireSooner() {
+    AtomicLong now = new AtomicLong(0);
+    SearchResultCache searchResults =
+        new SearchResultCache(
+            100, 1 << 20, 1000, 100, CachingSpoonacularService::estimateSize, now::get);
+    searchResults.put("query=lasagna", List.of());
+    searchResults.put("query=cookies", List.of(new MockSpoonacularService().getRecipeById(1)));
+
+    now.set(500);
+    assertNull(searchResults.get("query=lasagna"));
+    assertEquals(1, searchResults.get("query=cookies").get(0).getId());
+  }
+
+  @Test
+  public void testRepeatedSearchesAreCachedWithoutAnIndex() throws Exception {
+    SearchResultCache searchResults =
+        new SearchResultCache(
+            100, 1 << 20, 60_000, 60_000, CachingSpoonacularService::estimateSize);
+    CachingSpoonacularService service =
+        new CachingSpoonacularService(upstream, 10, 1024 * 1024, 60_000, null, null, searchResults);
+
+    service.searchRecipes(Map.of("query", "cookies"));
+    List<Recipe> repeat = service.searchRecipes(Map.of("query", "cookies"));
+    assertEquals(1, upstream.searchCalls.get());
+    assertEquals(2, repeat.size());
+    assertEquals(1, searchResults.stats().getHits());
+
+    // Search hits neither read nor fill the recipe detail cache
+    CacheStats recipeStats = service.getRecipeCacheStats();
+    assertEquals(0, recipeStats.getHits() + recipeStats.getMisses());
+    assertEquals(0, recipeStats.getSize());
+
+    // Each caller gets its own copies
+    repeat.get(0).setAvailableIngredients(5);
+    assertEquals(
+        0, service.searchRecipes(Map.of("query", "cookies")).get(0).getAvailableIngredients());
+    assertEquals(1, upstream.searchCalls.get());
+  }
+
+  @Test
+  public void testStoreFailuresFallBackUpstreamAndAreCounted() throws Exception {
+    RecipeStore store = mock(RecipeStore.class);
+    when(store.get(anyInt())).thenThrow(new IOException("corrupt record"));
+    doThrow(new IOException("disk full")).when(store).put(any(Recipe.class));
+    cachingService = new CachingSpoonacularService(upstream, 10, 1024 * 1024, 60_000, store);
+
+    assertEquals(1, cachingService.getRecipeById(1).getId());
+    assertEquals(1, upstream.detailCalls.get());
+    assertEquals(2, cachingService.getStoreFailures());
+    assertEquals("Failed to store recipe 1: disk full", cachingService.getLastStoreFailure());
+
+    // Still served from memory, so the store isn't consulted again
+    cachingService.getRecipeById(1);
+    assertEquals(2, cachingService.getStoreFailures());
+  }
+}
@@ -0,0 +1,101 @@
+package edu.brown.cs.student;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import com.squareup.moshi.JsonAdapter;
+import com.squareup.moshi.Moshi;
+import com.squareup.moshi.Types;
+import java.lang.reflect.Type;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import main.edu.brown.cs.student.main.server.handlers.CookNowHandler;
+import main.edu.brown.cs.student.main.server.model.Ingredient;
+import main.edu.brown.cs.student.main.server.model.User;
+import main.edu.brown.cs.student.main.server.repository.InMemoryUserRepository;
+import main.edu.brown.cs.student.main.server.repository.UserRepository;
+import main.edu.brown.cs.student.main.server.service.MockSpoonacularService;
+import main.edu.brown.cs.student.main.server.service.RecipeSearchIndex;
+import org.junit.Before;
+import org.junit.Test;
+import spark.Request;
+import spark.Response;
+
+public class CookNowHandlerTest {
+
+  private CookNowHandler handler;
+  private UserRepository users;
+  private Request mockRequest;
+  private Response mockResponse;
+  private JsonAdapter<Map<String, Object>> adapter;
+
+  @Before
+  public void setUp() {
+    users = new InMemoryUserRepository();
+
+    // Butter, sugar and flour cover a third of the cookies and none of the stir fry
+    User testUser = new User("test-user", "Test User", "test@example.com");
+    testUser.getPantry().addIngredient(new Ingredient(1001, "Butter", "Dairy", 1.0, "cup"));
+    testUser.getPantry().addIngredient(new Ingredient(1002, "Sugar", "Baking", 1.0, "cup"));
+    testUser
+        .getPantry()
+        .addIngredient(new Ingredient(1006, "All-Purpose Flour", "Baking", 2.5, "cups"));
+    users.save(testUser);
+
+    // Index the mock service's recipes as the local corpus
+    RecipeSearchIndex index = new RecipeSearchIndex(100);
+    index.addAll(new MockSpoonacularService().searchRecipes(new HashMap<>()));
+    handler = new CookNowHandler(index, users);
+
+    mockRequest = mock(Request.class);
+    mockResponse = mock(Response.class);
+
+    Moshi moshi = new Moshi.Builder().build();
+    Type type = Types.newParameterizedType(Map.class, String.class, Object.class);
+    adapter = moshi.adapter(type);
+  }
+
+  @Test
+  public void testRanksAndAnnotatesPantryRecipes() throws Exception {
+    when(mockRequest.queryParams("userId")).thenReturn("test-user");
+
+    Map<String, Object> responseMap =
+        adapter.fromJson((String) handler.handle(mockRequest, mockResponse));
+
+    assertEquals("success", responseMap.get("result"));
+    List<Map<String, Object>> recipes = (List<Map<String, Object>>) responseMap.get("recipes");
+    // Only the cookies share an ingredient with the pantry
+    assertEquals(1, recipes.size());
+    assertEquals("Chocolate Chip Cookies", recipes.get(0).get("title"));
+    assertEquals(3.0, recipes.get(0).get("availableIngredients"));
+    assertEquals(9.0, recipes.get(0).get("totalIngredients"));
+    assertEquals(6, ((List<?>) recipes.get(0).get("missingIngredients")).size());
+  }
+
+  @Test
+  public void testRejectsBadRequests() throws Exception {
+    when(mockRequest.queryParams("userId")).thenReturn("test-user");
+    when(mockRequest.queryParams("number")).thenReturn("0");
+    Map<String, Object> responseMap =
+        adapter.fromJson((String) handler.handle(mockRequest, mockResponse));
+    assertEquals("error_bad_request", responseMap.get("result"));
+    verify(mockResponse).status(400);
+
+    when(mockRequest.queryParams("userId")).thenReturn("nobody");
+    when(mockRequest.queryParams("number")).thenReturn("5");
+    responseMap = adapter.fromJson((String) handler.handle(mockRequest, mockResponse));
+    assertEquals("error_not_found", responseMap.get("result"));
+    verify(mockResponse).status(404);
+  }
+
+  @Test
+  public void testDisabledIndex() throws Exception {
+    when(mockRequest.queryParams("userId")).thenReturn("test-user");
+    Map<String, Object> responseMap =
+        adapter.fromJson(
+            (String) new CookNowHandler(null, users).handle(mockRequest, mockResponse));
+    assertEquals("error_unavailable", responseMap.get("result"));
+    verify(mockResponse).status(503);
+  }
+}
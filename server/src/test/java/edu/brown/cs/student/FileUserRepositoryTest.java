@@ -0,0 +1,231 @@
+package edu.brown.cs.student;
+
+import static org.junit.Assert.*;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import main.edu.brown.cs.student.main.server.model.Ingredient;
+import main.edu.brown.cs.student.main.server.model.User;
+import main.edu.brown.cs.student.main.server.repository.FileUserRepository;
+import main.edu.brown.cs.student.main.server.repository.InMemoryUserRepository;
+import main.edu.brown.cs.student.main.server.repository.UserRepository;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class FileUserRepositoryTest {
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  private void populate(UserRepository users) {
+    User user = users.getOrCreate("alice");
+    user.addAllergy("peanut");
+    user.getPantry().addIngredient(new Ingredient(1, "flour", "Baking", 500, "g"));
+    user.getGroceryList().addIngredient(new Ingredient(2, "milk", "Dairy", 1, "l"));
+    users.save(user);
+  }
+
+  @Test
+  public void testUsersSurviveRestartFromLog() throws Exception {
+    Path dir = folder.getRoot().toPath();
+    FileUserRepository users = new FileUserRepository(dir, 1000, false);
+    populate(users);
+    // No close(): simulate a crash, so only the write-ahead log has the data
+
+    FileUserRepository reopened = new FileUserRepository(dir, 1000, false);
+    User alice = reopened.get("alice");
+    assertNotNull(alice);
+    assertEquals(1, alice.getAllergies().size());
+    assertEquals("peanut", alice.getAllergies().get(0));
+    assertTrue(alice.getPantry().containsIngredient("flour"));
+    assertEquals(1, alice.getGroceryList().getAllIngredients().size());
+    // Read snapshots are rebuilt on load, not left empty
+    assertEquals(1, alice.getPantry().snapshot().getIngredients().size());
+    assertEquals(1, alice.getGroceryList().snapshot().getItems().size());
+    assertEquals(0, reopened.getSkippedRecords());
+    assertNull(reopened.getLastSkippedRecord());
+    reopened.close();
+  }
+
+  @Test
+  public void testSnapshotTruncatesLog() throws Exception {
+    Path dir = folder.getRoot().toPath();
+    FileUserRepository users = new FileUserRepository(dir, 3, false);
+    for (int i = 0; i < 7; i++) {
+      User user = users.getOrCreate("user-" + (i % 2));
+      user.addDiet("diet-" + i);
+      users.save(user);
+    }
+
+    // 9 saves in total (2 creations + 7 updates): snapshots after 3, 6 and 9 leave an empty log
+    assertTrue(Files.exists(dir.resolve("users.snapshot")));
+    assertEquals(0, Files.size(dir.resolve("users.wal")));
+
+    User extra = users.getOrCreate("user-2");
+    users.save(extra);
+    assertTrue(Files.size(dir.resolve("users.wal")) > 0);
+
+    FileUserRepository reopened = new FileUserRepository(dir, 3, false);
+    assertEquals(3, reopened.size());
+    assertEquals(4, reopened.get("user-0").getDiets().size());
+    assertEquals(3, reopened.get("user-1").getDiets().size());
+    reopened.close();
+  }
+
+  @Test
+  public void testStaleLogRecordsAreNotReplayedOverSnapshot() throws Exception {
+    Path dir = folder.getRoot().toPath();
+    FileUserRepository users = new FileUserRepository(dir, 1000, false);
+    User user = users.getOrCreate("alice");
+    user.addAllergy("egg");
+    users.save(user);
+    String staleLog = Files.readString(dir.resolve("users.wal"));
+
+    user.removeAllergy("egg");
+    users.save(user);
+    users.snapshot();
+
+    // Crash between the snapshot rename and the log truncation
+    Files.writeString(dir.resolve("users.wal"), staleLog);
+
+    FileUserRepository reopened = new FileUserRepository(dir, 1000, false);
+    assertTrue(reopened.get("alice").getAllergies().isEmpty());
+    reopened.close();
+  }
+
+  @Test
+  public void testTornLogRecordIsIgnored() throws Exception {
+    Path dir = folder.getRoot().toPath();
+    FileUserRepository users = new FileUserRepository(dir, 1000, false);
+    populate(users);
+    Files.write(
+        dir.resolve("users.wal"),
+        "99\t{\"id\":\"bob\",\"aller".getBytes(StandardCharsets.UTF_8),
+        StandardOpenOption.APPEND);
+
+    FileUserRepository reopened = new FileUserRepository(dir, 1000, false);
+    assertTrue(reopened.contains("alice"));
+    assertFalse(reopened.contains("bob"));
+    assertEquals(1, reopened.getSkippedRecords());
+    assertNotNull(reopened.getLastSkippedRecord());
+
+    // New records after the torn one are still readable on the next start
+    reopened.getOrCreate("carol");
+    FileUserRepository again = new FileUserRepository(dir, 1000, false);
+    assertTrue(again.contains("carol"));
+    assertEquals(1, again.getSkippedRecords());
+    again.close();
+  }
+
+  @Test
+  public void testConcurrentGetOrCreateReturnsOneUser() throws Exception {
+    UserRepository users = new InMemoryUserRepository();
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Callable<User>> tasks = new ArrayList<>();
+      for (int i = 0; i < 64; i++) {
+        tasks.add(() -> users.getOrCreate("shared"));
+      }
+      User first = null;
+      for (Future<User> future : executor.invokeAll(tasks)) {
+        if (first == null) {
+          first = future.get();
+        }
+        assertSame(first, future.get());
+      }
+      assertEquals(1, users.size());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testCreatedUserIsLoggedBeforeAnySaveOfIt() throws Exception {
+    Path dir = folder.getRoot().toPath();
+    FileUserRepository users = new FileUserRepository(dir, 1000, false);
+    int userCount = 200;
+    int threads = 4;
+
+    // Every thread creates-or-gets each user and saves a change to it straight away, so saves
+    // race the creating thread's own record of the new, empty user
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<Void>> futures = new ArrayList<>();
+      for (int t = 0; t < threads; t++) {
+        int thread = t;
+        futures.add(
+            executor.submit(
+                () -> {
+                  for (int u = 0; u < userCount; u++) {
+                    User user = users.getOrCreate("user" + u);
+                    synchronized (user) {
+                      user.getPantry().addIngredient(new Ingredient(0, "t" + thread, null, 1, ""));
+                      users.save(user);
+                    }
+                  }
+                  return null;
+                }));
+      }
+      for (Future<Void> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    // Replay must end on each user's last save, not on its empty creation record
+    FileUserRepository reopened = new FileUserRepository(dir, 1000, false);
+    for (int u = 0; u < userCount; u++) {
+      assertEquals(threads, reopened.get("user" + u).getPantry().getAllIngredients().size());
+    }
+    reopened.close();
+    users.close();
+  }
+
+  @Test(timeout = 30_000)
+  public void testSavesUnderUserLocksDoNotDeadlockOnSnapshot() throws Exception {
+    Path dir = folder.getRoot().toPath();
+    // Every save snapshots, which used to lock each other user while holding the log lock
+    FileUserRepository users = new FileUserRepository(dir, 1, false);
+    users.getOrCreate("alice");
+    users.getOrCreate("bob");
+
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      List<Future<Void>> futures = new ArrayList<>();
+      for (String userId : List.of("alice", "bob")) {
+        futures.add(
+            executor.submit(
+                () -> {
+                  User user = users.get(userId);
+                  for (int i = 0; i < 200; i++) {
+                    synchronized (user) {
+                      user.getPantry().addIngredient(new Ingredient(0, "item" + i, null, 1, ""));
+                      users.save(user);
+                    }
+                  }
+                  return null;
+                }));
+      }
+      for (Future<Void> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    users.close();
+
+    FileUserRepository reopened = new FileUserRepository(dir, 1, false);
+    assertEquals(200, reopened.get("alice").getPantry().getAllIngredients().size());
+    assertEquals(200, reopened.get("bob").getPantry().getAllIngredients().size());
+    reopened.close();
+  }
+}
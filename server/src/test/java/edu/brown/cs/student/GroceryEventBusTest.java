@@ -0,0 +1,109 @@
+package edu.brown.cs.student;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.util.concurrent.TimeUnit;
+import main.edu.brown.cs.student.main.server.events.GroceryEventBus;
+import main.edu.brown.cs.student.main.server.handlers.AddGroceryIngredientHandler;
+import main.edu.brown.cs.student.main.server.handlers.CheckGroceryItemHandler;
+import main.edu.brown.cs.student.main.server.model.User;
+import main.edu.brown.cs.student.main.server.repository.InMemoryUserRepository;
+import main.edu.brown.cs.student.main.server.repository.UserRepository;
+import org.junit.Test;
+import spark.Request;
+import spark.Response;
+
+public class GroceryEventBusTest {
+
+  @Test
+  public void testPublishReachesOnlyThatUsersSubscribers() throws Exception {
+    GroceryEventBus bus = new GroceryEventBus(8, 10);
+    GroceryEventBus.Subscription alice = bus.subscribe("alice");
+    GroceryEventBus.Subscription aliceTablet = bus.subscribe("alice");
+    GroceryEventBus.Subscription bob = bus.subscribe("bob");
+
+    bus.publish("alice", "frame-1");
+
+    assertEquals("frame-1", alice.poll(1, TimeUnit.SECONDS));
+    assertEquals("frame-1", aliceTablet.poll(1, TimeUnit.SECONDS));
+    assertNull(bob.poll(10, TimeUnit.MILLISECONDS));
+
+    alice.close();
+    aliceTablet.close();
+    assertFalse(bus.hasSubscribers("alice"));
+    assertEquals(1, bus.getSubscriberCount());
+  }
+
+  @Test
+  public void testSlowSubscriberIsToldToResync() throws Exception {
+    GroceryEventBus bus = new GroceryEventBus(2, 10);
+    GroceryEventBus.Subscription slow = bus.subscribe("alice");
+
+    for (int i = 0; i < 5; i++) {
+      bus.publish("alice", "frame-" + i);
+    }
+
+    // Overflowing dropped the backlog rather than blocking the publisher
+    assertTrue(slow.takeOverflow());
+    assertFalse(slow.takeOverflow());
+    assertEquals("frame-3", slow.poll(1, TimeUnit.SECONDS));
+    assertEquals("frame-4", slow.poll(1, TimeUnit.SECONDS));
+    assertNull(slow.poll(10, TimeUnit.MILLISECONDS));
+  }
+
+  @Test
+  public void testVersionedEventsArriveOnceInOrder() throws Exception {
+    GroceryEventBus bus = new GroceryEventBus(8, 10);
+    GroceryEventBus.Subscription subscription = bus.subscribe("alice");
+    // The client's initial state already covers version 2
+    subscription.skipThrough(2);
+
+    bus.publish("alice", 2, "v2");
+    bus.publish("alice", 3, "v3");
+    bus.publish("alice", 3, "v3-again");
+    bus.publish("alice", 1, "v1-late");
+    bus.publish("alice", 4, "v4");
+
+    assertEquals("v3", subscription.poll(1, TimeUnit.SECONDS));
+    assertEquals("v4", subscription.poll(1, TimeUnit.SECONDS));
+    assertNull(subscription.poll(10, TimeUnit.MILLISECONDS));
+  }
+
+  @Test
+  public void testSubscriberLimit() {
+    GroceryEventBus bus = new GroceryEventBus(2, 1);
+    GroceryEventBus.Subscription first = bus.subscribe("alice");
+    assertNotNull(first);
+    assertNull(bus.subscribe("bob"));
+
+    first.close();
+    assertNotNull(bus.subscribe("bob"));
+  }
+
+  @Test
+  public void testHandlersPublishChanges() throws Exception {
+    UserRepository users = new InMemoryUserRepository();
+    users.save(new User("alice", "Alice", "alice@example.com"));
+    GroceryEventBus bus = new GroceryEventBus(8, 10);
+    GroceryEventBus.Subscription subscription = bus.subscribe("alice");
+
+    Request request = mock(Request.class);
+    Response response = mock(Response.class);
+    when(request.body()).thenReturn("{\"userId\":\"alice\",\"ingredientName\":\"milk\"}");
+    new AddGroceryIngredientHandler(users, bus).handle(request, response);
+
+    String added = subscription.poll(1, TimeUnit.SECONDS);
+    assertTrue(added.startsWith("id: 1\nevent: add\n"));
+    assertTrue(added.contains("\"checked\":false"));
+
+    long itemId = users.get("alice").getGroceryList().getItems().get(0).getId();
+    when(request.body())
+        .thenReturn("{\"userId\":\"alice\",\"itemId\":" + itemId + ",\"checked\":true}");
+    new CheckGroceryItemHandler(users, bus).handle(request, response);
+
+    String checked = subscription.poll(1, TimeUnit.SECONDS);
+    assertTrue(checked.startsWith("id: 2\nevent: update\n"));
+    assertTrue(checked.contains("\"checked\":true"));
+  }
+}
@@ -3,8 +3,12 @@ package edu.brown.cs.student;
 import static org.junit.Assert.*;
 
 import java.util.List;
+import main.edu.brown.cs.student.main.server.model.ChangeLog;
+import main.edu.brown.cs.student.main.server.model.GroceryItem;
 import main.edu.brown.cs.student.main.server.model.GroceryList;
+import main.edu.brown.cs.student.main.server.model.GroceryListSnapshot;
 import main.edu.brown.cs.student.main.server.model.Ingredient;
+import main.edu.brown.cs.student.main.server.model.Pantry;
 import org.junit.Test;
 
 public class GroceryListTest {
@@ -156,4 +160,173 @@ public class GroceryListTest {
     // Verify checked items list is cleared
     assertTrue(groceryList.getCheckedItems().isEmpty());
   }
+
+  @Test
+  public void testAddIngredientMergesAcrossUnits() {
+    GroceryList groceryList = new GroceryList("user123");
+    groceryList.addIngredient(new Ingredient(3, "Milk", "Dairy", 1.0, "cup"));
+    groceryList.addIngredient(new Ingredient(3, "Milk", "Dairy", 8.0, "tablespoons"));
+    groceryList.addIngredient(new Ingredient(3, "Milk", "Dairy", 2.0, "cartons"));
+
+    List<Ingredient> dairy = groceryList.getIngredientsByAisle().get("Dairy");
+    assertEquals(2, dairy.size());
+    // 8 tablespoons is half a cup
+    assertEquals(1.5, dairy.get(0).getAmount(), 0.001);
+    assertEquals("cup", dairy.get(0).getUnit());
+    assertEquals(2.0, dairy.get(1).getAmount(), 0.001);
+  }
+
+  @Test
+  public void testCheckedStateIsPerItem() {
+    GroceryList groceryList = new GroceryList("user123");
+    Ingredient apple = new Ingredient(1, "Apple", "Produce", 3.0, "");
+    Ingredient banana = new Ingredient(2, "Banana", "Produce", 2.0, "");
+    Ingredient milk = new Ingredient(3, "Milk", "Dairy", 1.0, "gallon");
+    groceryList.addIngredients(List.of(apple, banana, milk));
+
+    groceryList.checkItem(milk);
+    groceryList.removeIngredient(apple);
+
+    // Removal rebuilds the index; the checked flag stays with its item
+    assertTrue(groceryList.isChecked(milk));
+    assertFalse(groceryList.isChecked(banana));
+    assertEquals(2, groceryList.getItems().size());
+    assertFalse(groceryList.getItems().get(0).isChecked());
+    assertTrue(groceryList.getItems().get(1).isChecked());
+
+    // Adding more of a checked item merges into the same entry
+    groceryList.addIngredient(new Ingredient(3, "milk", "Dairy", 2.0, "quarts"));
+    assertEquals(2, groceryList.getItems().size());
+    assertEquals(1.5, groceryList.getCheckedItems().get(0).getAmount(), 0.001);
+
+    // Checking something that isn't on the list does nothing
+    groceryList.checkItem(new Ingredient(4, "Bread", "Bakery", 1.0, ""));
+    assertEquals(1, groceryList.getCheckedItems().size());
+
+    groceryList.clearGroceryList();
+    assertTrue(groceryList.getItems().isEmpty());
+    assertFalse(groceryList.isChecked(milk));
+  }
+
+  @Test
+  public void testItemIdsAreStable() {
+    GroceryList groceryList = new GroceryList("user123");
+    groceryList.addIngredient(new Ingredient(1, "Apple", "Produce", 3.0, ""));
+    groceryList.addIngredient(new Ingredient(2, "Banana", "Produce", 2.0, ""));
+    long appleId = groceryList.getItems().get(0).getId();
+    long bananaId = groceryList.getItems().get(1).getId();
+    assertNotEquals(appleId, bananaId);
+
+    // Merging keeps the id, and removing an item doesn't renumber the others
+    groceryList.addIngredient(new Ingredient(1, "apple", "Produce", 1.0, ""));
+    assertEquals(appleId, groceryList.getItems().get(0).getId());
+    assertTrue(groceryList.setChecked(bananaId, true));
+    assertTrue(groceryList.removeItem(appleId));
+    assertNull(groceryList.getItem(appleId));
+    assertEquals(bananaId, groceryList.getItem(bananaId).getId());
+    assertTrue(groceryList.getItem(bananaId).isChecked());
+
+    // Ids are never reused
+    groceryList.addIngredient(new Ingredient(1, "Apple", "Produce", 3.0, ""));
+    long newAppleId = groceryList.getItems().get(1).getId();
+    assertNotEquals(appleId, newAppleId);
+    assertFalse(groceryList.removeItem(appleId));
+
+    // Older clients still find items by the text they display
+    assertEquals(newAppleId, groceryList.findItemByDisplayString("3.0  Apple").getId());
+  }
+
+  @Test
+  public void testChangesSinceVersion() {
+    GroceryList groceryList = new GroceryList("user123");
+    assertEquals(0, groceryList.getVersion());
+    assertTrue(groceryList.getChangesSince(0).isEmpty());
+
+    groceryList.addIngredient(new Ingredient(1, "Apple", "Produce", 3.0, ""));
+    groceryList.addIngredient(new Ingredient(2, "Milk", "Dairy", 1.0, "cup"));
+    long seen = groceryList.getVersion();
+    long milkId = groceryList.getItems().get(1).getId();
+
+    groceryList.setChecked(milkId, true);
+    groceryList.setChecked(milkId, true); // no-op, not logged
+    groceryList.addIngredient(new Ingredient(2, "milk", "Dairy", 1.0, "cup"));
+    groceryList.removeItem(groceryList.getItems().get(0).getId());
+
+    List<ChangeLog.Change<GroceryItem>> changes = groceryList.getChangesSince(seen);
+    assertEquals(3, changes.size());
+    assertEquals(ChangeLog.UPDATE, changes.get(0).getOp());
+    assertTrue(changes.get(0).getValue().isChecked());
+    // Each change holds the item as it was then, not as it is now
+    assertEquals(1.0, changes.get(0).getValue().getIngredient().getAmount(), 0.001);
+    assertEquals(2.0, changes.get(1).getValue().getIngredient().getAmount(), 0.001);
+    assertEquals(ChangeLog.REMOVE, changes.get(2).getOp());
+    assertEquals(groceryList.getVersion(), changes.get(2).getVersion());
+
+    // A client ahead of the server must resync
+    assertNull(groceryList.getChangesSince(groceryList.getVersion() + 5));
+  }
+
+  @Test
+  public void testTruncatedLogRequiresSnapshot() {
+    GroceryList groceryList = new GroceryList("user123");
+    for (int i = 0; i < ChangeLog.DEFAULT_CAPACITY + 10; i++) {
+      groceryList.addIngredient(new Ingredient(i, "item" + i, "Other", 1.0, ""));
+    }
+
+    assertNull(groceryList.getChangesSince(5));
+    long recent = groceryList.getVersion() - 3;
+    assertEquals(3, groceryList.getChangesSince(recent).size());
+
+    groceryList.clearGroceryList();
+    List<ChangeLog.Change<GroceryItem>> changes = groceryList.getChangesSince(recent);
+    assertEquals(ChangeLog.CLEAR, changes.get(3).getOp());
+    assertNull(changes.get(3).getValue());
+  }
+
+  @Test
+  public void testMoveCheckedItemsIntoPantryMerges() {
+    GroceryList groceryList = new GroceryList("user123");
+    Pantry pantry = new Pantry("user123");
+    pantry.addIngredient(new Ingredient(1, "Milk", "Dairy", 1.0, "cup"));
+
+    groceryList.addIngredient(new Ingredient(1, "milk", "Dairy", 2.0, "cups"));
+    groceryList.addIngredient(new Ingredient(2, "Eggs", "Dairy", 12.0, ""));
+    groceryList.addIngredient(new Ingredient(3, "Bread", "Bakery", 1.0, ""));
+    groceryList.checkItem(new Ingredient(1, "milk", "Dairy", 0, "cup"));
+    groceryList.checkItem(new Ingredient(2, "Eggs", "Dairy", 0, ""));
+
+    List<Ingredient> moved = groceryList.moveCheckedItemsToPantry(pantry);
+
+    assertEquals(2, moved.size());
+    assertEquals(1, groceryList.getItems().size());
+    assertEquals(3.0, pantry.getIngredient("milk").getAmount(), 0.001);
+    assertEquals(12.0, pantry.getIngredient("eggs").getAmount(), 0.001);
+    assertFalse(pantry.containsIngredient("bread"));
+
+    // Both sides publish the whole move, not a snapshot part-way through it
+    assertEquals(groceryList.getVersion(), groceryList.snapshot().getVersion());
+    assertEquals(1, groceryList.snapshot().getItems().size());
+    assertEquals(pantry.getVersion(), pantry.snapshot().getVersion());
+    assertEquals(2, pantry.snapshot().getIngredients().size());
+  }
+
+  @Test
+  public void testSnapshotIsReplacedOnlyOnChange() {
+    GroceryList groceryList = new GroceryList("user123");
+    groceryList.addIngredient(new Ingredient(1, "Milk", "Dairy", 1.0, "cup"));
+
+    GroceryListSnapshot snapshot = groceryList.snapshot();
+    assertSame(snapshot, groceryList.snapshot());
+    assertEquals(groceryList.getVersion(), snapshot.getVersion());
+
+    // Checking an item twice changes the list once
+    groceryList.setChecked(1, true);
+    GroceryListSnapshot checked = groceryList.snapshot();
+    groceryList.setChecked(1, true);
+    assertSame(checked, groceryList.snapshot());
+
+    assertFalse(snapshot.getItems().get(0).isChecked());
+    assertTrue(checked.getItems().get(0).isChecked());
+    assertNotSame(groceryList.getItem(1), checked.getItems().get(0));
+  }
 }
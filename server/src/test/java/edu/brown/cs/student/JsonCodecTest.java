@@ -0,0 +1,125 @@
+package edu.brown.cs.student;
+
+import static org.junit.Assert.*;
+
+import com.squareup.moshi.JsonAdapter;
+import com.squareup.moshi.Moshi;
+import com.squareup.moshi.Types;
+import java.util.Arrays;
+import java.util.Map;
+import main.edu.brown.cs.student.main.server.codec.BatchRequest;
+import main.edu.brown.cs.student.main.server.codec.JsonCodec;
+import main.edu.brown.cs.student.main.server.codec.UserRequest;
+import main.edu.brown.cs.student.main.server.model.Ingredient;
+import main.edu.brown.cs.student.main.server.model.Recipe;
+import org.junit.Test;
+
+public class JsonCodecTest {
+
+  private static Recipe sampleRecipe() {
+    Recipe recipe = new Recipe();
+    recipe.setId(42);
+    recipe.setTitle("Pancakes");
+    recipe.setReadyInMinutes(20);
+    recipe.setServings(4);
+    recipe.setVegetarian(true);
+    recipe.setDiets(Arrays.asList("vegetarian"));
+    recipe.setInstructions(Arrays.asList("Mix", "Fry"));
+    Ingredient flour = new Ingredient(1, "flour", "Baking", 2.0, "cups");
+    flour.setPossibleAllergens(new String[] {"gluten"});
+    flour.setContainsAllergen(true);
+    Ingredient milk = new Ingredient(2, "milk", null, 1.5, "cups");
+    recipe.setIngredients(Arrays.asList(flour, milk));
+    recipe.setMissingIngredients(Arrays.asList(milk));
+    recipe.setAvailableIngredients(1);
+    recipe.setTotalIngredients(2);
+    return recipe;
+  }
+
+  @Test
+  public void testRecipeJsonMatchesReflectiveAdapter() throws Exception {
+    Recipe recipe = sampleRecipe();
+    String reflective = new Moshi.Builder().build().adapter(Recipe.class).toJson(recipe);
+    String streamed = JsonCodec.MOSHI.adapter(Recipe.class).toJson(recipe);
+
+    // Field order may differ; the parsed trees must not
+    JsonAdapter<Map<String, Object>> maps =
+        new Moshi.Builder()
+            .build()
+            .adapter(Types.newParameterizedType(Map.class, String.class, Object.class));
+    assertEquals(maps.fromJson(reflective), maps.fromJson(streamed));
+  }
+
+  @Test
+  public void testRecipeRoundTrips() throws Exception {
+    JsonAdapter<Recipe> adapter = JsonCodec.MOSHI.adapter(Recipe.class);
+    String json = adapter.toJson(sampleRecipe());
+
+    Recipe parsed = adapter.fromJson(json);
+    assertEquals(42, parsed.getId());
+    assertEquals(2, parsed.getIngredients().size());
+    assertNull(parsed.getIngredients().get(1).getAisle());
+    assertArrayEquals(
+        new String[] {"gluten"}, parsed.getIngredients().get(0).getPossibleAllergens());
+    assertEquals(json, adapter.toJson(parsed));
+  }
+
+  @Test
+  public void testReadRequest() {
+    UserRequest request =
+        JsonCodec.readRequest(
+            "{\"userId\":\"u\",\"itemId\":7,\"checked\":true,\"recipeId\":123.0,\"extra\":[1,2]}");
+    assertEquals("u", request.getUserId());
+    assertEquals(Long.valueOf(7), request.getItemId());
+    assertTrue(request.getChecked());
+    assertEquals(Integer.valueOf(123), request.getRecipeId());
+    assertNull(request.getIngredientName());
+
+    // Malformed bodies and mistyped fields are all just bad requests
+    assertNull(JsonCodec.readRequest("not valid json"));
+    assertNull(JsonCodec.readRequest("{\"userId\":\"u\",\"itemId\":\"seven\"}"));
+    assertNull(JsonCodec.readRequest("{\"userId\":\"u\"} trailing"));
+    assertNull(JsonCodec.readRequest(null));
+  }
+
+  @Test
+  public void testRequestsRoundTrip() throws Exception {
+    String json = "{\"userId\":\"u\",\"ingredientName\":\"milk\",\"itemId\":7,\"checked\":false}";
+    JsonAdapter<UserRequest> requests = JsonCodec.MOSHI.adapter(UserRequest.class);
+    assertEquals(json, requests.toJson(JsonCodec.readRequest(json)));
+
+    String batch =
+        "{\"userId\":\"u\",\"operations\":[{\"op\":\"check\",\"itemId\":1,\"checked\":true},null]}";
+    JsonAdapter<BatchRequest> batches = JsonCodec.MOSHI.adapter(BatchRequest.class);
+    assertEquals(batch, batches.toJson(JsonCodec.readBatchRequest(batch)));
+  }
+
+  @Test
+  public void testReadBatchRequest() {
+    BatchRequest request =
+        JsonCodec.readBatchRequest(
+            "{\"userId\":\"u\",\"operations\":[{\"op\":\"add\",\"list\":\"pantry\","
+                + "\"ingredientName\":\"rice\",\"extra\":{}},\"not an object\",{\"itemId\":3}]}");
+    assertEquals("u", request.getUserId());
+    assertEquals(3, request.getOperations().size());
+    assertEquals("pantry", request.getOperations().get(0).getList());
+    assertEquals("rice", request.getOperations().get(0).getIngredientName());
+    assertNull(request.getOperations().get(1));
+    assertEquals(Long.valueOf(3), request.getOperations().get(2).getItemId());
+    assertNull(request.getOperations().get(2).getOp());
+
+    // A mistyped field, including a non-string user id, fails the whole body
+    assertNull(JsonCodec.readBatchRequest("{\"userId\":42,\"operations\":[]}"));
+    assertNull(
+        JsonCodec.readBatchRequest("{\"userId\":\"u\",\"operations\":[{\"itemId\":\"x\"}]}"));
+    assertNull(JsonCodec.readBatchRequest("{\"userId\":\"u\",\"operations\":{}}"));
+    assertNull(JsonCodec.readBatchRequest(""));
+  }
+
+  @Test
+  public void testUserIdMustBeAStringOnEveryRequestPath() {
+    assertNull(JsonCodec.readRequest("{\"userId\":42,\"ingredientName\":\"milk\"}"));
+    assertNull(JsonCodec.readBatchRequest("{\"userId\":42,\"operations\":[]}"));
+    assertEquals("42", JsonCodec.readRequest("{\"userId\":\"42\"}").getUserId());
+  }
+}
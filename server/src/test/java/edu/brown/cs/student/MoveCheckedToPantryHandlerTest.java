@@ -0,0 +1,64 @@
+package edu.brown.cs.student;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import com.squareup.moshi.JsonAdapter;
+import com.squareup.moshi.Moshi;
+import com.squareup.moshi.Types;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Map;
+import main.edu.brown.cs.student.main.server.events.GroceryEventBus;
+import main.edu.brown.cs.student.main.server.handlers.MoveCheckedToPantryHandler;
+import main.edu.brown.cs.student.main.server.model.Ingredient;
+import main.edu.brown.cs.student.main.server.model.User;
+import main.edu.brown.cs.student.main.server.repository.InMemoryUserRepository;
+import main.edu.brown.cs.student.main.server.repository.UserRepository;
+import org.junit.Test;
+import spark.Request;
+import spark.Response;
+
+public class MoveCheckedToPantryHandlerTest {
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testMovesCheckedItemsAndReturnsDeltas() throws Exception {
+    UserRepository users = new InMemoryUserRepository();
+    User user = new User("test-user", "Test User", "test@example.com");
+    Ingredient milk = new Ingredient(1, "Milk", "Dairy", 1.0, "cup");
+    user.getGroceryList().addIngredient(milk);
+    user.getGroceryList().addIngredient(new Ingredient(2, "Bread", "Bakery", 1.0, ""));
+    user.getGroceryList().checkItem(milk);
+    users.save(user);
+
+    Request request = mock(Request.class);
+    Response response = mock(Response.class);
+    when(request.body()).thenReturn("{\"userId\":\"test-user\"}");
+    String json =
+        (String)
+            new MoveCheckedToPantryHandler(users, new GroceryEventBus(8, 10))
+                .handle(request, response);
+
+    Type type = Types.newParameterizedType(Map.class, String.class, Object.class);
+    JsonAdapter<Map<String, Object>> adapter = new Moshi.Builder().build().adapter(type);
+    Map<String, Object> responseMap = adapter.fromJson(json);
+
+    assertEquals("success", responseMap.get("result"));
+    assertEquals(1.0, responseMap.get("moved"));
+
+    Map<String, Object> grocery = (Map<String, Object>) responseMap.get("grocery");
+    List<Map<String, Object>> groceryChanges = (List<Map<String, Object>>) grocery.get("changes");
+    assertEquals(1, groceryChanges.size());
+    assertEquals("remove", groceryChanges.get(0).get("op"));
+
+    Map<String, Object> pantry = (Map<String, Object>) responseMap.get("pantry");
+    List<Map<String, Object>> pantryChanges = (List<Map<String, Object>>) pantry.get("changes");
+    assertEquals(1, pantryChanges.size());
+    assertEquals("add", pantryChanges.get(0).get("op"));
+    assertEquals("Dairy", pantryChanges.get(0).get("category"));
+
+    assertTrue(users.get("test-user").getPantry().containsIngredient("milk"));
+    assertEquals(1, users.get("test-user").getGroceryList().getItems().size());
+  }
+}
@@ -7,12 +7,13 @@ import com.squareup.moshi.JsonAdapter;
 import com.squareup.moshi.Moshi;
 import com.squareup.moshi.Types;
 import java.lang.reflect.Type;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import main.edu.brown.cs.student.main.server.handlers.PantryCompareHandler;
 import main.edu.brown.cs.student.main.server.model.Ingredient;
 import main.edu.brown.cs.student.main.server.model.User;
+import main.edu.brown.cs.student.main.server.repository.InMemoryUserRepository;
+import main.edu.brown.cs.student.main.server.repository.UserRepository;
 import main.edu.brown.cs.student.main.server.service.MockSpoonacularService;
 import org.junit.Before;
 import org.junit.Test;
@@ -23,16 +24,16 @@ public class PantryCompareHandlerTest {
 
   private PantryCompareHandler handler;
   private MockSpoonacularService mockService;
-  private Map<String, User> users;
+  private UserRepository users;
   private Request mockRequest;
   private Response mockResponse;
   private JsonAdapter<Map<String, Object>> adapter;
 
   @Before
   public void setUp() {
-    // Initialize mock service and users map
+    // Initialize mock service and user repository
     mockService = new MockSpoonacularService();
-    users = new HashMap<>();
+    users = new InMemoryUserRepository();
 
     // Add a test user with pantry items
     User testUser = new User("test-user", "Test User", "test@example.com");
@@ -44,7 +45,7 @@ public class PantryCompareHandlerTest {
         .getPantry()
         .addIngredient(new Ingredient(1006, "All-Purpose Flour", "Baking", 2.5, "cups"));
 
-    users.put(testUser.getId(), testUser);
+    users.save(testUser);
 
     // Create the handler
     handler = new PantryCompareHandler(mockService, users);
@@ -2,10 +2,16 @@ package edu.brown.cs.student;
 
 import static org.junit.Assert.*;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import main.edu.brown.cs.student.main.server.model.ChangeLog;
 import main.edu.brown.cs.student.main.server.model.Ingredient;
 import main.edu.brown.cs.student.main.server.model.Pantry;
+import main.edu.brown.cs.student.main.server.model.PantryMatch;
+import main.edu.brown.cs.student.main.server.model.PantrySnapshot;
+import main.edu.brown.cs.student.main.server.model.PantryView;
 import main.edu.brown.cs.student.main.server.model.Recipe;
 import org.junit.Test;
 
@@ -101,9 +107,32 @@ public class PantryTest {
     Ingredient recipe3Milk = new Ingredient(1, "Milk", "Dairy", 3.0, "cups");
     assertFalse(pantry.hasEnoughOf(recipe3Milk));
 
-    // Test with different unit (should return true as we're not doing unit conversion)
+    // Test with a different volume unit: 2 cups is about 473 ml
     Ingredient recipe4Milk = new Ingredient(1, "Milk", "Dairy", 500.0, "ml");
-    assertTrue(pantry.hasEnoughOf(recipe4Milk));
+    assertFalse(pantry.hasEnoughOf(recipe4Milk));
+    Ingredient recipe5Milk = new Ingredient(1, "Milk", "Dairy", 450.0, "ml");
+    assertTrue(pantry.hasEnoughOf(recipe5Milk));
+
+    // Mass against volume can't be compared, so assume we have it
+    Ingredient recipe6Milk = new Ingredient(1, "Milk", "Dairy", 5.0, "kg");
+    assertTrue(pantry.hasEnoughOf(recipe6Milk));
+  }
+
+  @Test
+  public void testAddIngredientConvertsUnits() {
+    Pantry pantry = new Pantry("user123");
+    pantry.addIngredient(new Ingredient(1, "Flour", "Baking", 1.0, "kg"));
+    pantry.addIngredient(new Ingredient(1, "Flour", "Baking", 250.0, "grams"));
+
+    List<Ingredient> baking = pantry.getIngredientsByCategory().get("Baking");
+    assertEquals(1, baking.size());
+    assertEquals(1.25, baking.get(0).getAmount(), 0.001);
+    assertEquals("kg", baking.get(0).getUnit());
+
+    // Flour by volume can't be merged into flour by weight
+    pantry.addIngredient(new Ingredient(1, "Flour", "Baking", 2.0, "cups"));
+    assertEquals(2, baking.size());
+    assertEquals(1.25, baking.get(0).getAmount(), 0.001);
   }
 
   @Test
@@ -128,4 +157,176 @@ public class PantryTest {
     assertEquals(1, missingIngredients.size());
     assertEquals("Eggs", missingIngredients.get(0).getName());
   }
+
+  @Test
+  public void testLookupByNameAndId() {
+    Pantry pantry = new Pantry("user123");
+    Ingredient eggs = new Ingredient(1123, "Eggs", "Refrigerated", 6.0, "");
+    pantry.addIngredient(eggs);
+
+    assertSame(eggs, pantry.getIngredient("  eggs "));
+    assertSame(eggs, pantry.getIngredientById(1123));
+    assertNull(pantry.getIngredientById(1));
+
+    // A recipe naming the same Spoonacular ingredient differently still matches by id
+    assertTrue(pantry.hasEnoughOf(new Ingredient(1123, "egg", "Refrigerated", 2.0, "")));
+  }
+
+  @Test
+  public void testIndexesFollowRemoveAndClear() {
+    Pantry pantry = new Pantry("user123");
+    Ingredient dairyButter = new Ingredient(1, "Butter", "Dairy", 100.0, "g");
+    Ingredient bakingButter = new Ingredient(2, "Butter", "Baking", 50.0, "g");
+    pantry.addIngredient(dairyButter);
+    pantry.addIngredient(bakingButter);
+
+    // Same name in another category is a separate entry
+    assertEquals(1, pantry.getIngredientsByCategory().get("Baking").size());
+
+    pantry.removeIngredient(dairyButter);
+    assertSame(bakingButter, pantry.getIngredient("butter"));
+
+    pantry.clear();
+    assertFalse(pantry.containsIngredient("Butter"));
+    assertNull(pantry.getIngredientById(2));
+    assertTrue(pantry.getIngredientsByCategory().isEmpty());
+  }
+
+  @Test
+  public void testIndexesRebuiltAfterLoad() {
+    Pantry pantry = new Pantry("user123");
+    assertFalse(pantry.containsIngredient("Rice"));
+
+    // Deserialization sets the category map directly
+    Map<String, List<Ingredient>> loaded = new HashMap<>();
+    loaded.put("Grains", new ArrayList<>(List.of(new Ingredient(7, "Rice", "Grains", 1.0, "kg"))));
+    pantry.setIngredientsByCategory(loaded);
+
+    assertTrue(pantry.containsIngredient("rice"));
+    pantry.updateIngredientAmount("RICE", 0.5);
+    assertEquals(0.5, pantry.getIngredientById(7).getAmount(), 0.001);
+  }
+
+  @Test
+  public void testCompareWithRecipesMatchesSingleComparison() {
+    Pantry pantry = new Pantry("user123");
+    pantry.addIngredient(new Ingredient(1, "Flour", "Baking", 500.0, "g"));
+    pantry.addIngredient(new Ingredient(2, "Sugar", "Baking", 100.0, "g"));
+
+    // Large enough to take the parallel path
+    List<Recipe> recipes = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      Recipe recipe = new Recipe();
+      recipe.setId(i);
+      recipe.addIngredient(new Ingredient(1, "Flour", "Baking", i * 10.0, "g"));
+      recipe.addIngredient(new Ingredient(2, "Sugar", "Baking", i * 2.0, "g"));
+      recipe.addIngredient(new Ingredient(3, "Eggs", "Refrigerated", 2.0, ""));
+      recipes.add(recipe);
+    }
+
+    List<PantryMatch> matches = pantry.compareWithRecipes(recipes);
+
+    assertEquals(recipes.size(), matches.size());
+    for (int i = 0; i < recipes.size(); i++) {
+      Recipe recipe = recipes.get(i);
+      PantryMatch match = matches.get(i);
+      Map<String, Object> expected = pantry.compareWithRecipe(recipe);
+
+      assertEquals(recipe.getId(), match.getRecipeId());
+      assertEquals(expected.get("availableCount"), match.getAvailableCount());
+      assertEquals(expected.get("totalCount"), match.getTotalCount());
+      assertEquals(expected.get("missingIngredients"), match.getMissingIngredients(recipe));
+    }
+
+    // Recipe 60 needs 600g flour and 120g sugar
+    Recipe recipe60 = recipes.get(60);
+    assertArrayEquals(new int[] {1, 2, 3}, matches.get(60).getMissingIngredientIds(recipe60));
+
+    matches.get(5).applyTo(recipes.get(5));
+    assertEquals(2, recipes.get(5).getAvailableIngredients());
+    assertEquals(3, recipes.get(5).getTotalIngredients());
+    assertEquals("Eggs", recipes.get(5).getMissingIngredients().get(0).getName());
+  }
+
+  @Test
+  public void testViewIsUnaffectedByLaterChanges() {
+    Pantry pantry = new Pantry("user123");
+    pantry.addIngredient(new Ingredient(1, "Flour", "Baking", 500.0, "g"));
+    PantryView view = pantry.view();
+
+    pantry.updateIngredientAmount("Flour", 10.0);
+    pantry.addIngredient(new Ingredient(2, "Sugar", "Baking", 100.0, "g"));
+
+    assertTrue(view.hasEnoughOf(new Ingredient(1, "Flour", "Baking", 400.0, "g")));
+    assertFalse(view.hasEnoughOf(new Ingredient(2, "Sugar", "Baking", 50.0, "g")));
+  }
+
+  @Test
+  public void testChangesSinceVersion() {
+    Pantry pantry = new Pantry("user123");
+    pantry.addIngredient(new Ingredient(1, "Flour", "Baking", 2.0, "cups"));
+    long seen = pantry.getVersion();
+
+    pantry.addIngredient(new Ingredient(1, "flour", "Baking", 1.0, "cup"));
+    pantry.addIngredient(new Ingredient(2, "Salt", null, 1.0, "tsp"));
+    pantry.removeIngredient(new Ingredient(1, "Flour", "Baking", 0, ""));
+
+    List<ChangeLog.Change<Ingredient>> changes = pantry.getChangesSince(seen);
+    assertEquals(3, changes.size());
+    assertEquals(ChangeLog.UPDATE, changes.get(0).getOp());
+    assertEquals(3.0, changes.get(0).getValue().getAmount(), 0.001);
+    assertEquals(ChangeLog.ADD, changes.get(1).getOp());
+    assertEquals("Other", Pantry.categoryOf(changes.get(1).getValue()));
+    assertEquals(ChangeLog.REMOVE, changes.get(2).getOp());
+
+    // Replacing the contents wholesale can't be described as changes
+    pantry.setIngredientsByCategory(new HashMap<>());
+    assertNull(pantry.getChangesSince(seen));
+    assertTrue(pantry.getChangesSince(pantry.getVersion()).isEmpty());
+  }
+
+  @Test
+  public void testSnapshotIsReplacedOnlyOnChange() {
+    Pantry pantry = new Pantry("user123");
+    pantry.addIngredient(new Ingredient(1, "Flour", "Baking", 2.0, "cups"));
+
+    PantrySnapshot snapshot = pantry.snapshot();
+    assertSame(snapshot, pantry.snapshot());
+    assertSame(snapshot.view(), pantry.view());
+    assertEquals(pantry.getVersion(), snapshot.getVersion());
+    assertEquals(1, snapshot.getIngredients().size());
+
+    // Later changes, even in-place merges, leave the old snapshot as it was
+    pantry.addIngredient(new Ingredient(1, "flour", "Baking", 1.0, "cup"));
+    assertEquals(2.0, snapshot.getIngredients().get(0).getAmount(), 0.001);
+    assertNotSame(snapshot, pantry.snapshot());
+    assertEquals(3.0, pantry.snapshot().getIngredients().get(0).getAmount(), 0.001);
+
+    try {
+      snapshot.getIngredientsByCategory().get("Baking").clear();
+      fail("Snapshots must not be modifiable");
+    } catch (UnsupportedOperationException expected) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testAddIngredientsPublishesOneSnapshotWithEveryChange() {
+    Pantry pantry = new Pantry("user123");
+    PantrySnapshot before = pantry.snapshot();
+
+    List<Ingredient> bulk = new ArrayList<>();
+    bulk.add(new Ingredient(1, "Flour", "Baking", 2.0, "cups"));
+    bulk.add(new Ingredient(2, "Sugar", "Baking", 100.0, "g"));
+    bulk.add(new Ingredient(1, "flour", "Baking", 1.0, "cup"));
+    pantry.addIngredients(bulk);
+
+    // Each ingredient is still its own change, but readers only see the finished batch
+    assertEquals(3, pantry.getChangesSince(before.getVersion()).size());
+    PantrySnapshot after = pantry.snapshot();
+    assertEquals(pantry.getVersion(), after.getVersion());
+    assertEquals(2, after.getIngredients().size());
+    assertTrue(after.view().hasEnoughOf(new Ingredient(1, "Flour", "Baking", 3.0, "cups")));
+    assertTrue(after.view().hasEnoughOf(new Ingredient(2, "sugar", "Baking", 100.0, "g")));
+  }
 }
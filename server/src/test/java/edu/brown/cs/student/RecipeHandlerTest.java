@@ -7,11 +7,12 @@ import com.squareup.moshi.JsonAdapter;
 import com.squareup.moshi.Moshi;
 import com.squareup.moshi.Types;
 import java.lang.reflect.Type;
-import java.util.HashMap;
 import java.util.Map;
 import main.edu.brown.cs.student.main.server.handlers.RecipeHandler;
 import main.edu.brown.cs.student.main.server.model.Ingredient;
 import main.edu.brown.cs.student.main.server.model.User;
+import main.edu.brown.cs.student.main.server.repository.InMemoryUserRepository;
+import main.edu.brown.cs.student.main.server.repository.UserRepository;
 import main.edu.brown.cs.student.main.server.service.MockSpoonacularService;
 import org.junit.Before;
 import org.junit.Test;
@@ -22,20 +23,20 @@ public class RecipeHandlerTest {
 
   private RecipeHandler handler;
   private MockSpoonacularService mockService;
-  private Map<String, User> users;
+  private UserRepository users;
   private Request mockRequest;
   private Response mockResponse;
   private JsonAdapter<Map<String, Object>> adapter;
 
   @Before
   public void setUp() {
-    // Initialize mock service and users map
+    // Initialize mock service and user repository
     mockService = new MockSpoonacularService();
-    users = new HashMap<>();
+    users = new InMemoryUserRepository();
 
     // Add a test user
     User testUser = new User("test-user", "Test User", "test@example.com");
-    users.put(testUser.getId(), testUser);
+    users.save(testUser);
 
     // Create the handler
     handler = new RecipeHandler(mockService, users);
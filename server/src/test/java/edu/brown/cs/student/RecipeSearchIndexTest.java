@@ -0,0 +1,283 @@
+package edu.brown.cs.student;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import main.edu.brown.cs.student.main.server.model.Ingredient;
+import main.edu.brown.cs.student.main.server.model.Recipe;
+import main.edu.brown.cs.student.main.server.service.CachingSpoonacularService;
+import main.edu.brown.cs.student.main.server.service.MockSpoonacularService;
+import main.edu.brown.cs.student.main.server.service.RecipeSearchIndex;
+import org.junit.Before;
+import org.junit.Test;
+
+public class RecipeSearchIndexTest {
+
+  private RecipeSearchIndex index;
+
+  private static Recipe recipe(int id, String title, int minutes, String... ingredients) {
+    Recipe recipe = new Recipe();
+    recipe.setId(id);
+    recipe.setTitle(title);
+    recipe.setReadyInMinutes(minutes);
+    for (int i = 0; i < ingredients.length; i++) {
+      recipe.addIngredient(new Ingredient(id * 100 + i, ingredients[i], null, 1.0, ""));
+    }
+    return recipe;
+  }
+
+  private static Map<String, String> params(String... keysAndValues) {
+    Map<String, String> params = new HashMap<>();
+    params.put("number", "1");
+    for (int i = 0; i < keysAndValues.length; i += 2) {
+      params.put(keysAndValues[i], keysAndValues[i + 1]);
+    }
+    return params;
+  }
+
+  private List<Integer> ids(Map<String, String> params) {
+    List<Integer> ids = new ArrayList<>();
+    // Ask for one result at a time, since a short page is a miss
+    for (int offset = 0; ; offset++) {
+      params.put("number", "1");
+      params.put("offset", String.valueOf(offset));
+      List<Recipe> page = index.search(params);
+      if (page == null) {
+        return ids;
+      }
+      ids.add(page.get(0).getId());
+    }
+  }
+
+  @Before
+  public void setUp() {
+    index = new RecipeSearchIndex(100);
+
+    Recipe cookies = recipe(1, "Chocolate Chip Cookies", 45, "Butter", "All-Purpose Flour", "Eggs");
+    cookies.setVegetarian(true);
+    cookies.setDishTypes(Arrays.asList("dessert"));
+
+    Recipe stirFry = recipe(2, "Vegetable Stir Fry", 20, "Broccoli", "Soy Sauce", "Carrots");
+    stirFry.setVegetarian(true);
+    stirFry.setVegan(true);
+    stirFry.setDairyFree(true);
+    stirFry.setCuisine("Chinese");
+    stirFry.setDishTypes(Arrays.asList("main course", "side dish"));
+
+    Recipe salad = recipe(3, "Tomato Salad", 10, "Tomatoes", "Olive Oil");
+    salad.setVegetarian(true);
+    salad.setVegan(true);
+    salad.setGlutenFree(true);
+    salad.setDairyFree(true);
+    salad.setDiets(Arrays.asList("gluten free", "paleolithic"));
+    salad.setDishTypes(Arrays.asList("side dish"));
+
+    index.addAll(Arrays.asList(cookies, stirFry, salad));
+  }
+
+  @Test
+  public void testFullTextMatchesTitleAndIngredients() {
+    assertEquals(List.of(1), ids(params("query", "cookie")));
+    assertEquals(List.of(3), ids(params("query", "tomato")));
+    assertEquals(List.of(2), ids(params("query", "BROCCOLI stir-fry")));
+    assertEquals(List.of(), ids(params("query", "lasagna")));
+  }
+
+  @Test
+  public void testIngredientFilters() {
+    assertEquals(List.of(1), ids(params("includeIngredients", "butter, eggs")));
+    assertEquals(List.of(2, 3), ids(params("excludeIngredients", "flour")));
+    assertEquals(
+        List.of(3), ids(params("includeIngredients", "olive oil", "excludeIngredients", "")));
+  }
+
+  @Test
+  public void testFacets() {
+    assertEquals(List.of(2, 3), ids(params("diet", "vegan")));
+    assertEquals(List.of(3), ids(params("diet", "Gluten Free,paleo")));
+    assertEquals(
+        List.of(2, 3), ids(params("diet", "gluten free|vegan", "type", "dessert,side dish")));
+    assertEquals(List.of(2, 3), ids(params("type", "side dish")));
+    assertEquals(List.of(2), ids(params("cuisine", "chinese")));
+    assertEquals(List.of(1, 3), ids(params("excludeCuisine", "Chinese")));
+    assertEquals(List.of(2, 3), ids(params("maxReadyTime", "20")));
+  }
+
+  @Test
+  public void testIntolerancesExcludeFlaggedRecipes() {
+    // Butter is dairy and the stir fry's soy sauce is soy; only the salad is free of both
+    assertEquals(List.of(3), ids(params("intolerances", "dairy,soy")));
+    assertEquals(List.of(2, 3), ids(params("intolerances", "egg")));
+  }
+
+  @Test
+  public void testUnsupportedOrShortSearchesGoUpstream() {
+    assertNull(index.search(params("equipment", "wok")));
+    assertNull(index.search(params("intolerances", "kiwi")));
+    assertNull(index.search(params("number", "abc")));
+    // Three vegetarian recipes can't fill a page of ten
+    assertNull(index.search(Map.of("diet", "vegetarian")));
+    assertEquals(3, index.search(Map.of("diet", "vegetarian", "number", "3")).size());
+  }
+
+  @Test
+  public void testResultsAreCopies() {
+    Recipe found = index.search(params("query", "salad")).get(0);
+    found.setTitle("Changed");
+    found.getIngredients().clear();
+
+    assertEquals("Tomato Salad", index.search(params("query", "salad")).get(0).getTitle());
+  }
+
+  @Test
+  public void testReplacesAndEvicts() {
+    Recipe renamed = recipe(3, "Caprese Salad", 10, "Tomatoes", "Mozzarella");
+    index.add(renamed);
+    assertEquals(3, index.size());
+    assertEquals(List.of(), ids(params("query", "olive")));
+    assertEquals(List.of(3), ids(params("query", "caprese")));
+
+    RecipeSearchIndex small = new RecipeSearchIndex(2);
+    for (int id = 1; id <= 10; id++) {
+      small.add(recipe(id, "Soup " + id, 30, "Water"));
+    }
+    assertEquals(2, small.size());
+    List<Recipe> soups = small.search(Map.of("query", "soup", "number", "2"));
+    assertEquals(9, soups.get(0).getId());
+    assertEquals(10, soups.get(1).getId());
+    assertEquals(8, small.stats().getEvictions());
+  }
+
+  @Test
+  public void testCachingServiceAnswersWarmSearchesLocally() throws Exception {
+    int[] searches = new int[1];
+    MockSpoonacularService upstream =
+        new MockSpoonacularService() {
+          @Override
+          public List<Recipe> searchRecipes(Map<String, String> searchParams) {
+            searches[0]++;
+            return super.searchRecipes(searchParams);
+          }
+        };
+    CachingSpoonacularService service =
+        new CachingSpoonacularService(
+            upstream, 10, 1024 * 1024, 60_000, null, new RecipeSearchIndex(100), null);
+
+    Map<String, String> search = Map.of("query", "stir fry", "number", "1");
+    assertEquals(2, service.searchRecipes(Map.of("number", "2")).size());
+    assertEquals(1, searches[0]);
+
+    // Both recipes are indexed now, so a narrower search needs no upstream call
+    List<Recipe> local = service.searchRecipes(search);
+    assertEquals("Vegetable Stir Fry", local.get(0).getTitle());
+    assertEquals(1, searches[0]);
+    assertEquals(1, service.getSearchIndex().stats().getHits());
+  }
+
+  @Test
+  public void testCookNowRanksByPantryCoverage() {
+    List<Ingredient> pantry =
+        Arrays.asList(
+            new Ingredient(0, "tomatoes ", null, 1.0, ""),
+            new Ingredient(0, "Olive Oil", null, 1.0, ""),
+            new Ingredient(0, "Butter", null, 1.0, ""),
+            // No name match, but the same Spoonacular id as the stir fry's soy sauce
+            new Ingredient(201, "Shoyu", null, 1.0, ""),
+            new Ingredient(0, "Lasagna Sheets", null, 1.0, ""));
+
+    List<Recipe> ranked = index.cookNow(pantry, 10);
+    // The salad is fully covered; cookies and stir fry tie at a third, the older one first
+    assertEquals(3, ranked.size());
+    assertEquals(3, ranked.get(0).getId());
+    assertEquals(1, ranked.get(1).getId());
+    assertEquals(2, ranked.get(2).getId());
+    assertEquals(1, index.cookNow(pantry, 1).size());
+    assertTrue(index.cookNow(List.of(), 10).isEmpty());
+
+    // A replaced recipe is ranked by its new ingredients only
+    Recipe caprese = recipe(3, "Caprese Salad", 10, "Mozzarella", "Basil", "Tomatoes", "Balsamic");
+    for (Ingredient ingredient : caprese.getIngredients()) {
+      // Ids are Spoonacular's, so new ingredients need ids of their own
+      ingredient.setId(ingredient.getId() + 600);
+    }
+    index.add(caprese);
+    assertEquals(1, index.cookNow(pantry, 10).get(0).getId());
+  }
+
+  @Test
+  public void testCookNowMatchesFullSort() {
+    Random random = new Random(42);
+    RecipeSearchIndex large = new RecipeSearchIndex(1000);
+    Map<Integer, Set<Integer>> ingredientsById = new HashMap<>();
+    // More recipes than the index holds, so evicted documents stay in the postings for a while
+    for (int id = 1; id <= 1500; id++) {
+      Set<Integer> ingredients = new HashSet<>();
+      int count = 1 + random.nextInt(12);
+      while (ingredients.size() < count) {
+        ingredients.add(random.nextInt(200));
+      }
+      Recipe recipe = new Recipe();
+      recipe.setId(id);
+      for (int ingredient : ingredients) {
+        recipe.addIngredient(
+            new Ingredient(ingredient + 1, "ingredient " + ingredient, null, 1, ""));
+      }
+      large.add(recipe);
+      ingredientsById.put(id, ingredients);
+    }
+
+    Set<Integer> pantryIngredients = new HashSet<>();
+    List<Ingredient> pantry = new ArrayList<>();
+    while (pantryIngredients.size() < 40) {
+      int ingredient = random.nextInt(200);
+      if (pantryIngredients.add(ingredient)) {
+        pantry.add(new Ingredient(0, "Ingredient " + ingredient, null, 1, ""));
+      }
+    }
+
+    // Recipes still indexed, best share first, then more matches, then the older recipe
+    List<Integer> expected = new ArrayList<>();
+    for (int id = 501; id <= 1500; id++) {
+      Set<Integer> used = new HashSet<>(ingredientsById.get(id));
+      used.retainAll(pantryIngredients);
+      if (!used.isEmpty()) {
+        expected.add(id);
+      }
+    }
+    expected.sort(
+        (a, b) -> {
+          int matchedA = matched(ingredientsById.get(a), pantryIngredients);
+          int matchedB = matched(ingredientsById.get(b), pantryIngredients);
+          int byShare =
+              Long.compare(
+                  (long) matchedB * ingredientsById.get(a).size(),
+                  (long) matchedA * ingredientsById.get(b).size());
+          return byShare != 0
+              ? byShare
+              : matchedA != matchedB ? Integer.compare(matchedB, matchedA) : Integer.compare(a, b);
+        });
+
+    List<Integer> actual = new ArrayList<>();
+    for (Recipe recipe : large.cookNow(pantry, 25)) {
+      actual.add(recipe.getId());
+    }
+    assertEquals(expected.subList(0, 25), actual);
+  }
+
+  private static int matched(Set<Integer> ingredients, Set<Integer> pantry) {
+    int matched = 0;
+    for (int ingredient : ingredients) {
+      if (pantry.contains(ingredient)) {
+        matched++;
+      }
+    }
+    return matched;
+  }
+}
@@ -0,0 +1,167 @@
+package edu.brown.cs.student;
+
+import static org.junit.Assert.*;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import main.edu.brown.cs.student.main.server.model.Ingredient;
+import main.edu.brown.cs.student.main.server.model.Recipe;
+import main.edu.brown.cs.student.main.server.service.CachingSpoonacularService;
+import main.edu.brown.cs.student.main.server.service.MockSpoonacularService;
+import main.edu.brown.cs.student.main.server.store.RecipeStore;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class RecipeStoreTest {
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  private Recipe recipe(int id, String title) {
+    Recipe recipe = new Recipe();
+    recipe.setId(id);
+    recipe.setTitle(title);
+    recipe.setImage("image-" + id + ".jpg");
+    recipe.setReadyInMinutes(25);
+    recipe.setServings(2);
+    recipe.setCuisine("Italian");
+    recipe.setVegetarian(true);
+    recipe.setDiets(Arrays.asList("vegetarian", "lacto ovo vegetarian"));
+    recipe.setDishTypes(Arrays.asList("main course"));
+    recipe.setInstructions(Arrays.asList("Boil water.", "Cook pasta."));
+    recipe.addIngredient(new Ingredient(1, "pasta", "Pasta and Rice", 200, "g"));
+    recipe.addIngredient(new Ingredient(2, "salt", null, 1, "tsp"));
+    return recipe;
+  }
+
+  @Test
+  public void testPutAndGet() throws Exception {
+    try (RecipeStore store = new RecipeStore(folder.getRoot().toPath().resolve("recipes.db"))) {
+      assertNull(store.get(1));
+
+      store.put(recipe(1, "Pasta"));
+      Recipe loaded = store.get(1);
+
+      assertEquals(1, loaded.getId());
+      assertEquals("Pasta", loaded.getTitle());
+      assertEquals("image-1.jpg", loaded.getImage());
+      assertEquals(25, loaded.getReadyInMinutes());
+      assertEquals("Italian", loaded.getCuisine());
+      assertTrue(loaded.isVegetarian());
+      assertFalse(loaded.isVegan());
+      assertEquals(Arrays.asList("vegetarian", "lacto ovo vegetarian"), loaded.getDiets());
+      assertEquals(Arrays.asList("Boil water.", "Cook pasta."), loaded.getInstructions());
+      assertEquals(Arrays.asList("main course"), loaded.getDishTypes());
+      assertEquals(2, loaded.getIngredients().size());
+      assertEquals("pasta", loaded.getIngredients().get(0).getName());
+      assertEquals(200, loaded.getIngredients().get(0).getAmount(), 0.001);
+      assertNull(loaded.getIngredients().get(1).getAisle());
+    }
+  }
+
+  @Test
+  public void testSurvivesReopen() throws Exception {
+    Path file = folder.getRoot().toPath().resolve("recipes.db");
+    try (RecipeStore store = new RecipeStore(file)) {
+      store.put(recipe(1, "Pasta"));
+      store.put(recipe(2, "Salad"));
+      store.put(recipe(1, "Better Pasta"));
+    }
+
+    try (RecipeStore store = new RecipeStore(file)) {
+      assertEquals(2, store.size());
+      assertEquals("Better Pasta", store.get(1).getTitle());
+      assertEquals("Salad", store.get(2).getTitle());
+
+      // Appends continue after the recovered records
+      store.put(recipe(3, "Soup"));
+      assertEquals("Soup", store.get(3).getTitle());
+      assertEquals("Salad", store.get(2).getTitle());
+    }
+  }
+
+  @Test
+  public void testGrowsBeyondInitialMapping() throws Exception {
+    Path file = folder.getRoot().toPath().resolve("recipes.db");
+    char[] longStep = new char[20_000];
+    Arrays.fill(longStep, 'x');
+    try (RecipeStore store = new RecipeStore(file)) {
+      for (int id = 0; id < 200; id++) {
+        Recipe recipe = recipe(id, "Recipe " + id);
+        recipe.setInstructions(Arrays.asList(new String(longStep)));
+        store.put(recipe);
+      }
+      assertTrue(store.sizeInBytes() > 2 * 1024 * 1024);
+      assertEquals("Recipe 0", store.get(0).getTitle());
+      assertEquals("Recipe 199", store.get(199).getTitle());
+    }
+
+    try (RecipeStore store = new RecipeStore(file)) {
+      assertEquals(200, store.size());
+      assertEquals(20_000, store.get(150).getInstructions().get(0).length());
+    }
+  }
+
+  @Test
+  public void testCorruptTailIsDropped() throws Exception {
+    Path file = folder.getRoot().toPath().resolve("recipes.db");
+    long secondRecord;
+    try (RecipeStore store = new RecipeStore(file)) {
+      store.put(recipe(1, "Pasta"));
+      secondRecord = store.sizeInBytes();
+      store.put(recipe(2, "Salad"));
+    }
+
+    // Simulate a torn write by damaging the last record's payload
+    try (RandomAccessFile raw = new RandomAccessFile(file.toFile(), "rw")) {
+      raw.seek(secondRecord + 20);
+      raw.write(0x7f);
+    }
+
+    try (RecipeStore store = new RecipeStore(file)) {
+      assertEquals(1, store.size());
+      assertEquals("Pasta", store.get(1).getTitle());
+      assertNull(store.get(2));
+
+      store.put(recipe(2, "Salad"));
+      assertEquals("Salad", store.get(2).getTitle());
+    }
+  }
+
+  @Test
+  public void testCachingServiceReadsThroughStore() throws Exception {
+    AtomicInteger upstreamCalls = new AtomicInteger();
+    MockSpoonacularService upstream =
+        new MockSpoonacularService() {
+          @Override
+          public Recipe getRecipeById(int id) {
+            upstreamCalls.incrementAndGet();
+            return super.getRecipeById(id);
+          }
+        };
+    Path file = folder.getRoot().toPath().resolve("recipes.db");
+
+    try (RecipeStore store = new RecipeStore(file)) {
+      CachingSpoonacularService service =
+          new CachingSpoonacularService(upstream, 10, 1024 * 1024, 60_000, store);
+      String title = service.getRecipeById(1).getTitle();
+      assertEquals(1, upstreamCalls.get());
+      assertTrue(store.contains(1));
+      assertEquals(title, store.get(1).getTitle());
+    }
+
+    // A fresh process has an empty memory cache but still avoids the upstream call
+    try (RecipeStore store = new RecipeStore(file)) {
+      CachingSpoonacularService service =
+          new CachingSpoonacularService(upstream, 10, 1024 * 1024, 60_000, store);
+      Recipe recipe = service.getRecipeById(1);
+      assertNotNull(recipe);
+      assertEquals(1, upstreamCalls.get());
+
+      service.getRecipeById(1);
+      assertEquals(1, service.getRecipeCacheStats().getHits());
+    }
+  }
+}
@@ -0,0 +1,84 @@
+package edu.brown.cs.student;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import main.edu.brown.cs.student.main.server.cache.CachedResponse;
+import main.edu.brown.cs.student.main.server.cache.ResponseCache;
+import main.edu.brown.cs.student.main.server.handlers.GroceryListHandler;
+import main.edu.brown.cs.student.main.server.model.Ingredient;
+import main.edu.brown.cs.student.main.server.model.User;
+import main.edu.brown.cs.student.main.server.repository.InMemoryUserRepository;
+import main.edu.brown.cs.student.main.server.repository.UserRepository;
+import main.edu.brown.cs.student.main.server.service.MockSpoonacularService;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import spark.Request;
+import spark.Response;
+
+public class ResponseCacheTest {
+
+  @Test
+  public void testRendersOncePerSource() {
+    ResponseCache cache = new ResponseCache(10, 1024, 60_000);
+    AtomicInteger renders = new AtomicInteger();
+    Object first = new Object();
+
+    CachedResponse a = cache.get("k", first, () -> "{\"n\":" + renders.incrementAndGet() + "}");
+    CachedResponse b = cache.get("k", first, () -> "{\"n\":" + renders.incrementAndGet() + "}");
+    assertSame(a, b);
+    assertEquals(1, renders.get());
+
+    // A new source, as after a mutation, replaces the entry
+    CachedResponse c =
+        cache.get("k", new Object(), () -> "{\"n\":" + renders.incrementAndGet() + "}");
+    assertEquals(2, renders.get());
+    assertNotEquals(a.getEtag(), c.getEtag());
+    assertEquals("{\"n\":2}", new String(c.getBody(), StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void testIfNoneMatch() {
+    CachedResponse response = new ResponseCache(10, 1024, 60_000).get("k", "v", () -> "{}");
+
+    assertTrue(response.matches(response.getEtag()));
+    assertTrue(response.matches("\"other\", W/" + response.getEtag()));
+    assertTrue(response.matches("*"));
+    assertFalse(response.matches("\"other\""));
+    assertFalse(response.matches(null));
+  }
+
+  @Test
+  public void testGroceryListAnswersNotModifiedUntilItChanges() throws Exception {
+    UserRepository users = new InMemoryUserRepository();
+    User user = new User("test-user", "Test User", "test@example.com");
+    user.getGroceryList().addIngredient(new Ingredient(1, "milk", "Dairy", 1.0, "cup"));
+    users.save(user);
+    GroceryListHandler handler =
+        new GroceryListHandler(
+            new MockSpoonacularService(), users, new ResponseCache(10, 1 << 16, 60_000));
+
+    Request request = mock(Request.class);
+    when(request.params(":userId")).thenReturn("test-user");
+    Response first = mock(Response.class);
+    Object body = handler.handle(request, first);
+    assertTrue(new String((byte[]) body, StandardCharsets.UTF_8).contains("milk"));
+
+    // Read the ETag the first response carried, then send it back
+    ArgumentCaptor<String> etag = ArgumentCaptor.forClass(String.class);
+    verify(first).header(eq("ETag"), etag.capture());
+    when(request.headers("If-None-Match")).thenReturn(etag.getValue());
+    Response second = mock(Response.class);
+    assertEquals("", handler.handle(request, second));
+    verify(second).status(304);
+
+    // A change makes the old tag stale
+    user.getGroceryList().addIngredient(new Ingredient(2, "eggs", "Dairy", 12.0, ""));
+    Response third = mock(Response.class);
+    body = handler.handle(request, third);
+    assertTrue(new String((byte[]) body, StandardCharsets.UTF_8).contains("eggs"));
+    verify(third, never()).status(304);
+  }
+}
@@ -0,0 +1,108 @@
+package edu.brown.cs.student;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import main.edu.brown.cs.student.main.server.VirtualThreadPool;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.eclipse.jetty.util.thread.ThreadPool;
+import org.junit.Test;
+
+/**
+ * Load test comparing Jetty's bounded platform pool with virtual-thread dispatch, using a handler
+ * that blocks the way our handlers block on Spoonacular.
+ */
+public class ServerThreadModeLoadTest {
+
+  private static final int POOL_THREADS = 16;
+  private static final int CONCURRENT_REQUESTS = 200;
+  private static final long UPSTREAM_LATENCY_MILLIS = 100;
+
+  // Simulates a handler waiting on a slow upstream call
+  private static class SlowUpstreamHandler extends AbstractHandler {
+    @Override
+    public void handle(
+        String target,
+        Request baseRequest,
+        HttpServletRequest request,
+        HttpServletResponse response)
+        throws IOException {
+      try {
+        Thread.sleep(UPSTREAM_LATENCY_MILLIS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      response.setStatus(200);
+      response.getWriter().write("{\"result\":\"success\"}");
+      baseRequest.setHandled(true);
+    }
+  }
+
+  /** Serve a burst of concurrent requests and return the wall-clock time in milliseconds */
+  private long runLoad(ThreadPool pool) throws Exception {
+    Server server = new Server(pool);
+    ServerConnector connector = new ServerConnector(server, 1, 1);
+    connector.setPort(0);
+    connector.setAcceptQueueSize(CONCURRENT_REQUESTS);
+    server.addConnector(connector);
+    server.setHandler(new SlowUpstreamHandler());
+    server.start();
+    if (pool instanceof VirtualThreadPool) {
+      ((VirtualThreadPool) pool).startVirtualDispatch();
+    }
+
+    try {
+      HttpClient client = HttpClient.newHttpClient();
+      URI uri = URI.create("http://localhost:" + connector.getLocalPort() + "/api/recipes/1");
+
+      long start = System.nanoTime();
+      List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+      for (int i = 0; i < CONCURRENT_REQUESTS; i++) {
+        HttpRequest request = HttpRequest.newBuilder(uri).GET().build();
+        responses.add(client.sendAsync(request, HttpResponse.BodyHandlers.ofString()));
+      }
+      for (CompletableFuture<HttpResponse<String>> response : responses) {
+        assertEquals(200, response.get().statusCode());
+      }
+      return (System.nanoTime() - start) / 1_000_000;
+    } finally {
+      server.stop();
+    }
+  }
+
+  @Test
+  public void testPlatformPoolServesBurst() throws Exception {
+    long elapsed = runLoad(new QueuedThreadPool(POOL_THREADS));
+
+    // Requests queue behind the bounded pool, which also runs Jetty's acceptor and selector, so
+    // the burst takes at least one upstream round-trip per pool's worth of requests
+    long minimum = CONCURRENT_REQUESTS / POOL_THREADS * UPSTREAM_LATENCY_MILLIS;
+    assertTrue("expected at least " + minimum + "ms, took " + elapsed + "ms", elapsed >= minimum);
+  }
+
+  @Test
+  public void testVirtualThreadsOutscalePlatformPool() throws Exception {
+    assumeTrue("Virtual threads need JDK 21+", VirtualThreadPool.isSupported());
+
+    long platformElapsed = runLoad(new QueuedThreadPool(POOL_THREADS));
+    long virtualElapsed = runLoad(VirtualThreadPool.create(POOL_THREADS));
+
+    assertTrue(
+        "platform threads took " + platformElapsed + "ms, virtual threads " + virtualElapsed + "ms",
+        virtualElapsed < platformElapsed);
+  }
+}
@@ -0,0 +1,111 @@
+package edu.brown.cs.student;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import main.edu.brown.cs.student.main.server.model.Ingredient;
+import main.edu.brown.cs.student.main.server.model.Recipe;
+import main.edu.brown.cs.student.main.server.service.SpoonacularJsonReader;
+import org.junit.Test;
+
+public class SpoonacularJsonReaderTest {
+
+  private InputStream stream(String json) {
+    return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void testReadSearchResults() throws IOException {
+    String json =
+        "{\"offset\":0,\"number\":2,\"results\":["
+            + "{\"id\":716429,\"title\":\"Pasta\",\"image\":\"pasta.jpg\",\"readyInMinutes\":45,"
+            + "\"servings\":2,\"sourceUrl\":\"http://example.com\",\"vegetarian\":true,"
+            + "\"vegan\":false,\"glutenFree\":false,\"dairyFree\":true,\"diets\":[\"lacto ovo vegetarian\"],"
+            + "\"cuisines\":[\"Italian\",\"European\"],\"nutrition\":{\"nutrients\":[{\"amount\":1.5}]},"
+            + "\"usedIngredients\":[{\"id\":2,\"name\":\"garlic\",\"amount\":2,\"unit\":\"cloves\","
+            + "\"original\":\"2 cloves garlic\",\"meta\":[]}],"
+            + "\"missedIngredients\":[{\"id\":1,\"name\":\"pasta\",\"aisle\":\"Pasta and Rice\","
+            + "\"amount\":200.0,\"unit\":\"g\",\"original\":\"200g pasta\"}]},"
+            + "{\"id\":2,\"title\":\"Salad\",\"image\":null,\"cuisines\":[]}"
+            + "],\"totalResults\":2}";
+
+    List<Recipe> recipes = SpoonacularJsonReader.readSearchResults(stream(json));
+
+    assertEquals(2, recipes.size());
+    Recipe pasta = recipes.get(0);
+    assertEquals(716429, pasta.getId());
+    assertEquals("Pasta", pasta.getTitle());
+    assertEquals("pasta.jpg", pasta.getImage());
+    assertEquals(45, pasta.getReadyInMinutes());
+    assertEquals(2, pasta.getServings());
+    assertEquals("http://example.com", pasta.getSourceUrl());
+    assertTrue(pasta.isVegetarian());
+    assertFalse(pasta.isVegan());
+    assertTrue(pasta.isDairyFree());
+    assertEquals(Arrays.asList("lacto ovo vegetarian"), pasta.getDiets());
+    assertEquals("Italian", pasta.getCuisine());
+
+    // Missed ingredients come first even though used ingredients appear first in the body
+    assertEquals(2, pasta.getIngredients().size());
+    Ingredient first = pasta.getIngredients().get(0);
+    assertEquals(1, first.getId());
+    assertEquals("pasta", first.getName());
+    assertEquals("Pasta and Rice", first.getAisle());
+    assertEquals(200.0, first.getAmount(), 0.001);
+    assertEquals("g", first.getUnit());
+    assertEquals("200g pasta", first.getOriginalString());
+    assertEquals("garlic", pasta.getIngredients().get(1).getName());
+
+    Recipe salad = recipes.get(1);
+    assertEquals("Salad", salad.getTitle());
+    assertNull(salad.getImage());
+    assertNull(salad.getCuisine());
+    assertTrue(salad.getIngredients().isEmpty());
+  }
+
+  @Test
+  public void testReadRecipeDetails() throws IOException {
+    String json =
+        "{\"id\":42,\"title\":\"Soup\",\"readyInMinutes\":30,\"servings\":4,"
+            + "\"extendedIngredients\":[{\"id\":11,\"name\":\"carrot\",\"aisle\":\"Produce\","
+            + "\"amount\":3,\"unit\":\"\",\"measures\":{\"us\":{\"amount\":3}}},"
+            + "{\"id\":12,\"name\":\"stock\",\"amount\":1,\"unit\":\"l\",\"original\":\"1l stock\"}],"
+            + "\"missedIngredients\":[{\"id\":99,\"name\":\"ignored\"}],"
+            + "\"analyzedInstructions\":[{\"name\":\"\",\"steps\":["
+            + "{\"number\":1,\"step\":\"Chop the carrots.\"},"
+            + "{\"number\":2,\"step\":\"Simmer in stock.\"}]}]}";
+
+    Recipe recipe = SpoonacularJsonReader.readRecipeDetails(stream(json));
+
+    assertEquals(42, recipe.getId());
+    assertEquals("Soup", recipe.getTitle());
+    assertEquals(30, recipe.getReadyInMinutes());
+    assertEquals(4, recipe.getServings());
+
+    // Only extendedIngredients count for details
+    assertEquals(2, recipe.getIngredients().size());
+    Ingredient carrot = recipe.getIngredients().get(0);
+    assertEquals("carrot", carrot.getName());
+    assertEquals("3.0  carrot", carrot.getOriginalString());
+    assertEquals("1l stock", recipe.getIngredients().get(1).getOriginalString());
+
+    assertEquals(Arrays.asList("Chop the carrots.", "Simmer in stock."), recipe.getInstructions());
+  }
+
+  @Test
+  public void testReadSearchResultsWithoutResults() throws IOException {
+    List<Recipe> recipes =
+        SpoonacularJsonReader.readSearchResults(stream("{\"results\":null,\"totalResults\":0}"));
+    assertTrue(recipes.isEmpty());
+  }
+
+  @Test(expected = IOException.class)
+  public void testMalformedBody() throws IOException {
+    SpoonacularJsonReader.readRecipeDetails(stream("{\"id\":42,\"title\":"));
+  }
+}
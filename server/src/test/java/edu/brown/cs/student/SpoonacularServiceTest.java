@@ -9,6 +9,7 @@ import java.util.Map;
 import main.edu.brown.cs.student.main.server.model.Ingredient;
 import main.edu.brown.cs.student.main.server.model.Recipe;
 import main.edu.brown.cs.student.main.server.service.MockSpoonacularService;
+import main.edu.brown.cs.student.main.server.service.SpoonacularService;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -42,6 +43,20 @@ public class SpoonacularServiceTest {
     assertEquals("Chocolate Chip Cookies", recipe.getTitle());
   }
 
+  @Test
+  public void testGetRecipeByIdAsync() throws Exception {
+    Recipe recipe = SpoonacularService.await(mockService.getRecipeByIdAsync(2));
+
+    assertEquals(2, recipe.getId());
+    assertEquals("Vegetable Stir Fry", recipe.getTitle());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testGetRecipeByIdAsyncRethrowsOriginalException() throws Exception {
+    // The async failure should surface with its original type once awaited
+    SpoonacularService.await(mockService.getRecipeByIdAsync(999));
+  }
+
   @Test(expected = IllegalArgumentException.class)
   public void testGetRecipeByIdNonExistent() throws Exception {
     // Should throw an exception for non-existent ID
@@ -99,4 +114,25 @@ public class SpoonacularServiceTest {
 
     assertTrue("Butter should be flagged as containing dairy", foundAllergen);
   }
+
+  @Test
+  public void testCheckRecipesForAllergensAnnotatesEachRecipe() {
+    Map<String, String> searchParams = new HashMap<>();
+    searchParams.put("query", "cookies");
+    List<Recipe> recipes = mockService.searchRecipes(searchParams);
+    assertFalse(recipes.isEmpty());
+
+    mockService.checkRecipesForAllergens(recipes, List.of("Dairy", "gluten"));
+
+    Recipe cookies = recipes.get(0);
+    assertEquals(List.of("dairy", "gluten"), cookies.getAllergens());
+    for (Ingredient ingredient : cookies.getIngredients()) {
+      if (ingredient.getName().equals("Butter")) {
+        assertTrue(ingredient.isContainsAllergen());
+      }
+    }
+
+    // The stir fry has neither, and gets an empty list
+    assertTrue(recipes.get(1).getAllergens().isEmpty());
+  }
 }
@@ -0,0 +1,43 @@
+package edu.brown.cs.student;
+
+import static org.junit.Assert.*;
+
+import main.edu.brown.cs.student.main.server.model.Ingredient;
+import main.edu.brown.cs.student.main.server.model.Unit;
+import org.junit.Test;
+
+public class UnitTest {
+
+  @Test
+  public void testAliasesResolveToCanonicalUnits() {
+    assertEquals(Unit.TABLESPOON, Unit.of("Tbsp"));
+    assertEquals(Unit.TABLESPOON, Unit.of(" tablespoons "));
+    assertEquals(Unit.OUNCE, Unit.of("oz."));
+    assertEquals(Unit.EACH, Unit.of(""));
+    assertEquals(Unit.EACH, Unit.of(null));
+    assertNull(Unit.of("pinch"));
+  }
+
+  @Test
+  public void testConversions() {
+    assertEquals(1000.0, Unit.KILOGRAM.toBase(1), 0.001);
+    assertEquals(3.0, Unit.TEASPOON.fromBase(Unit.TABLESPOON.toBase(1)), 0.001);
+    assertEquals(16.0, Unit.TABLESPOON.fromBase(Unit.CUP.toBase(1)), 0.01);
+  }
+
+  @Test
+  public void testIngredientBaseAmounts() {
+    Ingredient butter = new Ingredient(1, "Butter", "Dairy", 2.0, "lbs");
+    assertEquals(Unit.POUND, butter.getCanonicalUnit());
+    assertEquals(907.184, butter.getBaseAmount(), 0.001);
+
+    // The cached unit follows unit changes
+    butter.setUnit("oz");
+    assertEquals(56.699, butter.getBaseAmount(), 0.001);
+
+    Ingredient sticks = new Ingredient(1, "Butter", "Dairy", 2.0, "sticks");
+    assertFalse(butter.isMeasuredLike(sticks));
+    assertTrue(sticks.isMeasuredLike(new Ingredient(1, "Butter", "Dairy", 1.0, "Sticks")));
+    assertEquals(2.0, sticks.getBaseAmount(), 0.001);
+  }
+}
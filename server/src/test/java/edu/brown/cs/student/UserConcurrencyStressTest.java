@@ -0,0 +1,228 @@
+package edu.brown.cs.student;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import com.squareup.moshi.JsonAdapter;
+import com.squareup.moshi.Moshi;
+import com.squareup.moshi.Types;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import main.edu.brown.cs.student.main.server.cache.ResponseCache;
+import main.edu.brown.cs.student.main.server.events.GroceryEventBus;
+import main.edu.brown.cs.student.main.server.handlers.AddGroceryIngredientHandler;
+import main.edu.brown.cs.student.main.server.handlers.AddPantryIngredientHandler;
+import main.edu.brown.cs.student.main.server.handlers.CheckGroceryItemHandler;
+import main.edu.brown.cs.student.main.server.handlers.DeleteGroceryIngredientHandler;
+import main.edu.brown.cs.student.main.server.handlers.GroceryListHandler;
+import main.edu.brown.cs.student.main.server.handlers.PantryHandler;
+import main.edu.brown.cs.student.main.server.handlers.RemovePantryIngredientHandler;
+import main.edu.brown.cs.student.main.server.model.ChangeLog;
+import main.edu.brown.cs.student.main.server.model.GroceryItem;
+import main.edu.brown.cs.student.main.server.model.GroceryList;
+import main.edu.brown.cs.student.main.server.model.User;
+import main.edu.brown.cs.student.main.server.repository.FileUserRepository;
+import main.edu.brown.cs.student.main.server.repository.InMemoryUserRepository;
+import main.edu.brown.cs.student.main.server.repository.UserRepository;
+import main.edu.brown.cs.student.main.server.service.MockSpoonacularService;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import spark.Request;
+import spark.Response;
+
+/**
+ * Several "devices" write one user's grocery list and pantry at once while others read them; the
+ * per-user lock must keep both consistent and every request successful. Writers to different users
+ * must also never block each other, even while the file repository snapshots.
+ */
+public class UserConcurrencyStressTest {
+
+  private static final int WRITERS = 8;
+  private static final int READERS = 4;
+  private static final int ITEMS_PER_WRITER = 150;
+
+  private static final int USERS = 6;
+  private static final int SAVES_PER_USER = 100;
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  private final JsonAdapter<Map<String, Object>> adapter;
+
+  public UserConcurrencyStressTest() {
+    Type type = Types.newParameterizedType(Map.class, String.class, Object.class);
+    adapter = new Moshi.Builder().build().adapter(type);
+  }
+
+  private Map<String, Object> call(spark.Route handler, String body, String userId)
+      throws Exception {
+    Request request = mock(Request.class);
+    when(request.body()).thenReturn(body);
+    when(request.params(":userId")).thenReturn(userId);
+    Object result = handler.handle(request, mock(Response.class));
+    // List reads answer with cached bytes
+    return adapter.fromJson(
+        result instanceof byte[]
+            ? new String((byte[]) result, StandardCharsets.UTF_8)
+            : (String) result);
+  }
+
+  @Test
+  public void testConcurrentWritersKeepOneUserConsistent() throws Exception {
+    UserRepository users = new InMemoryUserRepository();
+    users.save(new User("shared", "Shared", "shared@example.com"));
+    GroceryEventBus events = new GroceryEventBus(16, 10);
+    GroceryEventBus.Subscription subscription = events.subscribe("shared");
+
+    AddGroceryIngredientHandler addGrocery = new AddGroceryIngredientHandler(users, events);
+    CheckGroceryItemHandler check = new CheckGroceryItemHandler(users, events);
+    DeleteGroceryIngredientHandler deleteGrocery =
+        new DeleteGroceryIngredientHandler(users, events);
+    AddPantryIngredientHandler addPantry = new AddPantryIngredientHandler(users);
+    RemovePantryIngredientHandler removePantry = new RemovePantryIngredientHandler(users);
+    ResponseCache responses = new ResponseCache(100, 1 << 20, 60_000);
+    GroceryListHandler readGrocery =
+        new GroceryListHandler(new MockSpoonacularService(), users, responses);
+    PantryHandler readPantry = new PantryHandler(new MockSpoonacularService(), users, responses);
+
+    ExecutorService executor = Executors.newFixedThreadPool(WRITERS + READERS);
+    CountDownLatch start = new CountDownLatch(1);
+    CountDownLatch writersDone = new CountDownLatch(WRITERS);
+    try {
+      List<Callable<Void>> tasks = new ArrayList<>();
+      for (int w = 0; w < WRITERS; w++) {
+        int writer = w;
+        tasks.add(
+            () -> {
+              start.await();
+              try {
+                for (int i = 0; i < ITEMS_PER_WRITER; i++) {
+                  String name = "w" + writer + "-" + i;
+                  String body = "{\"userId\":\"shared\",\"ingredientName\":\"" + name + "\"";
+                  assertEquals("success", call(addGrocery, body + "}", null).get("result"));
+                  assertEquals("success", call(addPantry, body + "}", null).get("result"));
+
+                  // Check every item, then delete every other one from both lists
+                  assertEquals(
+                      "success", call(check, body + ",\"checked\":true}", null).get("result"));
+                  if (i % 2 == 0) {
+                    assertEquals("success", call(deleteGrocery, body + "}", null).get("result"));
+                    assertEquals("success", call(removePantry, body + "}", null).get("result"));
+                  }
+                }
+              } finally {
+                writersDone.countDown();
+              }
+              return null;
+            });
+      }
+      for (int r = 0; r < READERS; r++) {
+        tasks.add(
+            () -> {
+              start.await();
+              while (writersDone.getCount() > 0) {
+                assertEquals("success", call(readGrocery, null, "shared").get("result"));
+                assertEquals("success", call(readPantry, null, "shared").get("result"));
+              }
+              return null;
+            });
+      }
+
+      List<Future<Void>> futures = new ArrayList<>();
+      for (Callable<Void> task : tasks) {
+        futures.add(executor.submit(task));
+      }
+      start.countDown();
+      for (Future<Void> future : futures) {
+        future.get(); // rethrows any assertion failure or exception from the task
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    User user = users.get("shared");
+    GroceryList groceryList = user.getGroceryList();
+    int expected = WRITERS * ITEMS_PER_WRITER / 2;
+
+    // No lost or duplicated items, and the id index agrees with the list
+    assertEquals(expected, groceryList.getItems().size());
+    Set<Long> ids = new HashSet<>();
+    for (GroceryItem item : groceryList.getItems()) {
+      assertTrue(ids.add(item.getId()));
+      assertSame(item, groceryList.getItem(item.getId()));
+      assertTrue(item.isChecked());
+    }
+    assertEquals(expected, user.getPantry().getAllIngredients().size());
+
+    // Every change got its own version: adds, checks and deletes
+    int changes = WRITERS * ITEMS_PER_WRITER * 2 + expected;
+    assertEquals(changes, groceryList.getVersion());
+    List<ChangeLog.Change<GroceryItem>> recent =
+        groceryList.getChangesSince(groceryList.getVersion() - 10);
+    for (int i = 0; i < recent.size(); i++) {
+      assertEquals(groceryList.getVersion() - 9 + i, recent.get(i).getVersion());
+    }
+    subscription.close();
+  }
+
+  @Test(timeout = 60_000)
+  public void testConcurrentUsersSaveWhileSnapshotting() throws Exception {
+    // Snapshot on every save, so saves from different users keep crossing a snapshot
+    FileUserRepository users = new FileUserRepository(folder.getRoot().toPath(), 1, false);
+    for (int u = 0; u < USERS; u++) {
+      users.save(new User("user" + u, "User " + u, "user" + u + "@example.com"));
+    }
+    AddPantryIngredientHandler addPantry = new AddPantryIngredientHandler(users);
+    GroceryEventBus events = new GroceryEventBus(16, 10);
+    AddGroceryIngredientHandler addGrocery = new AddGroceryIngredientHandler(users, events);
+
+    // Two writers per user, so saves contend both on one user and across users
+    ExecutorService executor = Executors.newFixedThreadPool(USERS * 2);
+    CountDownLatch start = new CountDownLatch(1);
+    try {
+      List<Future<Void>> futures = new ArrayList<>();
+      for (int t = 0; t < USERS * 2; t++) {
+        String userId = "user" + (t % USERS);
+        spark.Route handler = t < USERS ? addPantry : addGrocery;
+        futures.add(
+            executor.submit(
+                () -> {
+                  start.await();
+                  for (int i = 0; i < SAVES_PER_USER; i++) {
+                    String body =
+                        "{\"userId\":\"" + userId + "\",\"ingredientName\":\"item" + i + "\"}";
+                    assertEquals("success", call(handler, body, null).get("result"));
+                  }
+                  return null;
+                }));
+      }
+      start.countDown();
+      for (Future<Void> future : futures) {
+        future.get(30, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    users.close();
+
+    // Every user's last state survives the snapshots
+    FileUserRepository reopened = new FileUserRepository(folder.getRoot().toPath(), 1, false);
+    for (int u = 0; u < USERS; u++) {
+      User user = reopened.get("user" + u);
+      assertEquals(SAVES_PER_USER, user.getPantry().getAllIngredients().size());
+      assertEquals(SAVES_PER_USER, user.getGroceryList().getItems().size());
+    }
+    reopened.close();
+  }
+}